@@ -0,0 +1,81 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Heap footprint comparison of the roster stores.
+ * Loads the same generated roster into a schedule keeping the actors as objects, into one keeping
+ * them in a {@link ColumnarRoster} and into one keeping its availability off the heap, and reports
+ * for each the heap measured after a full garbage collection (the whole schedule with its lookup and
+ * availability indexes) next to the estimated bytes of the actors' details and availability and the
+ * memory used off the heap.
+ * <p>
+ * Usage: {@code java -cp benchmarks.jar RosterFootprint [actors] [seed]}; give the JVM enough heap
+ * for both rosters at once (e.g. {@code -Xmx4g} for 1M actors).
+ */
+public class RosterFootprint {
+    private static final int DEFAULT_ACTORS = 1_000_000;
+
+    private RosterFootprint() { }
+
+    public static void main(String[] args) throws IOException {
+        int actorCount = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ACTORS;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : RosterGenerator.DEFAULT_SEED;
+        if (actorCount < 1) {
+            System.out.println("Usage: java RosterFootprint [actors] [seed]");
+            System.exit(2);
+        }
+
+        System.out.printf("Roster of %,d actors (seed %d, %d slots per week)%n", actorCount, seed, Actor.SLOTS_PER_WEEK);
+        System.out.printf("%-9s %15s %15s %15s %12s %15s%n", "Store", "Schedule heap", "Actor data", "As objects", "Per actor", "Off heap");
+        for (String store : new String[] {"objects", "columnar", "offheap"}) {
+            measure(actorCount, seed, store);
+        }
+    }
+
+    // Loads the roster into a schedule with the given store and prints the measured and estimated heap
+    private static void measure(int actorCount, long seed, String store) throws IOException {
+        PrintStream console = System.out;
+        Path directory = Files.createTempDirectory("rehearsalplanner-footprint");
+        try {
+            long before = usedHeap();
+            System.setOut(new PrintStream(OutputStream.nullOutputStream())); // Hides the save message
+            ColumnarRoster roster = switch (store) {
+                case "columnar" -> new ColumnarRoster();
+                case "offheap" -> new ColumnarRoster(AvailabilityMatrix.allocate(0, SlotMask.wordCount(Actor.SLOTS_PER_WEEK)));
+                default -> null;
+            };
+            Schedule schedule = new Schedule(new LoadSave(directory), roster);
+            schedule.setActors(RosterGenerator.generate(actorCount, seed));
+            System.setOut(console);
+            long measured = usedHeap() - before;
+
+            Schedule.RosterFootprint footprint = schedule.getRosterFootprint();
+            System.out.printf("%-9s %,15d %,15d %,15d %,12d %,15d%n", footprint.store(), measured, footprint.bytes(),
+                    footprint.objectModelBytes(), footprint.bytes() / actorCount, schedule.getOffHeapAvailabilityBytes());
+            schedule.close();
+        } finally {
+            System.setOut(console);
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    // Heap in use after collecting the garbage
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            memory.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,79 @@
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Seeded generator of synthetic actor rosters for benchmarks and load tests.
+ * The same size and seed always produce the same actors, so measurements taken on a
+ * generated roster can be compared with a recorded baseline.
+ * <p>
+ * Usage: {@code java -cp benchmarks.jar RosterGenerator <actors> [seed] [file]}
+ * writes a valid {@code RehearsalPlannerData.txt} (or the given file).
+ */
+public class RosterGenerator {
+    // Seed used when none is given
+    public static final long DEFAULT_SEED = 42L;
+
+    private static final String[] FIRST_NAMES = {
+            "Anna", "Ben", "Clara", "David", "Elena", "Felix", "Greta", "Hugo", "Ines", "Jonas",
+            "Klara", "Luca", "Maya", "Noah", "Olivia", "Paul", "Rosa", "Samuel", "Tara", "Victor"
+    };
+    private static final String[] LAST_NAMES = {
+            "Adler", "Berger", "Costa", "Dubois", "Eriksen", "Fischer", "Garcia", "Hansen", "Ivanova", "Jansen",
+            "Keller", "Lopez", "Moreau", "Novak", "Olsen", "Peters", "Rossi", "Schmidt", "Torres", "Weber"
+    };
+
+    private RosterGenerator() { }
+
+    /**
+     * Generates a roster with a mix of sparse, average and busy weekly availability
+     * @param count Number of actors
+     * @param seed Random seed
+     * @return Generated actors
+     */
+    public static List<Actor> generate(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Actor> actors = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            String lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            String email = firstName.toLowerCase() + "." + lastName.toLowerCase() + i + "@example.org";
+            String phone = "+1 555 " + (1_000_000 + random.nextInt(9_000_000));
+
+            // About a quarter, half or three quarters of the slots are available
+            long[] availability = new long[SlotMask.wordCount(Actor.SLOTS_PER_WEEK)];
+            int density = random.nextInt(3);
+            for (int w = 0; w < availability.length; w++) {
+                availability[w] = switch (density) {
+                    case 0 -> random.nextLong() & random.nextLong();
+                    case 2 -> random.nextLong() | random.nextLong();
+                    default -> random.nextLong();
+                };
+            }
+            actors.add(new Actor(firstName, lastName, email, phone, SlotMask.of(Actor.SLOTS_PER_WEEK, availability)));
+        }
+        return actors;
+    }
+
+    /**
+     * Generates a roster and writes it as a text data file
+     * @param count Number of actors
+     * @param seed Random seed
+     * @param file File to write
+     */
+    public static void write(int count, long seed, Path file) {
+        new LoadSave().saveToFile(generate(count, seed), file.toString());
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 3) {
+            System.out.println("Usage: java RosterGenerator <actors> [seed] [file]");
+            System.exit(2);
+        }
+        int count = Integer.parseInt(args[0]);
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : DEFAULT_SEED;
+        Path file = Path.of(args.length > 2 ? args[2] : "RehearsalPlannerData.txt");
+        write(count, seed, file);
+    }
+}
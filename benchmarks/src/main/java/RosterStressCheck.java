@@ -0,0 +1,238 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Stress check for concurrent edits of one schedule, e.g. by several coordinators.
+ * Editor threads set and clear the availability of the same actors at the same time, each
+ * owning a share of the weekly slots, while another thread adds, edits and removes actors
+ * (moving actors to other roster positions) and a reader generates schedules and conflict
+ * reports. Afterwards every actor must be available in every slot, the availability index
+ * must agree with the actors, and the roster restored from the journal must match.
+ * <p>
+ * Usage: {@code java -cp benchmarks.jar RosterStressCheck [editors] [actors] [rounds]};
+ * exits with status 1 if an update was lost.
+ */
+public class RosterStressCheck {
+    private static final int DEFAULT_EDITORS = 4;
+    private static final int DEFAULT_ACTORS = 2_000;
+    private static final int DEFAULT_ROUNDS = 20;
+
+    private RosterStressCheck() { }
+
+    public static void main(String[] args) throws Exception {
+        int editors = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_EDITORS;
+        int actorCount = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ACTORS;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_ROUNDS;
+        if (editors < 1 || editors > Actor.SLOTS_PER_WEEK || actorCount < 1 || rounds < 1) {
+            System.out.println("Usage: java RosterStressCheck [editors (1-" + Actor.SLOTS_PER_WEEK + ")] [actors] [rounds]");
+            System.exit(2);
+        }
+
+        PrintStream console = System.out;
+        Path directory = Files.createTempDirectory("rehearsalplanner-stress");
+        List<String> failures = new ArrayList<>();
+        try {
+            // The schedule reports saves and prints schedules; only the results of the check are shown
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            Schedule schedule = new Schedule(new LoadSave(directory));
+            schedule.restore(); // Opens the journal, as when the application starts
+            List<Actor> actors = new ArrayList<>(actorCount);
+            for (int i = 0; i < actorCount; i++) {
+                Actor actor = new Actor("Actor", "No" + i, "actor" + i + "@example.org", "+1 555 0000");
+                schedule.addActor(actor);
+                actors.add(actor);
+            }
+            schedule.saveToFile();
+
+            long start = System.nanoTime();
+            AtomicBoolean editing = new AtomicBoolean(true);
+            AtomicLong edits = new AtomicLong();
+            AtomicLong rosterChanges = new AtomicLong();
+            AtomicLong reads = new AtomicLong();
+            AtomicReference<Throwable> error = new AtomicReference<>();
+            CountDownLatch editorsDone = new CountDownLatch(editors);
+            List<Thread> threads = new ArrayList<>();
+
+            for (int e = 0; e < editors; e++) {
+                int editor = e;
+                threads.add(Thread.ofPlatform().name("editor-" + e).start(() -> {
+                    try {
+                        edit(actors, editor, editors, rounds, edits);
+                    } catch (Throwable t) {
+                        error.compareAndSet(null, t);
+                    } finally {
+                        editorsDone.countDown();
+                    }
+                }));
+            }
+            threads.add(Thread.ofPlatform().name("roster").start(() -> {
+                try {
+                    changeRoster(schedule, actors, editing, rosterChanges);
+                } catch (Throwable t) {
+                    error.compareAndSet(null, t);
+                }
+            }));
+            threads.add(Thread.ofPlatform().name("reader").start(() -> {
+                try {
+                    read(schedule, actorCount, editing, reads);
+                } catch (Throwable t) {
+                    error.compareAndSet(null, t);
+                }
+            }));
+
+            editorsDone.await();
+            editing.set(false);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            if (error.get() != null) {
+                throw new IllegalStateException("Worker failed", error.get());
+            }
+
+            verify(schedule, actors, failures);
+            schedule.saveToFile();
+            schedule.close();
+
+            Schedule restored = new Schedule(new LoadSave(directory));
+            restored.restore();
+            verifyRestored(schedule.getActors(), restored.getActors(), failures);
+            restored.close();
+
+            System.setOut(console);
+            System.out.printf("%d editors, %d actors, %d rounds: %d availability edits, %d roster changes and %d reads in %d ms%n",
+                    editors, actorCount, rounds, edits.get(), rosterChanges.get(), reads.get(), elapsedMillis);
+        } finally {
+            System.setOut(console);
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(file);
+                }
+            }
+        }
+
+        if (failures.isEmpty()) {
+            System.out.println("No lost updates.");
+        } else {
+            failures.stream().limit(20).forEach(System.out::println);
+            System.out.println(failures.size() + " problem(s) found.");
+            System.exit(1);
+        }
+    }
+
+    // Sets and clears the slots owned by one editor on all actors, ending with all of them set
+    private static void edit(List<Actor> actors, int editor, int editors, int rounds, AtomicLong edits) {
+        SplittableRandom random = new SplittableRandom(editor);
+        List<Integer> ownSlots = new ArrayList<>();
+        for (int slot = editor; slot < Actor.SLOTS_PER_WEEK; slot += editors) {
+            ownSlots.add(slot);
+        }
+        long count = 0;
+        for (int round = 0; round < rounds; round++) {
+            boolean available = round % 2 == 1 || round == rounds - 1;
+            int offset = random.nextInt(actors.size());
+            for (int i = 0; i < actors.size(); i++) {
+                Actor actor = actors.get((offset + i) % actors.size());
+                for (int slot : ownSlots) {
+                    actor.setAvailability(slot / Actor.SLOTS_PER_DAY, new int[] {slot % Actor.SLOTS_PER_DAY + 1}, available);
+                    count++;
+                }
+            }
+        }
+        edits.addAndGet(count);
+    }
+
+    // Adds, moves, edits and removes actors, so roster actors keep changing positions
+    private static void changeRoster(Schedule schedule, List<Actor> actors, AtomicBoolean editing, AtomicLong rosterChanges) {
+        SplittableRandom random = new SplittableRandom(-1);
+        long count = 0;
+        while (editing.get()) {
+            Actor extra = new Actor("Extra", "Actor", "extra@example.org", "+1 555 0001", SlotMask.of(Actor.SLOTS_PER_WEEK, random.nextLong()));
+            schedule.addActor(extra);
+            extra.setAvailability(random.nextInt(Actor.DAYS.length), new int[] {1, 2}, true);
+
+            // Removing an actor moves the last actor into its position; adding it again puts it at the end
+            Actor moved = actors.get(random.nextInt(actors.size()));
+            schedule.removeActor(moved);
+            schedule.addActor(moved);
+
+            Actor actor = actors.get(random.nextInt(actors.size()));
+            schedule.updateActorDetails(actor, actor.getFirstName(), actor.getLastName(), actor.getEmail(),
+                    "+1 555 " + random.nextInt(10_000));
+
+            schedule.removeActor(extra);
+            count += 5;
+            if (count % 5_000 == 0) {
+                schedule.saveToFile();
+            }
+        }
+        rosterChanges.addAndGet(count);
+    }
+
+    // Generates schedules and reports from roster views while the roster is edited
+    private static void read(Schedule schedule, int actorCount, AtomicBoolean editing, AtomicLong reads) {
+        long count = 0;
+        while (editing.get()) {
+            // One extra actor at most, so a view can never list more actors than that
+            for (int slot = 0; slot < Actor.SLOTS_PER_WEEK; slot++) {
+                List<Actor> available = schedule.findAvailableActors(slot / Actor.SLOTS_PER_DAY, slot % Actor.SLOTS_PER_DAY);
+                if (available.size() > actorCount + 1 || available.contains(null)) {
+                    throw new IllegalStateException("Inconsistent roster view: " + available.size() + " actors available in slot " + slot);
+                }
+            }
+            schedule.generateSchedule();
+            schedule.detectConflicts(List.of());
+            count++;
+        }
+        reads.addAndGet(count);
+    }
+
+    // Checks that every actor ended up available everywhere and that the index agrees
+    private static void verify(Schedule schedule, List<Actor> actors, List<String> failures) {
+        List<Actor> roster = schedule.getActors();
+        if (roster.size() != actors.size()) {
+            failures.add("Roster has " + roster.size() + " actors, expected " + actors.size());
+        }
+        for (Actor actor : actors) {
+            SlotMask lost = TimeGrid.configured().fullWeek().andNot(actor.getAvailability());
+            if (!lost.isEmpty()) {
+                failures.add("Actor " + actor.getId() + " lost " + lost.cardinality() + " slot update(s)");
+            }
+        }
+        for (int slot = 0; slot < Actor.SLOTS_PER_WEEK; slot++) {
+            int available = schedule.findAvailableActors(slot / Actor.SLOTS_PER_DAY, slot % Actor.SLOTS_PER_DAY).size();
+            if (available != roster.size()) {
+                failures.add("Index lists " + available + " actors in slot " + slot + ", expected " + roster.size());
+            }
+        }
+    }
+
+    // Checks that the roster restored from the snapshot and journal matches the roster in memory
+    private static void verifyRestored(List<Actor> roster, List<Actor> restored, List<String> failures) {
+        if (restored.size() != roster.size()) {
+            failures.add("Restored roster has " + restored.size() + " actors, expected " + roster.size());
+            return;
+        }
+        for (int i = 0; i < roster.size(); i++) {
+            Actor expected = roster.get(i);
+            Actor actual = restored.get(i);
+            if (actual.getId() != expected.getId() || !actual.getAvailability().equals(expected.getAvailability())
+                    || !actual.getPhone().equals(expected.getPhone())) {
+                failures.add("Restored position " + i + " holds actor " + actual.getId() + " (" + actual.getPhone()
+                        + "), expected actor " + expected.getId() + " (" + expected.getPhone() + ")");
+            }
+        }
+    }
+}
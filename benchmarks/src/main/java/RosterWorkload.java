@@ -0,0 +1,149 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import rehearsalplanner.bench.Workload;
+
+/**
+ * Runs the benchmarked operations against a generated roster kept in a temporary directory.
+ * Console output of the application is discarded while the workload is set up.
+ */
+public class RosterWorkload implements Workload {
+    private PrintStream console;
+    private Path directory;
+    private Path dataFile;
+    private LoadSave loadSave;
+    private Schedule schedule;
+    private List<Actor> actors;
+    private List<Actor> group;
+    private Set<Actor> groupMembers;
+
+    @Override
+    public void setUp(int actorCount, long seed) throws IOException {
+        // Discard output before creating the schedule, whose renderer writes to System.out
+        console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        directory = Files.createTempDirectory("rehearsalplanner-bench");
+        dataFile = directory.resolve("RehearsalPlannerData.txt");
+        RosterGenerator.write(actorCount, seed, dataFile);
+
+        loadSave = new LoadSave(directory);
+        schedule = new Schedule(loadSave);
+        schedule.loadFromFile();
+        actors = schedule.getActors();
+        if (actors.size() != actorCount) {
+            throw new IOException("Generated roster has " + actors.size() + " actors, expected " + actorCount);
+        }
+        group = new ArrayList<>();
+        for (int i = 0; i < actors.size(); i += 100) {
+            group.add(actors.get(i));
+        }
+        groupMembers = new HashSet<>(group);
+    }
+
+    @Override
+    public void generateSchedule(boolean cached) {
+        if (!cached) {
+            // Any availability change invalidates the cached schedule
+            Actor actor = actors.get(0);
+            actor.setAvailability(0, new int[] {1}, !actor.isAvailable(0, 0));
+        }
+        schedule.generateSchedule();
+    }
+
+    @Override
+    public long listAvailableActors() {
+        long count = 0;
+        for (int day = 0; day < Actor.DAYS.length; day++) {
+            for (int slot = 0; slot < Actor.SLOTS_PER_DAY; slot++) {
+                count += schedule.findAvailableActors(day, slot).size();
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public long countAvailableActors() {
+        long count = 0;
+        for (int day = 0; day < Actor.DAYS.length; day++) {
+            for (int slot = 0; slot < Actor.SLOTS_PER_DAY; slot++) {
+                count += schedule.countAvailableActors(day, slot);
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public long listGroupAvailable() {
+        long count = 0;
+        for (int day = 0; day < Actor.DAYS.length; day++) {
+            for (int slot = 0; slot < Actor.SLOTS_PER_DAY; slot++) {
+                for (Actor actor : schedule.findAvailableActors(day, slot)) {
+                    if (groupMembers.contains(actor)) {
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public long countGroupAvailable() {
+        long count = 0;
+        for (int slotCount : schedule.countAvailableActors(group)) {
+            count += slotCount;
+        }
+        return count;
+    }
+
+    @Override
+    public int loadFromFile() {
+        try {
+            return loadSave.loadFromFile(dataFile.toString()).size();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void saveToFile() {
+        loadSave.saveToFile(actors, directory.resolve("RehearsalPlannerExport.txt").toString());
+    }
+
+    @Override
+    public long renderActors() {
+        long length = 0;
+        for (Actor actor : actors) {
+            length += actor.toString().length();
+        }
+        return length;
+    }
+
+    @Override
+    public void checkpoint() {
+        // Drops the journal records of the availability changes made to invalidate the cache
+        schedule.saveSnapshot();
+    }
+
+    @Override
+    public void tearDown() throws IOException {
+        schedule.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+        System.setOut(console);
+    }
+}
@@ -0,0 +1,143 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Load test of the HTTP service mode. Generates a roster, serves it from a {@link ScheduleServer}
+ * on a free local port and sends requests from many concurrent clients, each on its own virtual
+ * thread: mostly actor lookups, plus availability edits, name searches and schedule requests.
+ * Reports throughput and the latency percentiles seen by the clients and by the server.
+ * <p>
+ * Usage: {@code java -cp benchmarks.jar ServerLoadTest [clients] [requests] [actors]};
+ * exits with status 1 if any request failed.
+ */
+public class ServerLoadTest {
+    private static final int DEFAULT_CLIENTS = 1_000;
+    private static final int DEFAULT_REQUESTS = 100_000;
+    private static final int DEFAULT_ACTORS = 1_000;
+
+    private static final String[] NAME_PREFIXES = {"an", "be", "cl", "ma", "ro", "sch", "web"};
+
+    private ServerLoadTest() { }
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_CLIENTS;
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_REQUESTS;
+        int actorCount = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_ACTORS;
+        if (clients < 1 || requests < 1 || actorCount < 1) {
+            System.out.println("Usage: java ServerLoadTest [clients] [requests] [actors]");
+            System.exit(2);
+        }
+
+        PrintStream console = System.out;
+        Path directory = Files.createTempDirectory("rehearsalplanner-load");
+        try {
+            // The schedule reports loads and saves; only the results of the test are shown
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            RosterGenerator.write(actorCount, RosterGenerator.DEFAULT_SEED, directory.resolve("RehearsalPlannerData.txt"));
+            Schedule schedule = new Schedule(new LoadSave(directory));
+            schedule.restore();
+            schedule.loadFromFile();
+            int[] ids = schedule.getActors().stream().mapToInt(Actor::getId).toArray();
+
+            ScheduleServer server = new ScheduleServer(schedule, 0);
+            server.start();
+            String base = "http://localhost:" + server.getPort();
+
+            LatencyHistogram latencies = new LatencyHistogram();
+            AtomicLong next = new AtomicLong();
+            AtomicLong failures = new AtomicLong();
+            List<String> failureSamples = new ArrayList<>();
+            long start;
+            long elapsedMillis;
+            try (HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+                         .connectTimeout(Duration.ofSeconds(30)).build();
+                 ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+                start = System.nanoTime();
+                for (int c = 0; c < clients; c++) {
+                    SplittableRandom random = new SplittableRandom(c);
+                    threads.submit(() -> {
+                        while (next.getAndIncrement() < requests) {
+                            HttpRequest request = nextRequest(base, ids, random);
+                            long sent = System.nanoTime();
+                            String failure;
+                            try {
+                                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                                failure = response.statusCode() < 400 ? null : response.statusCode() + " " + response.body();
+                            } catch (IOException e) {
+                                failure = e.toString();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                return;
+                            }
+                            latencies.record(System.nanoTime() - sent);
+                            if (failure != null && failures.incrementAndGet() <= 5) {
+                                synchronized (failureSamples) {
+                                    failureSamples.add(request.method() + " " + request.uri() + ": " + failure);
+                                }
+                            }
+                        }
+                    });
+                }
+                threads.shutdown();
+                threads.awaitTermination(1, TimeUnit.HOURS);
+                elapsedMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+            }
+            server.stop();
+            schedule.close();
+
+            System.setOut(console);
+            System.out.printf("%d requests from %d concurrent clients against %d actors in %d ms: %.0f requests/s, %d failed%n",
+                    latencies.count(), clients, actorCount, elapsedMillis, latencies.count() * 1000.0 / elapsedMillis, failures.get());
+            System.out.println("Client latency: " + latencies.summary());
+            System.out.println("Server latency: " + server.getLatencies().summary());
+            failureSamples.forEach(System.out::println);
+            if (failures.get() > 0) {
+                System.exit(1);
+            }
+        } finally {
+            System.setOut(console);
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    // 70% actor lookups, 15% availability edits, 10% name searches and 5% schedules, which list every available actor
+    private static HttpRequest nextRequest(String base, int[] ids, SplittableRandom random) {
+        int kind = random.nextInt(100);
+        int id = ids[random.nextInt(ids.length)];
+        if (kind < 70) {
+            return HttpRequest.newBuilder(URI.create(base + "/actors/" + id)).GET().build();
+        }
+        if (kind < 85) {
+            String body = "{\"day\":\"" + Actor.DAYS[random.nextInt(Actor.DAYS.length)] + "\",\"slots\":["
+                    + (random.nextInt(Actor.SLOTS_PER_DAY) + 1) + "],\"available\":" + random.nextBoolean() + "}";
+            return HttpRequest.newBuilder(URI.create(base + "/actors/" + id + "/availability"))
+                    .PUT(HttpRequest.BodyPublishers.ofString(body)).build();
+        }
+        if (kind < 95) {
+            String prefix = NAME_PREFIXES[random.nextInt(NAME_PREFIXES.length)];
+            return HttpRequest.newBuilder(URI.create(base + "/actors?name=" + prefix)).GET().build();
+        }
+        return HttpRequest.newBuilder(URI.create(base + "/schedule")).GET().build();
+    }
+}
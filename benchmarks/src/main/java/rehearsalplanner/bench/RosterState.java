@@ -0,0 +1,40 @@
+package rehearsalplanner.bench;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Generated roster shared by the benchmarks of one trial.
+ */
+@State(Scope.Benchmark)
+public class RosterState {
+    @Param({"100", "10000", "100000", "1000000"})
+    public int actors;
+
+    @Param({"42"})
+    public long seed;
+
+    Workload workload;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workload = Workload.create();
+        workload.setUp(actors, seed);
+    }
+
+    @TearDown(Level.Iteration)
+    public void checkpoint() {
+        workload.checkpoint();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        workload.tearDown();
+    }
+}
@@ -0,0 +1,31 @@
+package rehearsalplanner.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Weekly schedule generation, including rendering, with and without the result cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class ScheduleBenchmark {
+    @Benchmark
+    public void generateSchedule(RosterState roster) {
+        roster.workload.generateSchedule(false);
+    }
+
+    @Benchmark
+    public void generateScheduleCached(RosterState roster) {
+        roster.workload.generateSchedule(true);
+    }
+}
@@ -0,0 +1,55 @@
+package rehearsalplanner.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Counting the available actors of every weekly slot, and the available members of a group,
+ * by listing them with findAvailableActors against the scalar and the Vector API bit counting
+ * kernels. Every benchmark forks with the Vector API module, so they differ only in the kernels used.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g", "--add-modules", "jdk.incubator.vector"})
+public class SlotCountBenchmark {
+    @Benchmark
+    public long findAvailableActors(RosterState roster) {
+        return roster.workload.listAvailableActors();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g", "--add-modules", "jdk.incubator.vector", "-Drehearsalplanner.vector=off"})
+    public long countScalar(RosterState roster) {
+        return roster.workload.countAvailableActors();
+    }
+
+    @Benchmark
+    public long countVector(RosterState roster) {
+        return roster.workload.countAvailableActors();
+    }
+
+    @Benchmark
+    public long groupFindAvailableActors(RosterState roster) {
+        return roster.workload.listGroupAvailable();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g", "--add-modules", "jdk.incubator.vector", "-Drehearsalplanner.vector=off"})
+    public long groupCountScalar(RosterState roster) {
+        return roster.workload.countGroupAvailable();
+    }
+
+    @Benchmark
+    public long groupCountVector(RosterState roster) {
+        return roster.workload.countGroupAvailable();
+    }
+}
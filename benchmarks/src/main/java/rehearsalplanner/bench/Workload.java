@@ -0,0 +1,89 @@
+package rehearsalplanner.bench;
+
+import java.io.IOException;
+
+/**
+ * Application operations measured by the benchmarks.
+ * JMH only accepts benchmarks in a named package, and code in a named package cannot refer
+ * to the application classes in the unnamed package, so the benchmarks reach them through
+ * this interface, implemented by {@code RosterWorkload} in the unnamed package.
+ */
+public interface Workload {
+    /**
+     * @return New workload backed by the application classes
+     */
+    static Workload create() {
+        try {
+            return (Workload) Class.forName("RosterWorkload").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("RosterWorkload is not on the class path", e);
+        }
+    }
+
+    /**
+     * Generates a seeded roster, writes it as a text data file and loads it into a schedule
+     * @param actors Number of actors
+     * @param seed Random seed of the roster generator
+     */
+    void setUp(int actors, long seed) throws IOException;
+
+    /**
+     * Runs Schedule.generateSchedule, rendering into a discarded console
+     * @param cached false to change an actor's availability first so the schedule is generated again
+     */
+    void generateSchedule(boolean cached);
+
+    /**
+     * Counts the actors available in every weekly slot by listing them with Schedule.findAvailableActors
+     * @return Sum of the counts
+     */
+    long listAvailableActors();
+
+    /**
+     * Counts the actors available in every weekly slot with Schedule.countAvailableActors,
+     * using the bit counting kernels of the session
+     * @return Sum of the counts
+     */
+    long countAvailableActors();
+
+    /**
+     * Counts the members of a group (every hundredth actor) available in every weekly slot by
+     * listing the slot's actors with Schedule.findAvailableActors and looking each one up in the group
+     * @return Sum of the counts
+     */
+    long listGroupAvailable();
+
+    /**
+     * Counts the members of the same group available in every weekly slot with the intersection
+     * kernel of Schedule.countAvailableActors(List)
+     * @return Sum of the counts
+     */
+    long countGroupAvailable();
+
+    /**
+     * Runs LoadSave.loadFromFile on the generated text data file
+     * @return Number of loaded actors
+     */
+    int loadFromFile();
+
+    /**
+     * Runs LoadSave.saveToFile for the whole roster
+     */
+    void saveToFile();
+
+    /**
+     * Runs Actor.toString for every actor
+     * @return Total length of the strings
+     */
+    long renderActors();
+
+    /**
+     * Saves a snapshot so changes made by the benchmarks do not pile up in the journal
+     */
+    void checkpoint();
+
+    /**
+     * Closes the schedule and deletes the generated files
+     */
+    void tearDown() throws IOException;
+}
@@ -1,19 +1,76 @@
-import java.util.HashMap;
-import java.util.Map;
-import java.util.TreeMap;
+import java.time.LocalDate;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
 /**
  * Represents an actor in the rehearsal planning system.
  * Extends Person class with additional functionality for managing rehearsal availability.
- * Each actor has a weekly schedule divided into four daily time slots (9-12, 12-15, 15-18, 18-21).
+ * Each actor has a weekly schedule divided into the daily time slots of the configured {@link TimeGrid}
+ * (by default four slots: 9-12, 12-15, 15-18, 18-21). The weekly schedule recurs on every date of a
+ * season except on the dates of the actor's {@link AvailabilityExceptions}.
+ * <p>
+ * On a columnar roster the actor's details and availability live in a {@link ColumnarRoster} row
+ * instead of the actor's own fields, and the actor is a lightweight view of that row.
+ * <p>
+ * An actor of a lazily loaded snapshot reads its weekly availability from its snapshot record
+ * on first access (see {@link LazyRoster}) until the availability is edited.
  */
 public class Actor extends Person {
-    // Maps each day to an array of four timer slots representing availability
-    private Map<String, boolean[]> availability;
+    // Days of the week in schedule order, addressed by index (0 = Monday)
+    public static final String[] DAYS = {"Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday"};
+    // Slots of the configured time grid
+    public static final int SLOTS_PER_DAY = TimeGrid.configured().slotsPerDay();
+    public static final int SLOTS_PER_WEEK = DAYS.length * SLOTS_PER_DAY;
+
+    // Grids with more slots per day are shown as time ranges instead of slot by slot
+    private static final int MAX_SLOTS_SHOWN = 8;
+
+    // Weekly availability: slot (day * SLOTS_PER_DAY + slot) is set when the actor is available.
+    // Immutable masks, so it is read without locking; replaced only while holding this actor's monitor,
+    // so concurrent edits are not lost. null while it is still read from the lazily loaded snapshot
+    private volatile SlotMask availability = TimeGrid.configured().emptyWeek();
+
+    // Snapshot the availability is read from while the field is null, and the actor's record in it
+    private final LazyRoster lazySource;
+    private final int lazyRecord;
+
+    // Dates on which the weekly availability does not apply; replaced like the availability
+    private volatile AvailabilityExceptions exceptions = AvailabilityExceptions.NONE;
 
     private static final AtomicInteger actorId = new AtomicInteger(1);
     private final int id;
 
+    // Notified whenever the availability changes, e.g. by the roster holding this actor
+    private volatile AvailabilityListener availabilityListener;
+
+    // Columnar roster holding the actor's details and availability while the actor is on one, otherwise null
+    private volatile ColumnarRoster store;
+
+    // Row of the actor in the store, only changed by the store under its lock
+    private int storeRow = -1;
+
+    /**
+     * Callback for availability changes, used by the roster to keep its indexes up to date.
+     */
+    public interface AvailabilityListener {
+        /**
+         * Called while holding the actor's monitor, so the changes of one actor arrive in order.
+         *
+         * @param actor Actor whose availability changed
+         * @param oldAvailability Weekly availability before the change
+         * @param newAvailability Weekly availability after the change
+         */
+        void availabilityChanged(Actor actor, SlotMask oldAvailability, SlotMask newAvailability);
+
+        /**
+         * Called while holding the actor's monitor when the date exceptions of the actor changed.
+         *
+         * @param actor Actor whose exceptions changed
+         * @param exceptions Date exceptions after the change
+         */
+        void exceptionsChanged(Actor actor, AvailabilityExceptions exceptions);
+    }
+
     // ANSI color codes for console output formatting
     private static final String ANSI_GREEN = "\u001B[32m"; // Used for available slots
     private static final String ANSI_RED = "\u001B[31m"; // Used for unavailable slots
@@ -31,8 +88,8 @@ public class Actor extends Person {
     public Actor(String firstName, String lastName, String email, String phone) {
         super(firstName, lastName, email, phone);
         this.id = actorId.getAndIncrement();
-        availability = new HashMap<>();
-        initAvailability();
+        this.lazySource = null;
+        this.lazyRecord = -1;
     }
 
 
@@ -43,111 +100,546 @@ public class Actor extends Person {
      * @param lastName Actor's last name
      * @param email Contact email address
      * @param phone Contact phone number
-     * @param availability Predefined availability schedule, if null creates empty schedule
+     * @param availability Predefined weekly availability (see {@link #getAvailability()})
      */
-    public Actor(String firstName, String lastName, String email, String phone, Map<String, boolean[]> availability) {
+    public Actor(String firstName, String lastName, String email, String phone, SlotMask availability) {
         super(firstName, lastName, email, phone);
         this.id = actorId.getAndIncrement();
-        this.availability = new HashMap<>();
-        if (availability != null) {
-            this.availability.putAll(availability);
-        } else {
-            initAvailability();
+        this.availability = checkWeek(availability);
+        this.lazySource = null;
+        this.lazyRecord = -1;
+    }
+
+    /**
+     * Creates an actor with a saved id and availability, e.g. when loading a roster.
+     * Ids handed out to new actors afterwards are higher than any saved id loaded so far.
+     *
+     * @param id Saved actor id (positive)
+     * @param firstName Actor's first name
+     * @param lastName Actor's last name
+     * @param email Contact email address
+     * @param phone Contact phone number
+     * @param availability Weekly availability (see {@link #getAvailability()})
+     */
+    public Actor(int id, String firstName, String lastName, String email, String phone, SlotMask availability) {
+        super(firstName, lastName, email, phone);
+        if (id <= 0) {
+            throw new IllegalArgumentException("Actor id must be positive: " + id);
         }
+        this.id = id;
+        actorId.accumulateAndGet(id + 1, Math::max);
+        this.availability = checkWeek(availability);
+        this.lazySource = null;
+        this.lazyRecord = -1;
     }
 
     /**
-     * @return Current availability schedule for all days
+     * Creates an actor of a lazily loaded snapshot, whose availability is read from its record on first access.
+     * Ids handed out to new actors afterwards are higher than any saved id loaded so far.
+     *
+     * @param id Saved actor id (positive)
+     * @param firstName Actor's first name
+     * @param lastName Actor's last name
+     * @param email Contact email address
+     * @param phone Contact phone number
+     * @param lazySource Snapshot holding the actor's availability
+     * @param lazyRecord Record of the actor in the snapshot
      */
-    public Map<String, boolean[]> getAvailability() {
-        return availability;
+    Actor(int id, String firstName, String lastName, String email, String phone, LazyRoster lazySource, int lazyRecord) {
+        super(firstName, lastName, email, phone);
+        if (id <= 0) {
+            throw new IllegalArgumentException("Actor id must be positive: " + id);
+        }
+        this.id = id;
+        actorId.accumulateAndGet(id + 1, Math::max);
+        this.availability = null;
+        this.lazySource = lazySource;
+        this.lazyRecord = lazyRecord;
     }
 
     /**
-     * Initializes an empty availability schedule for all weekdays.
-     * Creates four time slots per day, all set to unavailable by default.
+     * @return Current availability schedule for all days,
+     *         slot (day * SLOTS_PER_DAY + slot) is set when the actor is available
      */
-    private void initAvailability() {
-        String[] days = {"Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday"};
-        for (String day : days) {
-            availability.put(day, new boolean[4]); // For this demo, each day has 4 time slots
+    public SlotMask getAvailability() {
+        while (true) {
+            ColumnarRoster store = this.store;
+            if (store == null) {
+                SlotMask availability = ownAvailability(false);
+                if (this.store == null) {
+                    return availability; // Still not in a store, so the field was current
+                }
+            } else {
+                SlotMask availability = store.availability(this);
+                if (availability != null) {
+                    return availability;
+                }
+            }
         }
     }
 
+    /**
+     * Returns the current availability like {@link #getAvailability()}, but without keeping it in
+     * memory if it is read from a lazily loaded snapshot, e.g. when the whole roster is indexed or saved.
+     *
+     * @return Current availability schedule for all days
+     */
+    SlotMask peekAvailability() {
+        return store == null && availability == null ? lazySource.peek(lazyRecord) : getAvailability();
+    }
+
+    /**
+     * @return Lazily loaded snapshot the actor was read from, or null if it was loaded in full or created in this session
+     */
+    LazyRoster lazySource() { return lazySource; }
+
+    /**
+     * @param source Lazily loaded snapshot
+     * @return Record of the actor in the snapshot if its availability is still the one in its record, otherwise -1
+     */
+    int lazyRecord(LazyRoster source) {
+        return store == null && availability == null && lazySource == source ? lazyRecord : -1;
+    }
+
+    /**
+     * Checks availability for a single time slot.
+     *
+     * @param day Day index (0 = Monday, 6 = Sunday)
+     * @param slot Time slot index (0 to SLOTS_PER_DAY - 1)
+     * @return true if the actor is available in that slot
+     */
+    public boolean isAvailable(int day, int slot) {
+        return getAvailability().get(slotIndex(day, slot));
+    }
+
     /**
      * Sets availability for specific time slots on a given day.
      *
      * @param day Day of the week
-     * @param slots Array of time slot numbers (1-4)
+     * @param slots Array of time slot numbers (1 to SLOTS_PER_DAY)
      * @param isAvailable true if an actor is available, false otherwise
      */
     public void setAvailability(String day, int[] slots, boolean isAvailable) {
-        if (availability.containsKey(day)) {
-            for (int slot : slots) {
-                if (slot >= 1 && slot <= 4) { // Ensure that slots are within range
-                    availability.get(day)[slot - 1] = isAvailable;
+        int dayIndex = dayIndex(day);
+        if (dayIndex >= 0) {
+            setAvailability(dayIndex, slots, isAvailable);
+        }
+    }
+
+    /**
+     * Sets availability for specific time slots on a given day.
+     * Other slots are kept even if another thread edits them at the same time.
+     *
+     * @param day Day index (0 = Monday, 6 = Sunday)
+     * @param slots Array of time slot numbers (1 to SLOTS_PER_DAY)
+     * @param isAvailable true if an actor is available, false otherwise
+     */
+    public synchronized void setAvailability(int day, int[] slots, boolean isAvailable) {
+        if (day < 0 || day >= DAYS.length) {
+            return;
+        }
+        long[] words = new long[SlotMask.wordCount(SLOTS_PER_WEEK)];
+        for (int slot : slots) {
+            if (slot >= 1 && slot <= SLOTS_PER_DAY) { // Ensure that slots are within range
+                int index = slotIndex(day, slot - 1);
+                words[index >>> 6] |= 1L << index;
+            }
+        }
+        SlotMask bits = SlotMask.wrap(SLOTS_PER_WEEK, words);
+        SlotMask availability = getAvailability();
+        setAvailability(isAvailable ? availability.or(bits) : availability.andNot(bits));
+    }
+
+    /**
+     * Replaces the whole weekly availability.
+     *
+     * @param availability New weekly availability (see {@link #getAvailability()})
+     */
+    public synchronized void setAvailability(SlotMask availability) {
+        SlotMask oldAvailability = getAvailability();
+        storeAvailability(checkWeek(availability));
+        if (!availability.equals(oldAvailability) && availabilityListener != null) {
+            availabilityListener.availabilityChanged(this, oldAvailability, availability);
+        }
+    }
+
+    /**
+     * @return Dates on which the weekly availability does not apply
+     */
+    public AvailabilityExceptions getExceptions() {
+        while (true) {
+            ColumnarRoster store = this.store;
+            if (store == null) {
+                AvailabilityExceptions exceptions = this.exceptions;
+                if (this.store == null) {
+                    return exceptions;
+                }
+            } else {
+                AvailabilityExceptions exceptions = store.exceptions(this);
+                if (exceptions != null) {
+                    return exceptions;
                 }
             }
         }
     }
 
+    /**
+     * Replaces all date exceptions, e.g. when loading a roster.
+     *
+     * @param exceptions New date exceptions
+     */
+    public synchronized void setExceptions(AvailabilityExceptions exceptions) {
+        AvailabilityExceptions oldExceptions = getExceptions();
+        storeExceptions(exceptions);
+        if (!exceptions.equals(oldExceptions) && availabilityListener != null) {
+            availabilityListener.exceptionsChanged(this, exceptions);
+        }
+    }
+
+    /**
+     * Sets the availability on a range of dates, replacing the weekly availability on those dates.
+     *
+     * @param from First date
+     * @param to Last date
+     * @param slots Array of time slot numbers (1 to SLOTS_PER_DAY) the actor is available in; all other slots are unavailable
+     */
+    public synchronized void setDateAvailability(LocalDate from, LocalDate to, int[] slots) {
+        long[] words = new long[SlotMask.wordCount(SLOTS_PER_DAY)];
+        for (int slot : slots) {
+            if (slot >= 1 && slot <= SLOTS_PER_DAY) { // Ensure that slots are within range
+                words[(slot - 1) >>> 6] |= 1L << (slot - 1);
+            }
+        }
+        setExceptions(getExceptions().with(from, to, SlotMask.wrap(SLOTS_PER_DAY, words)));
+    }
+
+    /**
+     * Removes the exceptions on a range of dates, so the weekly availability applies to them again.
+     *
+     * @param from First date
+     * @param to Last date
+     */
+    public synchronized void clearDateAvailability(LocalDate from, LocalDate to) {
+        setExceptions(getExceptions().with(from, to, null));
+    }
+
+    /**
+     * Resolves the availability on a date from its exception, or from the weekly availability of its weekday.
+     *
+     * @param date Date to look up
+     * @return Availability on that date, one slot per time slot of the day
+     */
+    public SlotMask getAvailability(LocalDate date) {
+        SlotMask exception = getExceptions().availability(date);
+        if (exception != null) {
+            return exception;
+        }
+        int dayStart = slotIndex(dayIndex(date), 0);
+        return getAvailability().slice(dayStart, dayStart + SLOTS_PER_DAY);
+    }
+
+    /**
+     * Checks availability for a single time slot on a date.
+     *
+     * @param date Date to check
+     * @param slot Time slot index (0 to SLOTS_PER_DAY - 1)
+     * @return true if the actor is available in that slot on that date
+     */
+    public boolean isAvailable(LocalDate date, int slot) {
+        SlotMask exception = getExceptions().availability(date);
+        return exception != null ? exception.get(slot) : isAvailable(dayIndex(date), slot);
+    }
+
+    /**
+     * Registers the listener notified on availability changes, replacing any previous one.
+     *
+     * @param availabilityListener Listener to notify, or null to stop notifications
+     */
+    public void setAvailabilityListener(AvailabilityListener availabilityListener) {
+        this.availabilityListener = availabilityListener;
+    }
+
+    /**
+     * Returns the weekly index of a time slot in availability masks.
+     *
+     * @param day Day index (0 = Monday, 6 = Sunday)
+     * @param slot Time slot index (0 to SLOTS_PER_DAY - 1)
+     * @return Weekly slot index (day * SLOTS_PER_DAY + slot)
+     */
+    public static int slotIndex(int day, int slot) {
+        return day * SLOTS_PER_DAY + slot;
+    }
+
+    /**
+     * Looks up the index of a day name.
+     *
+     * @param day Day of the week (e.g. "Monday")
+     * @return Day index (0 = Monday, 6 = Sunday) or -1 if the name is not a weekday
+     */
+    public static int dayIndex(String day) {
+        if (day == null) {
+            return -1;
+        }
+        return switch (day) {
+            case "Monday" -> 0;
+            case "Tuesday" -> 1;
+            case "Wednesday" -> 2;
+            case "Thursday" -> 3;
+            case "Friday" -> 4;
+            case "Saturday" -> 5;
+            case "Sunday" -> 6;
+            default -> -1;
+        };
+    }
+
+    /**
+     * @param date Date
+     * @return Day index of its weekday (0 = Monday, 6 = Sunday)
+     */
+    public static int dayIndex(LocalDate date) {
+        return date.getDayOfWeek().getValue() - 1;
+    }
+
+    /**
+     * @param slot Time slot index (0 to SLOTS_PER_DAY - 1)
+     * @return Human-readable time range of the slot (e.g. "9-12")
+     */
+    public static String slotLabel(int slot) {
+        return TimeGrid.configured().slotLabel(slot);
+    }
+
     public int getId() {
         return id;
     }
 
+    @Override
+    public String getFirstName() { return readDetail(super::getFirstName, ColumnarRoster::firstName); }
+
+    @Override
+    public String getLastName() { return readDetail(super::getLastName, ColumnarRoster::lastName); }
+
+    @Override
+    public String getEmail() { return readDetail(super::getEmail, ColumnarRoster::email); }
+
+    @Override
+    public String getPhone() { return readDetail(super::getPhone, ColumnarRoster::phone); }
+
+    @Override
+    protected void setDetails(String firstName, String lastName, String email, String phone) {
+        while (true) {
+            ColumnarRoster store = this.store;
+            if (store == null) {
+                super.setDetails(firstName, lastName, email, phone);
+                if (this.store == null) {
+                    return;
+                }
+                // Moved into a store meanwhile, which may have copied the old details: write them there too
+            } else if (store.setDetails(this, firstName, lastName, email, phone)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return Estimated heap bytes of the actor: the object itself and, unless it is a view of a
+     *         columnar roster row, its strings, availability mask (unless it is still read from a
+     *         lazily loaded snapshot) and date exceptions
+     */
+    public long sizeInBytes() {
+        if (store != null) {
+            return ColumnarRoster.ACTOR_OBJECT_BYTES;
+        }
+        SlotMask availability = this.availability; // Masks still in a lazily loaded snapshot are counted there
+        AvailabilityExceptions exceptions = this.exceptions;
+        return ColumnarRoster.ACTOR_OBJECT_BYTES + (availability == null ? 0 : availability.sizeInBytes())
+                + (exceptions.isEmpty() ? 0 : exceptions.sizeInBytes())
+                + stringBytes(super.getFirstName()) + stringBytes(super.getLastName())
+                + stringBytes(super.getEmail()) + stringBytes(super.getPhone());
+    }
+
+    // Moves the actor into a row of a columnar roster: returns its details and availability for the row
+    // and clears its own fields. Called by the store under its write lock
+    ColumnarRoster.Details moveInto(ColumnarRoster store, int row) {
+        storeRow = row;
+        this.store = store; // Set first, so an edit made meanwhile is either read below or retried on the store
+        ColumnarRoster.Details details = new ColumnarRoster.Details(super.getFirstName(), super.getLastName(),
+                super.getEmail(), super.getPhone(), ownAvailability(true), exceptions);
+        super.setDetails(null, null, null, null);
+        availability = TimeGrid.configured().emptyWeek();
+        exceptions = AvailabilityExceptions.NONE;
+        return details;
+    }
+
+    // Follows the row of the actor after the store moved it. Called by the store under its write lock
+    void moveToRow(int row) {
+        storeRow = row;
+    }
+
+    // Row of the actor in its store, -1 if it was never in one. Read by the store under its lock
+    int storeRow() {
+        return storeRow;
+    }
+
+    // Moves the actor's details and availability back into its own fields when it leaves the store.
+    // Called by the store under its write lock
+    void moveOut(ColumnarRoster.Details details) {
+        super.setDetails(details.firstName(), details.lastName(), details.email(), details.phone());
+        availability = details.availability();
+        exceptions = details.exceptions();
+        storeRow = -1;
+        store = null; // Cleared last, so a reader that finds no store finds the fields filled
+    }
+
     /**
      * Generates a formatted string representation of the actor's information
      * and their weekly availability schedule.
      * Uses color coding for better visibility:
      * - Green: Available
      * - Red: Unavailable
-     * Time slots are shown as: 9-12 | 12-15 | 15-18 | 18-21
+     * Time slots are shown as: 9-12 | 12-15 | 15-18 | 18-21; on grids with many slots per day,
+     * the available time ranges of each day are listed instead. Date exceptions follow the week
      *
      * @return Formatted string with actor's details and availability
      */
     @Override
     // Method to print the actor's availabilities
     public String toString() {
-        StringBuilder availabilityString = new StringBuilder();
-        Map<String, boolean[]> sortedAvailability = new TreeMap<>(this::compareDays);
-        sortedAvailability.putAll(availability);
-
-        for (Map.Entry<String, boolean[]> entry : sortedAvailability.entrySet()) {
-            availabilityString.append(entry.getKey()).append(": ");
-            boolean[] slots = entry.getValue();
-            for (int i = 0; i < slots.length; i++) {
-                if (slots[i]) {
-                    availabilityString.append(ANSI_GREEN).append("Available ").append(ANSI_RESET);
-                } else {
-                    availabilityString.append(ANSI_RED).append("Unavailable ").append(ANSI_RESET);
-                }
-                availabilityString.append(i == 0 ? "9-12" : i == 1 ? "12-15" : i == 2 ? "15-18" : "18-21").append(" | ");
-            }
-            availabilityString.append("\n");
-        }
-        return String.format("[ID: %d] %s%nAvailability: %n%s", id, super.toString(), availabilityString); // Print actor details and availability
+        StringBuilder actorString = new StringBuilder(512);
+        appendTo(actorString, ConsoleRenderer.colorByDefault());
+        return actorString.toString();
     }
 
     /**
-     * Compares two days for sorting purposes.
-     * Used to ensure days are always displayed in the correct order (Monday to Sunday).
+     * Appends the actor's details and weekly availability, as shown by {@link #toString()}.
      *
-     * @param day1 First day name
-     * @param day2 Second day name
-     * @return Negative if day1 comes before day2, positive if after, 0 if equal
+     * @param out Buffer to append to
+     * @param color true to color the slots with ANSI codes
      */
-    private int compareDays(String day1, String day2) {
-        String[] orderedDays = {"Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday"};
-        int index1 = -1;
-        int index2 = -1;
-        for (int i = 0; i < orderedDays.length; i++) {
-            if (orderedDays[i].equals(day1)) {
-                index1 = i;
+    public void appendTo(StringBuilder out, boolean color) {
+        SlotMask availability = getAvailability(); // One consistent week even if it is edited meanwhile
+        out.append("[ID: ").append(id).append("] ").append(super.toString()).append(System.lineSeparator())
+                .append("Availability: ").append(System.lineSeparator());
+        for (int day = 0; day < DAYS.length; day++) {
+            out.append(DAYS[day]).append(": ");
+            if (SLOTS_PER_DAY > MAX_SLOTS_SHOWN) {
+                appendAvailableRanges(out, availability, day, color);
+                continue;
+            }
+            for (int slot = 0; slot < SLOTS_PER_DAY; slot++) {
+                boolean available = availability.get(slotIndex(day, slot));
+                if (color) {
+                    out.append(available ? ANSI_GREEN : ANSI_RED);
+                }
+                out.append(available ? "Available " : "Unavailable ");
+                if (color) {
+                    out.append(ANSI_RESET);
+                }
+                out.append(slotLabel(slot)).append(" | ");
+            }
+            out.append("\n");
+        }
+
+        AvailabilityExceptions exceptions = getExceptions();
+        if (!exceptions.isEmpty()) {
+            out.append("Exceptions: ").append(System.lineSeparator());
+            for (AvailabilityExceptions.Run run : exceptions.runs()) {
+                out.append(run.dates()).append(": ");
+                appendAvailableRanges(out, run.availability(), 0, color);
+            }
+        }
+    }
+
+    // Appends the runs of consecutive available slots of a day as time ranges (e.g. "9-10:30, 14-18")
+    private static void appendAvailableRanges(StringBuilder out, SlotMask availability, int day, boolean color) {
+        int dayStart = slotIndex(day, 0);
+        int dayEnd = dayStart + SLOTS_PER_DAY;
+        int start = availability.nextSetBit(dayStart);
+        if (start < 0 || start >= dayEnd) {
+            out.append(color ? ANSI_RED : "").append("Unavailable").append(color ? ANSI_RESET : "").append("\n");
+            return;
+        }
+        out.append(color ? ANSI_GREEN : "").append("Available ");
+        boolean first = true;
+        while (start >= 0 && start < dayEnd) {
+            int end = start + 1;
+            while (end < dayEnd && availability.get(end)) {
+                end++;
+            }
+            out.append(first ? "" : ", ").append(TimeGrid.configured().rangeLabel(start - dayStart, end - start));
+            first = false;
+            start = availability.nextSetBit(end);
+        }
+        out.append(color ? ANSI_RESET : "").append("\n");
+    }
+
+    // Reads a detail from the store while the actor is on one, otherwise from the actor's own field.
+    // A value read from a field is only current if the actor did not move into a store meanwhile
+    private String readDetail(Supplier<String> field, BiFunction<ColumnarRoster, Actor, String> column) {
+        while (true) {
+            ColumnarRoster store = this.store;
+            if (store == null) {
+                String value = field.get();
+                if (this.store == null) {
+                    return value;
+                }
+            } else {
+                String value = column.apply(store, this);
+                if (value != null || this.store == store) {
+                    return value; // null only if the actor left the store meanwhile or the detail is unset
+                }
+            }
+        }
+    }
+
+    // Weekly availability in the actor's own field, or read from the lazily loaded snapshot while it is not set
+    private SlotMask ownAvailability(boolean peek) {
+        SlotMask availability = this.availability;
+        if (availability != null) {
+            return availability;
+        }
+        return peek ? lazySource.peek(lazyRecord) : lazySource.availability(lazyRecord);
+    }
+
+    // Writes the weekly availability to the store while the actor is on one, otherwise to its own field
+    private void storeAvailability(SlotMask availability) {
+        while (true) {
+            ColumnarRoster store = this.store;
+            if (store == null) {
+                this.availability = availability;
+                if (this.store == null) {
+                    return;
+                }
+                // Moved into a store meanwhile, which may have copied the old availability: write it there too
+            } else if (store.setAvailability(this, availability)) {
+                return;
             }
-            if (orderedDays[i].equals(day2)) {
-                index2 = i;
+        }
+    }
+
+    // Writes the date exceptions like storeAvailability
+    private void storeExceptions(AvailabilityExceptions exceptions) {
+        while (true) {
+            ColumnarRoster store = this.store;
+            if (store == null) {
+                this.exceptions = exceptions;
+                if (this.store == null) {
+                    return;
+                }
+            } else if (store.setExceptions(this, exceptions)) {
+                return;
             }
         }
-        return Integer.compare(index1, index2);
+    }
+
+    private static long stringBytes(String value) {
+        return value == null ? 0 : ColumnarRoster.stringBytes(value.length());
+    }
+
+    // Rejects masks that do not cover the slots of a week on the configured grid
+    private static SlotMask checkWeek(SlotMask availability) {
+        if (availability.size() != SLOTS_PER_WEEK) {
+            throw new IllegalArgumentException("Availability has " + availability.size() + " slots, expected " + SLOTS_PER_WEEK);
+        }
+        return availability;
     }
 }
@@ -0,0 +1,211 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lookup indexes for the actor roster.
+ * Finds actors by id or email with a hash lookup, and by the start of their first name,
+ * last name or full name with a prefix tree, so a search only visits the typed prefix
+ * and the matches it returns instead of the whole roster.
+ */
+public class ActorIndex {
+    // Actor by id
+    private final Map<Integer, Actor> byId = new HashMap<>();
+
+    // Actors by normalized email; emails are not required to be unique
+    private final Map<String, List<Actor>> byEmail = new HashMap<>();
+
+    // Prefix tree over normalized first, last and full names
+    private final TrieNode names = new TrieNode();
+
+    /**
+     * Adds an actor to all indexes
+     * @param actor Actor to add
+     */
+    public void add(Actor actor) {
+        byId.put(actor.getId(), actor);
+        byEmail.computeIfAbsent(normalize(actor.getEmail()), email -> new ArrayList<>(1)).add(actor);
+        for (String key : nameKeys(actor)) {
+            names.insert(key, actor);
+        }
+    }
+
+    /**
+     * Removes an actor from all indexes
+     * @param actor Actor to remove
+     */
+    public void remove(Actor actor) {
+        byId.remove(actor.getId());
+        String email = normalize(actor.getEmail());
+        List<Actor> sameEmail = byEmail.get(email);
+        if (sameEmail != null) {
+            sameEmail.remove(actor);
+            if (sameEmail.isEmpty()) {
+                byEmail.remove(email);
+            }
+        }
+        for (String key : nameKeys(actor)) {
+            names.delete(key, 0, actor);
+        }
+    }
+
+    /**
+     * Removes all actors from the indexes
+     */
+    public void clear() {
+        byId.clear();
+        byEmail.clear();
+        names.clear();
+    }
+
+    /**
+     * @param id Actor id
+     * @return Actor with that id, or null if there is none
+     */
+    public Actor byId(int id) {
+        return byId.get(id);
+    }
+
+    /**
+     * @param email Email address, compared ignoring case and surrounding spaces
+     * @return Actors with that email, empty if there are none
+     */
+    public List<Actor> byEmail(String email) {
+        List<Actor> actors = byEmail.get(normalize(email));
+        return actors == null ? List.of() : List.copyOf(actors);
+    }
+
+    /**
+     * Finds actors whose first name, last name or full name ("First Last") starts with a prefix
+     * @param prefix Start of the name, compared ignoring case
+     * @param limit Maximum number of actors to return
+     * @return Matching actors in alphabetical order of the matched name
+     */
+    public List<Actor> byNamePrefix(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        TrieNode node = names;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        if (node == null) {
+            return List.of();
+        }
+        Set<Actor> matches = new LinkedHashSet<>();
+        node.collect(matches, limit);
+        return new ArrayList<>(matches);
+    }
+
+    // Lowercases and collapses whitespace so lookups ignore case and spacing
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    // Keys an actor can be found by in the name tree
+    private static String[] nameKeys(Actor actor) {
+        String firstName = normalize(actor.getFirstName());
+        String lastName = normalize(actor.getLastName());
+        return new String[] {firstName, lastName, normalize(firstName + " " + lastName)};
+    }
+
+    /**
+     * Node of the name prefix tree. Children are kept in arrays sorted by character,
+     * and the actors whose key ends at a node are kept in an insertion-ordered set.
+     */
+    private static class TrieNode {
+        private static final char[] NO_KEYS = new char[0];
+        private static final TrieNode[] NO_CHILDREN = new TrieNode[0];
+
+        private char[] keys = NO_KEYS;
+        private TrieNode[] children = NO_CHILDREN;
+        private int childCount;
+
+        // Actors whose key ends here, null while there are none
+        private Set<Actor> actors;
+
+        TrieNode child(char c) {
+            int i = Arrays.binarySearch(keys, 0, childCount, c);
+            return i >= 0 ? children[i] : null;
+        }
+
+        void insert(String key, Actor actor) {
+            TrieNode node = this;
+            for (int i = 0; i < key.length(); i++) {
+                node = node.childOrCreate(key.charAt(i));
+            }
+            if (node.actors == null) {
+                node.actors = new LinkedHashSet<>(2);
+            }
+            node.actors.add(actor);
+        }
+
+        // Removes an actor below this node; returns true if this node became empty and can be dropped
+        boolean delete(String key, int depth, Actor actor) {
+            if (depth == key.length()) {
+                if (actors != null) {
+                    actors.remove(actor);
+                    if (actors.isEmpty()) {
+                        actors = null;
+                    }
+                }
+            } else {
+                int i = Arrays.binarySearch(keys, 0, childCount, key.charAt(depth));
+                if (i >= 0 && children[i].delete(key, depth + 1, actor)) {
+                    System.arraycopy(keys, i + 1, keys, i, childCount - i - 1);
+                    System.arraycopy(children, i + 1, children, i, childCount - i - 1);
+                    children[--childCount] = null;
+                }
+            }
+            return actors == null && childCount == 0;
+        }
+
+        // Adds the actors of this subtree in key order until the limit is reached
+        void collect(Set<Actor> matches, int limit) {
+            if (actors != null) {
+                for (Actor actor : actors) {
+                    if (matches.size() >= limit) {
+                        return;
+                    }
+                    matches.add(actor);
+                }
+            }
+            for (int i = 0; i < childCount && matches.size() < limit; i++) {
+                children[i].collect(matches, limit);
+            }
+        }
+
+        void clear() {
+            keys = NO_KEYS;
+            children = NO_CHILDREN;
+            childCount = 0;
+            actors = null;
+        }
+
+        private TrieNode childOrCreate(char c) {
+            int i = Arrays.binarySearch(keys, 0, childCount, c);
+            if (i >= 0) {
+                return children[i];
+            }
+            int insertAt = -i - 1;
+            if (childCount == keys.length) {
+                int capacity = Math.max(2, childCount * 2);
+                keys = Arrays.copyOf(keys, capacity);
+                children = Arrays.copyOf(children, capacity);
+            }
+            System.arraycopy(keys, insertAt, keys, insertAt + 1, childCount - insertAt);
+            System.arraycopy(children, insertAt, children, insertAt + 1, childCount - insertAt);
+            TrieNode child = new TrieNode();
+            keys[insertAt] = c;
+            children[insertAt] = child;
+            childCount++;
+            return child;
+        }
+    }
+}
@@ -1,3 +1,6 @@
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Scanner;
@@ -14,6 +17,15 @@ public class AppNavigation {
     // Input handler for user interactions
     private final Scanner scanner = new Scanner(System.in);
 
+    // Buffered, paged output for the roster and schedules
+    private final ConsoleRenderer renderer = new ConsoleRenderer(scanner);
+
+    // Writes saves requested from the data menu, and autosaves, without blocking the menus
+    private final BackgroundSaver saver;
+
+    // Name matches listed at a time when selecting an actor
+    private static final int MAX_SEARCH_RESULTS = 10;
+
     // List of valid weekdays for input validation
     private final List<String> validDays = Arrays.asList(
             "Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday"
@@ -29,6 +41,12 @@ public class AppNavigation {
         System.out.println("Welcome to the Console Version of the RehearsalPlanner!");
         System.out.println("+++++++++++++++++++++++++++++++++++++++++++++++++++++++");
 
+        // Restore the roster saved by the previous session
+        schedule.setRenderer(renderer);
+        PlannerMetrics.register(schedule);
+        schedule.restore();
+        saver = new BackgroundSaver(schedule);
+
         // Main application loop
         while (true) {
             displayMainMenu();
@@ -44,7 +62,12 @@ public class AppNavigation {
                 case 7: handleDataOperations(); break;
                 case 8:
                     System.out.println("Exiting app...");
+                    saver.close(); // Finishes the requested saves before the journal is closed
+                    schedule.close();
                     scanner.close();
+                    if (Boolean.getBoolean("rehearsalplanner.metricsSummary")) {
+                        System.out.print(PlannerMetrics.summary());
+                    }
                     return;
             }
         }
@@ -60,8 +83,12 @@ public class AppNavigation {
             return;
         }
         for (Actor actor : schedule.getActors()) {
-            System.out.println("\n" + actor);
+            renderer.newLine().actor(actor).newLine();
+            if (!renderer.endEntry()) {
+                break;
+            }
         }
+        renderer.finish();
     }
 
     /**
@@ -85,7 +112,7 @@ public class AppNavigation {
 
     /**
      * Removes an actor from the system.
-     * Displays a numbered list for selection if actors exist.
+     * The actor is selected by id, email or name search.
      */
     private void removeActor() {
         if (schedule.getActors().isEmpty()) {
@@ -93,19 +120,16 @@ public class AppNavigation {
             return;
         }
 
-        // Display actor selection menu
+        // Find the actor by id, email or name
         System.out.println("\nSelect the actor to remove:");
-        for (int i = 0; i < schedule.getActors().size(); i++) {
-            System.out.printf("%d. %s%n", i + 1, schedule.getActors().get(i));
+        Actor actorToRemove = selectActor();
+        if (actorToRemove == null) {
+            return;
         }
 
-        // Get actor selection
-        System.out.print("Enter actor number to remove: ");
-        int index = getValidIntInput(1, schedule.getActors().size()) -1;
-        Actor actorToRemove = schedule.getActors().get(index);
-
         // Confirm deletion
-        System.out.printf("Are you sure you want to remove actor %s? (Y/N): ", actorToRemove);
+        System.out.printf("Are you sure you want to remove actor %s %s (ID: %d)? (Y/N): ",
+                actorToRemove.getFirstName(), actorToRemove.getLastName(), actorToRemove.getId());
         Boolean confirm = getYesNoInput();
         if (confirm == null || !confirm) {
             System.out.println("Deletion cancelled.");
@@ -113,7 +137,8 @@ public class AppNavigation {
         }
 
         schedule.removeActor(actorToRemove);
-        System.out.printf("Actor removed successfully: %s%n", actorToRemove);
+        System.out.printf("Actor removed successfully: %s %s (ID: %d)%n",
+                actorToRemove.getFirstName(), actorToRemove.getLastName(), actorToRemove.getId());
     }
 
     /**
@@ -126,25 +151,25 @@ public class AppNavigation {
             return;
         }
 
-        // Display actor selection menu
+        // Find the actor by id, email or name and process availability
         System.out.println("\nSelect the actor to set their availability:");
-        for (int i = 0; i < schedule.getActors().size(); i++) {
-            System.out.printf("%d. %s%n", i + 1, schedule.getActors().get(i));
+        Actor selectedActor = selectActor();
+        if (selectedActor == null) {
+            return;
         }
 
-        // Get actor selection and process availability
-        System.out.print("Enter actor number: ");
-        int actorIndex = getValidIntInput(1, schedule.getActors().size()) - 1;
-        Actor selectedActor = schedule.getActors().get(actorIndex);
-
         // Loop for entering availability for different days
         while (true) {
-            System.out.print("\nEnter Day (e.g. Monday) or 'done' to finish: ");
+            System.out.print("\nEnter Day (e.g. Monday), a date or date range for an exception (e.g. 2026-12-24 or 2026-12-24..2026-12-26) or 'done' to finish: ");
             String day = scanner.nextLine().trim();
 
             if (day.equalsIgnoreCase("done")) {
                 break;
             }
+            if (!day.isEmpty() && Character.isDigit(day.charAt(0))) {
+                setDateException(selectedActor, day);
+                continue;
+            }
 
             // Normalize day input
             day = normalizeDay(day);
@@ -155,8 +180,8 @@ public class AppNavigation {
 
             // Get and validate time slots
             System.out.println("Available time slots for " + day + ":");
-            System.out.println("'1' for 9-12 | '2' for 12-15 | '3' for 15-18 | '4' for 18-21");
-            System.out.print("Enter slots (comma-separated, e.g. 1,3 or 1,2,4): ");
+            System.out.println(describeSlots());
+            System.out.print("Enter slots (comma-separated, ranges allowed, e.g. 1,3 or 1-2,4): ");
 
             int[] slots = getValidSlots();
             if (slots == null) {
@@ -175,6 +200,105 @@ public class AppNavigation {
         }
     }
 
+    /**
+     * Lets the user pick an actor by id, email or the start of their name.
+     * If several actors match, they are listed by number to choose from.
+     * @return Selected actor or null if the selection was cancelled
+     */
+    private Actor selectActor() {
+        while (true) {
+            System.out.print("Enter actor ID, email or the start of their name (empty to cancel): ");
+            String input = scanner.nextLine().trim();
+            if (input.isEmpty()) {
+                return null;
+            }
+
+            List<Actor> matches;
+            if (input.chars().allMatch(Character::isDigit)) {
+                Actor actor = null;
+                try {
+                    actor = schedule.findActorById(Integer.parseInt(input));
+                } catch (NumberFormatException e) {
+                    // Too large to be an id
+                }
+                matches = actor == null ? List.of() : List.of(actor);
+            } else if (input.contains("@")) {
+                matches = schedule.findActorsByEmail(input);
+            } else {
+                matches = schedule.searchActorsByName(input, MAX_SEARCH_RESULTS + 1);
+            }
+
+            if (matches.isEmpty()) {
+                System.out.println("\nNo actor found for: " + input);
+                continue;
+            }
+            if (matches.size() == 1) {
+                return matches.get(0);
+            }
+
+            // Several matches: list them briefly and let the user choose
+            int shown = Math.min(matches.size(), MAX_SEARCH_RESULTS);
+            System.out.println("\nMatching actors:");
+            for (int i = 0; i < shown; i++) {
+                Actor actor = matches.get(i);
+                System.out.printf("%d. [ID: %d] %s %s, %s%n", i + 1, actor.getId(), actor.getFirstName(), actor.getLastName(), actor.getEmail());
+            }
+            if (matches.size() > shown) {
+                System.out.println("More actors match, type more of the name to narrow the search.");
+            }
+            System.out.print("Enter number to select or 0 to search again: ");
+            int choice = getValidIntInput(0, shown);
+            if (choice > 0) {
+                return matches.get(choice - 1);
+            }
+        }
+    }
+
+    /**
+     * Sets or clears the date exception of an actor on a date or date range
+     * @param actor Actor to edit
+     * @param dates Date or date range as typed by the user
+     */
+    private void setDateException(Actor actor, String dates) {
+        AvailabilityExceptions.DateRange range = getValidDateRange(dates);
+        if (range == null) {
+            return;
+        }
+
+        System.out.println("Available time slots on " + range + ":");
+        System.out.println(describeSlots());
+        System.out.print("Enter the slots available on these dates (e.g. 1,3 or 1-2,4), 'none' if unavailable, or 'weekly' to use the weekly availability again: ");
+        String input = scanner.nextLine().trim();
+        if (input.equalsIgnoreCase("weekly")) {
+            actor.clearDateAvailability(range.from(), range.to());
+            System.out.printf("\nWeekly availability applies again on %s%n", range);
+            return;
+        }
+        int[] slots;
+        try {
+            slots = input.equalsIgnoreCase("none") ? new int[0] : TimeGrid.configured().parseSlotNumbers(input);
+        } catch (IllegalArgumentException e) {
+            System.out.println("\n" + e.getMessage() + ". Please enter slot numbers separated by commas.");
+            return;
+        }
+        actor.setDateAvailability(range.from(), range.to(), slots);
+        System.out.printf("\nAvailability set successfully for %s%n", range);
+    }
+
+    /**
+     * Parses and validates a date or date range.
+     * @param input Date (e.g. 2026-12-24) or date range (e.g. 2026-12-24..2026-12-26)
+     * @return Date range or null if invalid
+     */
+    private AvailabilityExceptions.DateRange getValidDateRange(String input) {
+        try {
+            return AvailabilityExceptions.DateRange.parse(input);
+        } catch (IllegalArgumentException e) {
+            System.out.println("\n" + e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * Normalizes day input to the proper case format and validates against valid days.
      * @param day Input day string
@@ -189,25 +313,32 @@ public class AppNavigation {
         return validDays.contains(day) ? day : null;
     }
 
+    /**
+     * Describes the slot numbers of a day on the configured time grid.
+     * @return One entry per slot (e.g. "'1' for 9-12 | '2' for 12-15"), or the slot range for fine grids
+     */
+    private String describeSlots() {
+        TimeGrid grid = TimeGrid.configured();
+        if (grid.slotsPerDay() > 8) {
+            return String.format("'1' to '%d', %d minutes each: '1' for %s ... '%d' for %s",
+                    grid.slotsPerDay(), grid.slotMinutes(), grid.slotLabel(0), grid.slotsPerDay(), grid.slotLabel(grid.slotsPerDay() - 1));
+        }
+        StringBuilder slots = new StringBuilder();
+        for (int slot = 0; slot < grid.slotsPerDay(); slot++) {
+            slots.append(slot > 0 ? " | " : "").append('\'').append(slot + 1).append("' for ").append(grid.slotLabel(slot));
+        }
+        return slots.toString();
+    }
+
     /**
      * Parses and validates time slot input.
      * @return Array of valid slot numbers or null if invalid
      */
     private int[] getValidSlots() {
         try {
-            String[] slotStrings = scanner.nextLine().trim().split(",");
-            int[] slots = new int[slotStrings.length];
-
-            for (int i = 0; i < slotStrings.length; i++) {
-                slots[i] = Integer.parseInt(slotStrings[i].trim());
-                if (slots[i] < 1 || slots[i] > 4) {
-                    System.out.println("\nInvalid slot number: " + slots[i] + ". Please use numbers between 1 and 4.");
-                    return null;
-                }
-            }
-            return slots;
-        } catch (NumberFormatException e) {
-            System.out.println("\nInvalid input. Please enter numbers separated by commas.");
+            return TimeGrid.configured().parseSlotNumbers(scanner.nextLine().trim());
+        } catch (IllegalArgumentException e) {
+            System.out.println("\n" + e.getMessage() + ". Please enter slot numbers separated by commas.");
             return null;
         }
     }
@@ -251,18 +382,252 @@ public class AppNavigation {
     }
 
     /**
-     * Triggers schedule generation process
+     * Manages schedule generation through a submenu
      */
     private void generateSchedule() {
-        schedule.generateSchedule();
+        System.out.println("\nGenerate Schedule:");
+        System.out.println("1. Weekly Availability Schedule");
+        System.out.println("2. Schedule for a Date Range");
+        System.out.println("3. Optimize Scene Rehearsals");
+        System.out.println("4. Find Best Rehearsal Slots");
+        System.out.println("5. Return to Main Menu");
+        System.out.print("\nEnter your choice: ");
+
+        int choice = getValidIntInput(1, 5);
+        switch (choice) {
+            case 1: schedule.generateSchedule(); break;
+            case 2: generateDateSchedule(); break;
+            case 3: optimizeSceneRehearsals(); break;
+            case 4: findBestSlots(); break;
+            case 5: break;
+        }
+    }
+
+    /**
+     * Asks for a date range and prints its schedule, with the date exceptions of the actors applied.
+     */
+    private void generateDateSchedule() {
+        System.out.printf("Enter the date or date range (e.g. 2026-12-01..2026-12-31, at most %d days): ", Schedule.MAX_SCHEDULE_DAYS);
+        AvailabilityExceptions.DateRange range = getValidDateRange(scanner.nextLine());
+        if (range == null) {
+            return;
+        }
+        if (range.days() > Schedule.MAX_SCHEDULE_DAYS) {
+            System.out.println("\nDate range too long. Please enter at most " + Schedule.MAX_SCHEDULE_DAYS + " days.");
+            return;
+        }
+        schedule.generateSchedule(range.from(), range.to());
+    }
+
+    /**
+     * Collects scenes with their casts and durations and prints an optimized rehearsal plan.
+     */
+    private void optimizeSceneRehearsals() {
+        if (schedule.getActors().isEmpty()) {
+            System.out.println("No actors added yet.");
+            return;
+        }
+
+        // Display a short actor list for building the casts
+        List<Actor> actors = schedule.getActors();
+        System.out.println("\nActors:");
+        for (int i = 0; i < actors.size(); i++) {
+            System.out.printf("%d. %s %s%n", i + 1, actors.get(i).getFirstName(), actors.get(i).getLastName());
+        }
+
+        // Loop for entering the scenes to rehearse
+        List<RehearsalOptimizer.Scene> scenes = new ArrayList<>();
+        while (true) {
+            System.out.print("\nEnter scene name (e.g. Act 1 Scene 2) or 'done' to finish: ");
+            String name = scanner.nextLine().trim();
+            if (name.equalsIgnoreCase("done")) {
+                break;
+            }
+            if (name.isEmpty()) {
+                System.out.println("\nInvalid name. Please enter a scene name.");
+                continue;
+            }
+
+            System.out.print("Enter actor numbers in the cast (comma-separated, e.g. 1,3): ");
+            List<Actor> cast = getValidActorList(actors);
+            if (cast == null) {
+                continue;
+            }
+
+            System.out.printf("Enter rehearsal length in time slots (1-%d): ", Actor.SLOTS_PER_DAY);
+            int duration = getValidIntInput(1, Actor.SLOTS_PER_DAY);
+
+            scenes.add(new RehearsalOptimizer.Scene(name, cast, duration));
+            System.out.printf("\nScene added: %s (%d actors, %d slots)%n", name, cast.size(), duration);
+        }
+
+        if (scenes.isEmpty()) {
+            System.out.println("No scenes entered.");
+            return;
+        }
+        schedule.printRehearsalPlan(schedule.optimizeRehearsals(scenes));
+    }
+
+    /**
+     * Asks for a required cast, a minimum headcount and a number of slots, and prints the
+     * weekly slots with the most available actors in which the whole cast is free.
+     * The cast is entered by actor id, so the roster does not have to be listed.
+     */
+    private void findBestSlots() {
+        if (schedule.getActors().isEmpty()) {
+            System.out.println("No actors added yet.");
+            return;
+        }
+
+        System.out.print("Enter actor IDs of the required cast (comma-separated, e.g. 3,17) or leave empty: ");
+        List<Actor> cast = getValidActorIds();
+        if (cast == null) {
+            return;
+        }
+
+        System.out.print("Enter the minimum number of available actors (0 for any): ");
+        int minimumHeadcount = getValidIntInput(0, Integer.MAX_VALUE);
+
+        System.out.printf("Enter the number of slots to list (1-%d): ", Schedule.MAX_RANKED_SLOTS);
+        int limit = getValidIntInput(1, Schedule.MAX_RANKED_SLOTS);
+
+        schedule.printBestSlots(schedule.findBestSlots(cast, minimumHeadcount, limit));
+    }
+
+    /**
+     * Parses and validates a list of actor ids.
+     * @return Actors with the ids (empty if none) or null if invalid
+     */
+    private List<Actor> getValidActorIds() {
+        String input = scanner.nextLine().trim();
+        List<Actor> actors = new ArrayList<>();
+        if (input.isEmpty()) {
+            return actors;
+        }
+
+        for (String idString : input.split(",")) {
+            Actor actor;
+            try {
+                actor = schedule.findActorById(Integer.parseInt(idString.trim()));
+            } catch (NumberFormatException e) {
+                System.out.println("\nInvalid input. Please enter actor IDs separated by commas.");
+                return null;
+            }
+            if (actor == null) {
+                System.out.println("\nNo actor found with ID: " + idString.trim());
+                return null;
+            }
+            actors.add(actor);
+        }
+        return actors;
     }
 
     /**
-     * Placeholder for future scheduling conflict detection feature
+     * Detects scheduling conflicts for groups of actors defined by the user.
+     * Each group can have required calls that all of its members must attend.
+     * Without any groups, the whole roster is checked as one group.
      */
     private void detectSchedulingConflicts() {
-        // Implementation for detecting scheduling conflicts
-        System.out.println("\nFeature not implemented yet.");
+        if (schedule.getActors().isEmpty()) {
+            System.out.println("No actors added yet.");
+            return;
+        }
+
+        // Display a short actor list for building the groups
+        List<Actor> actors = schedule.getActors();
+        System.out.println("\nActors:");
+        for (int i = 0; i < actors.size(); i++) {
+            System.out.printf("%d. %s %s%n", i + 1, actors.get(i).getFirstName(), actors.get(i).getLastName());
+        }
+
+        // Loop for entering the groups to check
+        List<ConflictDetector.ActorGroup> groups = new ArrayList<>();
+        while (true) {
+            System.out.print("\nEnter group name (e.g. Act 1 Scene 2) or 'done' to finish (no groups checks the full cast): ");
+            String name = scanner.nextLine().trim();
+            if (name.equalsIgnoreCase("done")) {
+                break;
+            }
+            if (name.isEmpty()) {
+                System.out.println("\nInvalid name. Please enter a group name.");
+                continue;
+            }
+
+            System.out.print("Enter actor numbers in the group (comma-separated, e.g. 1,3): ");
+            List<Actor> members = getValidActorList(actors);
+            if (members == null) {
+                continue;
+            }
+
+            System.out.print("Enter required calls (comma-separated Day:slot, e.g. Monday:1,Friday:3) or leave empty: ");
+            SlotMask requiredCalls = getValidCalls();
+            if (requiredCalls == null) {
+                continue;
+            }
+
+            groups.add(new ConflictDetector.ActorGroup(name, members, requiredCalls));
+            System.out.printf("\nGroup added: %s (%d actors)%n", name, members.size());
+        }
+
+        schedule.printConflictReport(schedule.detectConflicts(groups));
+    }
+
+    /**
+     * Parses and validates a list of actor numbers.
+     * @param actors Actors the numbers refer to
+     * @return Selected actors or null if invalid
+     */
+    private List<Actor> getValidActorList(List<Actor> actors) {
+        try {
+            String[] numberStrings = scanner.nextLine().trim().split(",");
+            List<Actor> members = new ArrayList<>(numberStrings.length);
+
+            for (String numberString : numberStrings) {
+                int number = Integer.parseInt(numberString.trim());
+                if (number < 1 || number > actors.size()) {
+                    System.out.printf("\nInvalid actor number: %d. Please use numbers between 1 and %d.%n", number, actors.size());
+                    return null;
+                }
+                members.add(actors.get(number - 1));
+            }
+            return members;
+        } catch (NumberFormatException e) {
+            System.out.println("\nInvalid input. Please enter numbers separated by commas.");
+            return null;
+        }
+    }
+
+    /**
+     * Parses and validates required calls in Day:slot format.
+     * @return Weekly slots of the calls (empty if none) or null if invalid
+     */
+    private SlotMask getValidCalls() {
+        String input = scanner.nextLine().trim();
+        SlotMask calls = TimeGrid.configured().emptyWeek();
+        if (input.isEmpty()) {
+            return calls;
+        }
+
+        for (String call : input.split(",")) {
+            String[] parts = call.trim().split(":", 2);
+            String day = normalizeDay(parts[0].trim());
+            if (day == null || parts.length != 2) {
+                System.out.println("\nInvalid call: " + call.trim() + ". Please use Day:slot, e.g. Monday:1.");
+                return null;
+            }
+            try {
+                int slot = Integer.parseInt(parts[1].trim());
+                if (slot < 1 || slot > Actor.SLOTS_PER_DAY) {
+                    System.out.println("\nInvalid slot number: " + slot + ". Please use numbers between 1 and " + Actor.SLOTS_PER_DAY + ".");
+                    return null;
+                }
+                calls = calls.or(SlotMask.ofSlots(Actor.SLOTS_PER_WEEK, Actor.slotIndex(Actor.dayIndex(day), slot - 1)));
+            } catch (NumberFormatException e) {
+                System.out.println("\nInvalid call: " + call.trim() + ". Please use Day:slot, e.g. Monday:1.");
+                return null;
+            }
+        }
+        return calls;
     }
 
     /**
@@ -271,18 +636,62 @@ public class AppNavigation {
     private void handleDataOperations() {
         System.out.println("\nData Operations:");
         System.out.println("1. Save to File");
-        System.out.println("2. Load from File");
-        System.out.println("3. Return to Main Menu");
+        System.out.println("2. Save Binary Snapshot");
+        System.out.println("3. Export Text File");
+        System.out.println("4. Load from File");
+        System.out.println("5. Merge from File");
+        System.out.println("6. Return to Main Menu");
         System.out.print("\nEnter your choice: ");
 
-        int choice = getValidIntInput(1, 3);
+        int choice = getValidIntInput(1, 6);
         switch (choice) {
-            case 1: schedule.saveToFile(); break;
-            case 2: schedule.loadFromFile(); break;
-            case 3: break;
+            case 1: requestSave(BackgroundSaver.Kind.CHANGES); break;
+            case 2: requestSave(BackgroundSaver.Kind.SNAPSHOT); break;
+            case 3: requestSave(BackgroundSaver.Kind.TEXT); break;
+            case 4:
+                saver.flush(); // Load the files as saved by the requested saves
+                try {
+                    schedule.loadFromFile();
+                    System.out.printf("Loaded %d actors. Use Save to File to keep them.%n", schedule.getRosterSize());
+                } catch (IOException e) {
+                    printLoadError(e);
+                }
+                break;
+            case 5:
+                saver.flush();
+                try {
+                    Schedule.MergeResult result = schedule.mergeFromFile();
+                    System.out.printf("Merged: %d added, %d updated, %d unchanged. Use Save to File to keep the changes.%n",
+                            result.added(), result.updated(), result.unchanged());
+                } catch (IOException e) {
+                    printLoadError(e);
+                }
+                break;
+            case 6: break;
         }
     }
 
+    /**
+     * Reports a data file that could not be loaded
+     * @param e Error of the load
+     */
+    private void printLoadError(IOException e) {
+        if (e instanceof NoSuchFileException) {
+            System.out.println("No saved data found. The roster was not changed.");
+        } else {
+            System.out.println("Error loading data from file: " + e.getMessage() + ". The roster was not changed.");
+        }
+    }
+
+    /**
+     * Requests a save on the background saver, which reports to the console when it is written
+     * @param kind Kind of save
+     */
+    private void requestSave(BackgroundSaver.Kind kind) {
+        saver.request(kind);
+        System.out.println("Saving in the background...");
+    }
+
     /**
      * Displays the main menu options
      */
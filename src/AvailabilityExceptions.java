@@ -0,0 +1,297 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable date exceptions to an actor's recurring weekly availability, e.g. holidays,
+ * tour dates or one-off conflicts during a production's run.
+ * <p>
+ * Exceptions are run-length encoded: consecutive dates with the same availability form one run of
+ * a start date, a number of days and the availability of each of those days, which replaces the
+ * weekly pattern on those dates. A two-week holiday is a single run, so a whole season of 8 to 16
+ * weeks costs little more than its weekly pattern. Lookups binary-search the runs, so a date is
+ * resolved without expanding the season. Files store the runs delta-encoded (see {@link #writeTo(DataOutput)}).
+ */
+public final class AvailabilityExceptions {
+    // No exceptions: every date follows the weekly pattern
+    public static final AvailabilityExceptions NONE = new AvailabilityExceptions(new Run[0]);
+
+    /**
+     * Record representing consecutive dates with the same availability
+     * @param startDay First date of the run as epoch day (see {@link LocalDate#toEpochDay()})
+     * @param days Number of dates in the run
+     * @param availability Availability on each date of the run, one slot per time slot of the day
+     */
+    public record Run(long startDay, int days, SlotMask availability) {
+        /**
+         * @return First date of the run
+         */
+        public LocalDate start() { return LocalDate.ofEpochDay(startDay); }
+
+        /**
+         * @return Last date of the run
+         */
+        public LocalDate end() { return LocalDate.ofEpochDay(startDay + days - 1); }
+
+        /**
+         * @return Dates of the run
+         */
+        public DateRange dates() { return new DateRange(start(), end()); }
+
+        // Epoch day after the last date of the run
+        private long endDay() { return startDay + days; }
+    }
+
+    /**
+     * Record representing a range of dates as typed by the user and written to text files,
+     * e.g. "2026-12-24" or "2026-12-24..2026-12-26"
+     * @param from First date
+     * @param to Last date, not before the first
+     */
+    public record DateRange(LocalDate from, LocalDate to) {
+        // Separates the first and last date
+        public static final String SEPARATOR = "..";
+
+        /**
+         * Parses a single ISO date or two separated by {@value #SEPARATOR}
+         * @param text Date or date range
+         * @return Date range
+         * @throws IllegalArgumentException if a date is malformed or the range ends before it starts
+         */
+        public static DateRange parse(String text) {
+            String trimmed = text.trim();
+            int separator = trimmed.indexOf(SEPARATOR);
+            LocalDate from;
+            LocalDate to;
+            try {
+                from = LocalDate.parse(separator < 0 ? trimmed : trimmed.substring(0, separator).trim());
+                to = separator < 0 ? from : LocalDate.parse(trimmed.substring(separator + SEPARATOR.length()).trim());
+            } catch (DateTimeException e) {
+                throw new IllegalArgumentException("Invalid date: " + trimmed + " (expected e.g. 2026-12-24 or 2026-12-24..2026-12-26)");
+            }
+            if (to.isBefore(from)) {
+                throw new IllegalArgumentException("Invalid date range: " + trimmed + " ends before it starts");
+            }
+            return new DateRange(from, to);
+        }
+
+        /**
+         * @return Number of dates in the range
+         */
+        public long days() { return to.toEpochDay() - from.toEpochDay() + 1; }
+
+        /**
+         * @return The date, or both dates separated by {@value #SEPARATOR}, as accepted by {@link #parse(String)}
+         */
+        @Override
+        public String toString() {
+            return from.equals(to) ? from.toString() : from + SEPARATOR + to;
+        }
+    }
+
+    // Runs in date order; they never overlap and adjacent runs have different availability
+    private final Run[] runs;
+
+    private AvailabilityExceptions(Run[] runs) {
+        this.runs = runs;
+    }
+
+    /**
+     * @return true if every date follows the weekly pattern
+     */
+    public boolean isEmpty() { return runs.length == 0; }
+
+    /**
+     * @return Runs in date order
+     */
+    public List<Run> runs() { return List.of(runs); }
+
+    /**
+     * Looks up the exception of a date
+     * @param date Date to look up
+     * @return Availability on that date, or null if the date follows the weekly pattern
+     */
+    public SlotMask availability(LocalDate date) {
+        Run run = runAt(date.toEpochDay());
+        return run == null ? null : run.availability();
+    }
+
+    /**
+     * @param from First date of the range
+     * @param to Last date of the range
+     * @return true if any date of the range has an exception
+     */
+    public boolean overlaps(LocalDate from, LocalDate to) {
+        int i = firstRunEndingAfter(from.toEpochDay());
+        return i < runs.length && runs[i].startDay() <= to.toEpochDay();
+    }
+
+    /**
+     * Sets the availability of a range of dates, replacing the weekly pattern and any earlier
+     * exception on those dates
+     * @param from First date of the range
+     * @param to Last date of the range
+     * @param availability Availability on each date of the range (one slot per time slot of the day),
+     *                     or null to use the weekly pattern on those dates again
+     * @return Exceptions with the change
+     * @throws IllegalArgumentException if the range is empty or too long, or the availability is not one day of the configured grid
+     */
+    public AvailabilityExceptions with(LocalDate from, LocalDate to, SlotMask availability) {
+        long startDay = from.toEpochDay();
+        long endDay = to.toEpochDay() + 1;
+        if (endDay <= startDay || endDay - startDay > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid date range: " + from + " to " + to);
+        }
+        if (availability != null && availability.size() != Actor.SLOTS_PER_DAY) {
+            throw new IllegalArgumentException("Date availability has " + availability.size() + " slots, expected " + Actor.SLOTS_PER_DAY);
+        }
+
+        // Keep the parts of the existing runs outside the range, then insert the new run in date order
+        List<Run> result = new ArrayList<>(runs.length + 2);
+        for (Run run : runs) {
+            if (run.endDay() <= startDay || run.startDay() >= endDay) {
+                result.add(run);
+                continue;
+            }
+            if (run.startDay() < startDay) {
+                result.add(new Run(run.startDay(), (int) (startDay - run.startDay()), run.availability()));
+            }
+            if (run.endDay() > endDay) {
+                result.add(new Run(endDay, (int) (run.endDay() - endDay), run.availability()));
+            }
+        }
+        if (availability != null) {
+            int position = 0;
+            while (position < result.size() && result.get(position).startDay() < startDay) {
+                position++;
+            }
+            result.add(position, new Run(startDay, (int) (endDay - startDay), availability));
+        }
+        return of(result);
+    }
+
+    /**
+     * @return Estimated heap bytes of the exceptions: the run array and each run with its mask
+     */
+    public long sizeInBytes() {
+        long bytes = 16 + 16 + (long) runs.length * Integer.BYTES;
+        for (Run run : runs) {
+            bytes += 32 + run.availability().sizeInBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Writes the runs delta-encoded: the run count, then for each run the days since the end of the
+     * previous run (the epoch day for the first run), its number of days and the words of its availability
+     * @param out Stream to write to
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(runs.length);
+        long previousEnd = 0;
+        for (Run run : runs) {
+            out.writeLong(run.startDay() - previousEnd);
+            out.writeInt(run.days());
+            for (int w = 0; w < run.availability().wordCount(); w++) {
+                out.writeLong(run.availability().word(w));
+            }
+            previousEnd = run.endDay();
+        }
+    }
+
+    /**
+     * Reads runs written by {@link #writeTo(DataOutput)} and converts them to the configured grid
+     * @param in Stream to read from
+     * @param grid Time grid the runs were written on
+     * @return Exceptions on the configured grid
+     * @throws IOException if the stream ends early or the runs are corrupt
+     */
+    public static AvailabilityExceptions readFrom(DataInput in, TimeGrid grid) throws IOException {
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("Corrupt date exceptions: " + count + " runs");
+        }
+        if (count == 0) {
+            return NONE;
+        }
+        int words = SlotMask.wordCount(grid.slotsPerDay());
+        long[] availabilityWords = new long[words];
+        List<Run> runs = new ArrayList<>(Math.min(count, 1024));
+        long previousEnd = 0;
+        for (int i = 0; i < count; i++) {
+            long startDay = previousEnd + in.readLong();
+            int days = in.readInt();
+            if (days <= 0 || (i > 0 && startDay < previousEnd)) {
+                throw new IOException("Corrupt date exceptions: run " + i + " of " + count);
+            }
+            for (int w = 0; w < words; w++) {
+                availabilityWords[w] = in.readLong();
+            }
+            SlotMask availability;
+            try {
+                availability = TimeGrid.configured().convertExactly(SlotMask.of(grid.slotsPerDay(), availabilityWords), grid);
+            } catch (IllegalArgumentException e) {
+                throw new IOException(e.getMessage());
+            }
+            runs.add(new Run(startDay, days, availability));
+            previousEnd = startDay + days;
+        }
+        return of(runs);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other || other instanceof AvailabilityExceptions exceptions && Arrays.equals(exceptions.runs, runs);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(runs);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(runs);
+    }
+
+    // Builds exceptions from runs in date order, joining adjacent runs with the same availability
+    private static AvailabilityExceptions of(List<Run> runs) {
+        List<Run> joined = new ArrayList<>(runs.size());
+        for (Run run : runs) {
+            Run last = joined.isEmpty() ? null : joined.get(joined.size() - 1);
+            if (last != null && last.endDay() == run.startDay() && last.availability().equals(run.availability())
+                    && (long) last.days() + run.days() <= Integer.MAX_VALUE) {
+                joined.set(joined.size() - 1, new Run(last.startDay(), last.days() + run.days(), last.availability()));
+            } else {
+                joined.add(run);
+            }
+        }
+        return joined.isEmpty() ? NONE : new AvailabilityExceptions(joined.toArray(new Run[0]));
+    }
+
+    // Run containing an epoch day, or null
+    private Run runAt(long day) {
+        int i = firstRunEndingAfter(day);
+        return i < runs.length && runs[i].startDay() <= day ? runs[i] : null;
+    }
+
+    // Index of the first run that ends after an epoch day, or the run count
+    private int firstRunEndingAfter(long day) {
+        int low = 0;
+        int high = runs.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (runs[middle].endDay() <= day) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
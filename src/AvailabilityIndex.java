@@ -0,0 +1,288 @@
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+/**
+ * Inverted availability index for the actor roster.
+ * Keeps one bitset of roster positions per weekly time slot, so the actors available
+ * in a slot can be counted with a popcount and listed by walking the set bits,
+ * without looking at the rest of the roster.
+ * <p>
+ * The bitsets are kept on the heap, or off the heap in one single-row {@link AvailabilityMatrix}
+ * per slot, whose memory is freed once no index references it. Copies share the bitsets with
+ * the index they were taken from; a slot's bitset is copied the first time either index writes
+ * to it, so a copy taken after every edit costs one reference per slot plus the slots the edit touched.
+ */
+public class AvailabilityIndex {
+    // slotWords[slot][w] holds roster positions w * 64 .. w * 64 + 63 for that weekly slot; null if off the heap
+    private final long[][] slotWords;
+
+    // Off-heap bitsets, word w of slotRows[slot] holding the same positions as slotWords[slot][w]; null if on the heap
+    private final AvailabilityMatrix[] slotRows;
+
+    // shared[slot] is true while the bitset of the slot may be referenced by another copy of the index
+    private final boolean[] shared = new boolean[Actor.SLOTS_PER_WEEK];
+
+    // Words per slot bitset
+    private int capacity = 1;
+
+    // Number of roster positions covered by the index
+    private int size;
+
+    /**
+     * Creates an empty index on the heap
+     */
+    public AvailabilityIndex() {
+        this(new long[Actor.SLOTS_PER_WEEK][1], null);
+    }
+
+    private AvailabilityIndex(long[][] slotWords, AvailabilityMatrix[] slotRows) {
+        this.slotWords = slotWords;
+        this.slotRows = slotRows;
+    }
+
+    /**
+     * @return Empty index off the heap
+     */
+    public static AvailabilityIndex offHeap() {
+        AvailabilityMatrix[] rows = new AvailabilityMatrix[Actor.SLOTS_PER_WEEK];
+        for (int slot = 0; slot < rows.length; slot++) {
+            rows[slot] = AvailabilityMatrix.allocateCollected(1, 1);
+        }
+        return new AvailabilityIndex(null, rows);
+    }
+
+    /**
+     * @return Copy of the index, e.g. to keep as part of a roster snapshot. Later changes to either
+     *         index do not show in the other; the bitsets are shared until then.
+     */
+    public AvailabilityIndex copy() {
+        AvailabilityIndex copy = new AvailabilityIndex(slotWords == null ? null : slotWords.clone(),
+                slotRows == null ? null : slotRows.clone());
+        copy.capacity = capacity;
+        copy.size = size;
+        Arrays.fill(shared, true);
+        Arrays.fill(copy.shared, true);
+        return copy;
+    }
+
+    /**
+     * @return true if the bitsets are kept off the heap
+     */
+    public boolean isOffHeap() { return slotRows != null; }
+
+    /**
+     * @return Number of roster positions in the index
+     */
+    public int size() { return size; }
+
+    /**
+     * @return Bytes held by the index words, including unused capacity; off the heap if {@link #isOffHeap()}
+     */
+    public long sizeInBytes() {
+        return (long) Actor.SLOTS_PER_WEEK * capacity * Long.BYTES;
+    }
+
+    /**
+     * @param other Index to compare with, e.g. the index this one was copied from
+     * @return Bytes of the bitsets of this index that are not shared with the other index
+     */
+    public long unsharedBytes(AvailabilityIndex other) {
+        long bytes = 0;
+        for (int slot = 0; slot < Actor.SLOTS_PER_WEEK; slot++) {
+            boolean same = slotRows != null ? other.slotRows != null && slotRows[slot] == other.slotRows[slot]
+                    : other.slotWords != null && slotWords[slot] == other.slotWords[slot];
+            bytes += same ? 0 : (long) capacity * Long.BYTES;
+        }
+        return bytes;
+    }
+
+    /**
+     * Removes all positions from the index; copies keep theirs
+     */
+    public void clear() {
+        capacity = 1;
+        for (int slot = 0; slot < Actor.SLOTS_PER_WEEK; slot++) {
+            if (slotRows != null) {
+                slotRows[slot] = AvailabilityMatrix.allocateCollected(1, capacity);
+            } else {
+                slotWords[slot] = new long[capacity];
+            }
+            shared[slot] = false;
+        }
+        size = 0;
+    }
+
+    /**
+     * Replaces the positions of the index with a roster given as the bitset of available positions
+     * of each slot, e.g. read from a snapshot, rather than one actor at a time
+     * @param positions Number of roster positions
+     * @param slotPositions Bitset of the positions available in a weekly slot, bit p of word p / 64 for position p
+     */
+    public void load(int positions, IntFunction<long[]> slotPositions) {
+        clear();
+        ensureCapacity(positions);
+        size = positions;
+        for (int slot = 0; slot < Actor.SLOTS_PER_WEEK; slot++) {
+            long[] words = slotPositions.apply(slot);
+            for (int w = 0, n = Math.min(words.length, wordCount()); w < n; w++) {
+                setWord(slot, w, words[w]);
+            }
+        }
+    }
+
+    /**
+     * Appends a roster position at the end of the index
+     * @param availability Weekly availability of the actor at the new position
+     */
+    public void add(SlotMask availability) {
+        int position = size++;
+        ensureCapacity(size);
+        update(position, TimeGrid.configured().emptyWeek(), availability);
+    }
+
+    /**
+     * Updates the availability stored for a roster position
+     * @param position Roster position of the actor
+     * @param oldAvailability Previous weekly availability
+     * @param newAvailability New weekly availability
+     */
+    public void update(int position, SlotMask oldAvailability, SlotMask newAvailability) {
+        int word = position >>> 6;
+        long bit = 1L << position;
+        // Only the slots that changed are touched, a word of the masks at a time
+        for (int w = 0, n = newAvailability.wordCount(); w < n; w++) {
+            long newWord = newAvailability.word(w);
+            long changed = oldAvailability.word(w) ^ newWord;
+            while (changed != 0) {
+                int slot = (w << 6) + Long.numberOfTrailingZeros(changed);
+                long current = word(slot, word);
+                setWord(slot, word, (newWord & changed & -changed) != 0 ? current | bit : current & ~bit);
+                changed &= changed - 1;
+            }
+        }
+    }
+
+    /**
+     * Removes a roster position by moving the last position into its place,
+     * matching the swap removal of the roster
+     * @param position Roster position to remove
+     */
+    public void swapRemove(int position) {
+        int last = size - 1;
+        int word = position >>> 6;
+        long bit = 1L << position;
+        int lastWord = last >>> 6;
+        long lastBit = 1L << last;
+        for (int slot = 0; slot < Actor.SLOTS_PER_WEEK; slot++) {
+            long lastWords = word(slot, lastWord);
+            setWord(slot, lastWord, lastWords & ~lastBit);
+            if (position != last) {
+                long words = word(slot, word);
+                setWord(slot, word, (lastWords & lastBit) != 0 ? words | bit : words & ~bit);
+            }
+        }
+        size--;
+    }
+
+    /**
+     * Counts the actors available in a slot
+     * @param slotIndex Weekly slot index (see {@link TimeGrid#slotIndex(int, int)})
+     * @return Number of available actors
+     */
+    public int count(int slotIndex) {
+        return slotRows != null ? slotRows[slotIndex].bitCount(0, wordCount()) : BitCounting.bitCount(slotWords[slotIndex], wordCount());
+    }
+
+    /**
+     * Counts the actors of a group available in a slot, intersecting the slot's bitset with the group's
+     * @param slotIndex Weekly slot index (see {@link TimeGrid#slotIndex(int, int)})
+     * @param members Bitset of the roster positions of the group, bit p of word p / 64 for position p
+     * @return Number of available group members
+     */
+    public int count(int slotIndex, long[] members) {
+        int words = Math.min(wordCount(), members.length);
+        return slotRows != null ? slotRows[slotIndex].andBitCount(0, members, words) : BitCounting.andBitCount(slotWords[slotIndex], members, words);
+    }
+
+    /**
+     * Reads the weekly availability of one roster position back from the slot bitsets
+     * @param position Roster position
+     * @return Weekly availability stored for the position
+     */
+    public SlotMask availability(int position) {
+        int word = position >>> 6;
+        long bit = 1L << position;
+        long[] availability = new long[SlotMask.wordCount(Actor.SLOTS_PER_WEEK)];
+        for (int slot = 0; slot < Actor.SLOTS_PER_WEEK; slot++) {
+            if ((word(slot, word) & bit) != 0) {
+                availability[slot >>> 6] |= 1L << slot;
+            }
+        }
+        return SlotMask.wrap(Actor.SLOTS_PER_WEEK, availability);
+    }
+
+    /**
+     * Lists the roster positions of all actors available in a slot, in roster order
+     * @param slotIndex Weekly slot index (see {@link TimeGrid#slotIndex(int, int)})
+     * @return Ascending roster positions
+     */
+    public int[] positions(int slotIndex) {
+        int[] positions = new int[count(slotIndex)];
+        int i = 0;
+        for (int w = 0, n = wordCount(); w < n; w++) {
+            long bits = word(slotIndex, w);
+            while (bits != 0) {
+                positions[i++] = (w << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+            }
+        }
+        return positions;
+    }
+
+    // Word w of the bitset of a slot
+    private long word(int slot, int w) {
+        return slotRows != null ? slotRows[slot].word(0, w) : slotWords[slot][w];
+    }
+
+    // Writes a word of a slot's bitset, first copying the bitset if a copy of the index shares it
+    private void setWord(int slot, int w, long value) {
+        if (word(slot, w) == value) {
+            return;
+        }
+        if (shared[slot]) {
+            if (slotRows != null) {
+                slotRows[slot] = slotRows[slot].copy(capacity);
+            } else {
+                slotWords[slot] = slotWords[slot].clone();
+            }
+            shared[slot] = false;
+        }
+        if (slotRows != null) {
+            slotRows[slot].setWord(0, w, value);
+        } else {
+            slotWords[slot][w] = value;
+        }
+    }
+
+    // Number of words in use for the current size
+    private int wordCount() {
+        return (size + 63) >>> 6;
+    }
+
+    // Grows the bitsets so they can hold the given number of positions; the grown bitsets are no longer shared
+    private void ensureCapacity(int positions) {
+        int needed = (positions + 63) >>> 6;
+        if (needed <= capacity) {
+            return;
+        }
+        capacity = Math.max(needed, capacity * 2);
+        for (int slot = 0; slot < Actor.SLOTS_PER_WEEK; slot++) {
+            if (slotRows != null) {
+                slotRows[slot] = slotRows[slot].copy(capacity);
+            } else {
+                slotWords[slot] = Arrays.copyOf(slotWords[slot], capacity);
+            }
+            shared[slot] = false;
+        }
+    }
+}
@@ -0,0 +1,411 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Off-heap matrix of availability bits: a number of rows of 64-bit words in one {@link MemorySegment},
+ * row r in words r * words .. r * words + words - 1. Used for the weekly availability of a columnar
+ * roster (one row per actor, see {@link ColumnarRoster}) and for the availability index (a single-row
+ * matrix per weekly slot, one bit per roster position, see {@link AvailabilityIndex}), so neither puts its words
+ * on the heap where the garbage collector would have to scan and copy them.
+ * <p>
+ * The segment either lives in memory or is mapped from a file, which survives restarts. The file holds a
+ * 64-byte header followed by the rows, all in native byte order:
+ * <pre>
+ * header magic "RPAM", version, words per row, rows, rows in use,
+ *        start minute, slot length and slots per day of the time grid: int,
+ *        change journal sequence the rows were last synced at, -1 while they have changed since: long,
+ *        reserved up to 64 bytes
+ * rows   rows x words per row: long
+ * </pre>
+ * The owner calls {@link #markSynced(long, int)} once the rows match a durable state, e.g. a committed journal;
+ * the first write after that marks the header as changed, on disk before the write is.
+ * Counting and intersection are loops over the words of the segment (see {@link BitCounting}) and allocate nothing.
+ * The matrix is not thread-safe; its owner guards it with its own lock.
+ */
+public final class AvailabilityMatrix implements AutoCloseable {
+    // "RPAM" - identifies an availability matrix file
+    public static final int MAGIC = 0x5250414D;
+    public static final int VERSION = 1;
+
+    // Bytes before the first row of a matrix file, and the header fields within them
+    private static final long HEADER_BYTES = 64;
+    private static final long WORDS_OFFSET = 8;
+    private static final long ROWS_OFFSET = 12;
+    private static final long ROWS_IN_USE_OFFSET = 16;
+    private static final long GRID_OFFSET = 20;
+    private static final long SYNCED_SEQUENCE_OFFSET = 32;
+
+    private static final ValueLayout.OfLong WORD = ValueLayout.JAVA_LONG;
+
+    // File the matrix is mapped from, or null if it lives in memory only
+    private final FileChannel file;
+
+    // Arena owning the segment, replaced whenever the matrix is resized; null for a copy, which the garbage collector frees
+    private Arena arena;
+
+    // Mapped header of a matrix file, or null
+    private MemorySegment header;
+
+    // Set while the header of a mapped file records a synced state, cleared by the first write after it
+    private boolean synced;
+
+    // The rows, without the header
+    private MemorySegment segment;
+    private int rows;
+    private int words;
+
+    private AvailabilityMatrix(FileChannel file, Arena arena, MemorySegment segment, int rows, int words) {
+        this.file = file;
+        this.arena = arena;
+        this.segment = segment;
+        this.rows = rows;
+        this.words = words;
+    }
+
+    /**
+     * Creates a matrix in memory off the heap, with every bit clear
+     * @param rows Number of rows
+     * @param words Words per row
+     * @return Matrix, to be closed when no longer used
+     */
+    public static AvailabilityMatrix allocate(int rows, int words) {
+        Arena arena = Arena.ofShared();
+        return new AvailabilityMatrix(null, arena, arena.allocate(bytes(rows, words), Long.BYTES), rows, words);
+    }
+
+    /**
+     * Creates a matrix off the heap, with every bit clear, whose memory is freed by the garbage collector
+     * once the matrix is no longer referenced, e.g. because copies of it may outlive their owner
+     * @param rows Number of rows
+     * @param words Words per row
+     * @return Matrix, which need not be closed and cannot be resized
+     */
+    public static AvailabilityMatrix allocateCollected(int rows, int words) {
+        return new AvailabilityMatrix(null, null, Arena.ofAuto().allocate(bytes(rows, words), Long.BYTES), rows, words);
+    }
+
+    /**
+     * Maps a matrix from a file, keeping the rows an existing file holds for the same words per row and time grid.
+     * A missing file is created; a file that is not a matrix file or has another layout is reset to no rows and
+     * no synced state, so its owner rebuilds the rows.
+     * @param path File to map
+     * @param words Words per row
+     * @param grid Time grid the rows are on
+     * @return Matrix, to be closed when no longer used
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public static AvailabilityMatrix map(Path path, int words, TimeGrid grid) throws IOException {
+        FileChannel file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            AvailabilityMatrix matrix = new AvailabilityMatrix(file, null, null, 0, words);
+            matrix.open(grid);
+            return matrix;
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return Number of rows
+     */
+    public int rows() { return rows; }
+
+    /**
+     * @return Words per row
+     */
+    public int words() { return words; }
+
+    /**
+     * @return Bytes of the rows, off the heap
+     */
+    public long sizeInBytes() { return bytes(rows, words); }
+
+    /**
+     * @return true if the matrix is mapped from a file
+     */
+    public boolean isMapped() { return file != null; }
+
+    /**
+     * @return Journal sequence the rows of a mapped file were last synced at, or -1 if they have changed since,
+     *         were never synced or the matrix lives in memory
+     */
+    public long syncedSequence() {
+        return synced ? header.get(ValueLayout.JAVA_LONG, SYNCED_SEQUENCE_OFFSET) : -1;
+    }
+
+    /**
+     * @return Rows holding data as of the last synced state of a mapped file, 0 if there is none
+     */
+    public int rowsInUse() {
+        return synced ? header.get(ValueLayout.JAVA_INT, ROWS_IN_USE_OFFSET) : 0;
+    }
+
+    /**
+     * Forces the rows of a mapped file to disk and records in its header that they match a durable state;
+     * does nothing for a matrix in memory
+     * @param sequence Change journal sequence the rows match, at least 0
+     * @param rowsInUse Rows holding data, from the first
+     * @throws UncheckedIOException if the file cannot be forced
+     */
+    public void markSynced(long sequence, int rowsInUse) {
+        if (file == null) {
+            return;
+        }
+        segment.force();
+        header.set(ValueLayout.JAVA_INT, ROWS_IN_USE_OFFSET, rowsInUse);
+        header.set(ValueLayout.JAVA_LONG, SYNCED_SEQUENCE_OFFSET, sequence);
+        header.force();
+        synced = true;
+    }
+
+    /**
+     * @param row Row index
+     * @param word Word index within the row
+     * @return Word of the row
+     */
+    public long word(int row, int word) {
+        return segment.getAtIndex(WORD, (long) row * words + word);
+    }
+
+    /**
+     * @param row Row index
+     * @param word Word index within the row
+     * @param value New word of the row
+     */
+    public void setWord(int row, int word, long value) {
+        changing();
+        segment.setAtIndex(WORD, (long) row * words + word, value);
+    }
+
+    /**
+     * Reads a row into a mask
+     * @param row Row index
+     * @param size Number of slots of the mask, at most 64 per word of the row
+     * @return Mask of the row's bits
+     */
+    public SlotMask row(int row, int size) {
+        long[] rowWords = new long[SlotMask.wordCount(size)];
+        MemorySegment.copy(segment, WORD, offset(row, 0), rowWords, 0, rowWords.length);
+        return SlotMask.wrap(size, rowWords);
+    }
+
+    /**
+     * Writes a mask into a row
+     * @param row Row index
+     * @param mask Mask with at most as many words as a row; the remaining words of the row are cleared
+     */
+    public void setRow(int row, SlotMask mask) {
+        changing();
+        long base = (long) row * words;
+        for (int w = 0; w < words; w++) {
+            segment.setAtIndex(WORD, base + w, w < mask.wordCount() ? mask.word(w) : 0L);
+        }
+    }
+
+    /**
+     * Copies a row over another one
+     * @param from Row to copy
+     * @param to Row to overwrite
+     */
+    public void copyRow(int from, int to) {
+        changing();
+        MemorySegment.copy(segment, offset(from, 0), segment, offset(to, 0), (long) words * Long.BYTES);
+    }
+
+    /**
+     * Counts the set bits in the first words of a row
+     * @param row Row index
+     * @param count Number of words to count, from the start of the row
+     * @return Number of set bits
+     */
+    public int bitCount(int row, int count) {
+        return BitCounting.bitCount(segment, (long) row * words, count);
+    }
+
+    /**
+     * Counts the bits set both in the first words of a row and in words held by the caller
+     * @param row Row index
+     * @param other Packed words, intersected from the first
+     * @param count Number of words to intersect, at most as many as a row and the other words have
+     * @return Number of bits set in both
+     */
+    public int andBitCount(int row, long[] other, int count) {
+        return BitCounting.andBitCount(segment, (long) row * words, other, count);
+    }
+
+    /**
+     * Clears every bit
+     */
+    public void clear() {
+        changing();
+        segment.fill((byte) 0);
+    }
+
+    /**
+     * Changes the number of rows and words per row, keeping the bits that still fit and clearing
+     * the new ones. A mapped matrix grows or shrinks its file.
+     * @param rows New number of rows
+     * @param words New words per row
+     * @throws UncheckedIOException if the file of a mapped matrix cannot be resized
+     */
+    public void resize(int rows, int words) {
+        if (file != null) {
+            try {
+                remap(rows, words);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot resize the availability matrix file: " + e.getMessage(), e);
+            }
+            return;
+        }
+        Arena newArena = Arena.ofShared();
+        MemorySegment resized = newArena.allocate(bytes(rows, words), Long.BYTES);
+        copyRows(segment, this.rows, this.words, resized, rows, words);
+        arena.close();
+        arena = newArena;
+        segment = resized;
+        this.rows = rows;
+        this.words = words;
+    }
+
+    /**
+     * @param words Words per row of the copy, e.g. only the words in use
+     * @return Copy of the matrix in memory, whose off-heap memory is freed once the copy is no longer referenced
+     */
+    public AvailabilityMatrix copy(int words) {
+        AvailabilityMatrix copy = allocateCollected(rows, words);
+        copyRows(segment, rows, this.words, copy.segment, rows, words);
+        return copy;
+    }
+
+    /**
+     * Frees the off-heap memory, or unmaps and closes the file, which keeps the rows and header as they are;
+     * the matrix must not be used afterwards
+     */
+    @Override
+    public void close() {
+        if (arena != null) {
+            arena.close();
+            arena = null;
+        }
+        segment = null;
+        header = null;
+        if (file != null) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                System.out.println("Error closing the availability matrix file: " + e.getMessage());
+            }
+        }
+    }
+
+    // Maps the rows of the file if its header matches the layout, or resets it to an empty matrix with no synced state
+    private void open(TimeGrid grid) throws IOException {
+        int fileRows = -1;
+        if (file.size() >= HEADER_BYTES) {
+            try (Arena scratch = Arena.ofConfined()) {
+                MemorySegment existing = file.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES, scratch);
+                if (existing.get(ValueLayout.JAVA_INT, 0) == MAGIC && existing.get(ValueLayout.JAVA_INT, 4) == VERSION
+                        && existing.get(ValueLayout.JAVA_INT, WORDS_OFFSET) == words
+                        && existing.get(ValueLayout.JAVA_INT, GRID_OFFSET) == grid.startMinute()
+                        && existing.get(ValueLayout.JAVA_INT, GRID_OFFSET + 4) == grid.slotMinutes()
+                        && existing.get(ValueLayout.JAVA_INT, GRID_OFFSET + 8) == grid.slotsPerDay()) {
+                    fileRows = existing.get(ValueLayout.JAVA_INT, ROWS_OFFSET);
+                }
+            }
+        }
+        if (fileRows < 0 || file.size() < HEADER_BYTES + bytes(fileRows, words)) {
+            // Truncating first makes the file grow with zeros
+            file.truncate(0);
+            mapRows(0);
+            header.set(ValueLayout.JAVA_INT, 0, MAGIC);
+            header.set(ValueLayout.JAVA_INT, 4, VERSION);
+            header.set(ValueLayout.JAVA_INT, WORDS_OFFSET, words);
+            header.set(ValueLayout.JAVA_INT, ROWS_OFFSET, 0);
+            header.set(ValueLayout.JAVA_INT, ROWS_IN_USE_OFFSET, 0);
+            header.set(ValueLayout.JAVA_INT, GRID_OFFSET, grid.startMinute());
+            header.set(ValueLayout.JAVA_INT, GRID_OFFSET + 4, grid.slotMinutes());
+            header.set(ValueLayout.JAVA_INT, GRID_OFFSET + 8, grid.slotsPerDay());
+            header.set(ValueLayout.JAVA_LONG, SYNCED_SEQUENCE_OFFSET, -1L);
+            header.force();
+            return;
+        }
+        mapRows(fileRows);
+        synced = header.get(ValueLayout.JAVA_LONG, SYNCED_SEQUENCE_OFFSET) >= 0
+                && header.get(ValueLayout.JAVA_INT, ROWS_IN_USE_OFFSET) <= fileRows;
+    }
+
+    // Maps the header and the given number of rows of the file, growing it if needed
+    private void mapRows(int rows) throws IOException {
+        Arena newArena = Arena.ofShared();
+        MemorySegment mapped;
+        try {
+            mapped = file.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + bytes(rows, words), newArena);
+        } catch (IOException e) {
+            newArena.close();
+            throw e;
+        }
+        arena = newArena;
+        header = mapped.asSlice(0, HEADER_BYTES);
+        segment = mapped.asSlice(HEADER_BYTES);
+        this.rows = rows;
+    }
+
+    // Maps the file again with a new layout. The rows move within the file, so they are kept in a scratch copy meanwhile
+    private void remap(int rows, int words) throws IOException {
+        changing();
+        try (Arena scratch = Arena.ofConfined()) {
+            MemorySegment old = scratch.allocate(sizeInBytes(), Long.BYTES).copyFrom(segment);
+            int oldRows = this.rows;
+            int oldWords = this.words;
+            arena.close();
+            arena = null;
+            header = null;
+            segment = null;
+            // Truncating to the header first makes the file grow with zeros
+            file.truncate(HEADER_BYTES);
+            this.words = words;
+            mapRows(rows);
+            copyRows(old, oldRows, oldWords, segment, rows, words);
+            header.set(ValueLayout.JAVA_INT, WORDS_OFFSET, words);
+            header.set(ValueLayout.JAVA_INT, ROWS_OFFSET, rows);
+        }
+    }
+
+    // Marks the header of a synced file as changed and forces it, before a write can reach the rows on disk
+    private void changing() {
+        if (!synced) {
+            return;
+        }
+        synced = false;
+        header.set(ValueLayout.JAVA_LONG, SYNCED_SEQUENCE_OFFSET, -1L);
+        try {
+            header.force();
+        } catch (UncheckedIOException e) {
+            System.out.println("Error marking the availability matrix file as changed: " + e.getMessage());
+        }
+    }
+
+    // Copies the part of the rows that fits from one layout into another
+    private static void copyRows(MemorySegment from, int fromRows, int fromWords, MemorySegment to, int toRows, int toWords) {
+        long bytes = (long) Math.min(fromWords, toWords) * Long.BYTES;
+        for (int row = 0, n = Math.min(fromRows, toRows); row < n; row++) {
+            MemorySegment.copy(from, (long) row * fromWords * Long.BYTES, to, (long) row * toWords * Long.BYTES, bytes);
+        }
+    }
+
+    // Byte offset of a word in the segment
+    private long offset(int row, int word) {
+        return ((long) row * words + word) * Long.BYTES;
+    }
+
+    private static long bytes(int rows, int words) {
+        return (long) rows * words * Long.BYTES;
+    }
+}
@@ -0,0 +1,206 @@
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saves a schedule on a dedicated writer thread, so the menus stay responsive while large rosters
+ * are written.
+ * <p>
+ * Requests are coalesced: each kind of save is pending at most once, and every request made
+ * before the writer gets to it is served by the same write. A write always saves the roster as it
+ * is when the write starts, captured consistently by the schedule, so the last request of a burst
+ * is never served by an older write. Completion and failures are printed to the console by the writer
+ * thread. An optional autosave commits the changes periodically, and {@link #close()} finishes all
+ * requested saves and commits the changes not saved yet before the application exits. A roster
+ * only counts as saved once a save of it succeeded, so a failed save is retried by the next one.
+ */
+public class BackgroundSaver implements AutoCloseable {
+    // Seconds between autosaves; not set or 0 turns autosave off
+    public static final String AUTOSAVE_PROPERTY = "rehearsalplanner.autosaveSeconds";
+
+    /**
+     * Kinds of saves, written in this order when several are pending
+     */
+    public enum Kind {
+        // Appends the unsaved changes to the change journal (see Schedule.saveToFile)
+        CHANGES,
+        // Writes a binary snapshot of the roster
+        SNAPSHOT,
+        // Exports the roster as a text data file
+        TEXT
+    }
+
+    // Schedule to save
+    private final Schedule schedule;
+
+    // Writer thread; also runs the autosave timer
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "roster-saver");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Kinds requested since the writer last took them, guarded by this; a write is queued whenever it is not empty
+    private final Set<Kind> pending = EnumSet.noneOf(Kind.class);
+
+    // true while a write of the pending kinds is queued and has not taken them yet; guarded by this
+    private boolean queued;
+
+    // Roster version contained in the last successful save of changes or snapshot, so autosave and close skip a roster
+    // that did not change
+    private volatile long savedVersion;
+
+    private boolean closed;
+
+    /**
+     * Creates a saver with the autosave interval of this session
+     * @param schedule Schedule to save
+     */
+    public BackgroundSaver(Schedule schedule) {
+        this(schedule, autosaveSecondsFromProperties());
+    }
+
+    /**
+     * @param schedule Schedule to save
+     * @param autosaveSeconds Seconds between autosaves of the unsaved changes, 0 for none
+     */
+    public BackgroundSaver(Schedule schedule, long autosaveSeconds) {
+        this.schedule = schedule;
+        this.savedVersion = schedule.getRosterVersion();
+        if (autosaveSeconds > 0) {
+            writer.scheduleWithFixedDelay(this::autosave, autosaveSeconds, autosaveSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Requests a save on the writer thread and returns right away. A request for a kind of save
+     * that is already pending is served by the pending write.
+     * @param kind Kind of save
+     */
+    public synchronized void request(Kind kind) {
+        if (closed) {
+            System.out.println("Saver is closed; " + kind.name().toLowerCase() + " not saved.");
+            return;
+        }
+        pending.add(kind);
+        if (!queued) {
+            queued = true;
+            writer.execute(this::writePending);
+        }
+    }
+
+    /**
+     * Waits until every save requested so far is written, e.g. before loading a data file
+     */
+    public void flush() {
+        Future<?> marker;
+        synchronized (this) {
+            if (closed) {
+                return; // Everything was written on close
+            }
+            // The writer runs tasks in order, so the marker runs after the running and queued writes
+            marker = writer.submit(() -> { });
+        }
+        try {
+            marker.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // Reported by the writer thread
+        }
+    }
+
+    /**
+     * Stops autosaving, writes every requested save and the changes made since the last successful
+     * save, then stops the writer thread. Waits however long the writes take, reporting each
+     * minute that they are still running; if interrupted, reports that saves may be missing and returns.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        writer.shutdown(); // Cancels the autosave timer; queued writes still run
+        try {
+            while (!writer.awaitTermination(1, TimeUnit.MINUTES)) {
+                System.out.println("Still waiting for background saves to finish...");
+            }
+        } catch (InterruptedException e) {
+            System.out.println("Interrupted while waiting for background saves; requested saves may not be written.");
+            Thread.currentThread().interrupt();
+            return; // The writer may still be saving, so no save is started next to it
+        }
+        if (schedule.getRosterVersion() != savedVersion) {
+            System.out.println("Saving changes...");
+            if (!save(Kind.CHANGES)) {
+                System.out.println("The changes made since the last successful save could not be saved.");
+            }
+        }
+    }
+
+    // Takes all pending kinds and writes each once
+    private void writePending() {
+        Set<Kind> kinds;
+        synchronized (this) {
+            kinds = EnumSet.copyOf(pending);
+            pending.clear();
+            queued = false;
+        }
+        for (Kind kind : kinds) {
+            save(kind);
+        }
+    }
+
+    // Commits the changes if the roster changed since the last save; runs on the writer thread
+    private void autosave() {
+        if (schedule.getRosterVersion() != savedVersion) {
+            System.out.println("Autosaving...");
+            save(Kind.CHANGES);
+        }
+    }
+
+    // Writes one kind of save, reporting failures instead of stopping the writer; returns false if it failed
+    private boolean save(Kind kind) {
+        try {
+            if (kind == Kind.TEXT) {
+                schedule.exportToTextFile(); // An export is not what the next session restores, so the roster stays unsaved
+                return true;
+            }
+            long version = schedule.getRosterVersion();
+            // A snapshot contains the unsaved changes as well
+            boolean saved = kind == Kind.CHANGES ? schedule.saveToFile() : schedule.saveSnapshot();
+            if (saved) {
+                savedVersion = version;
+            }
+            return saved;
+        } catch (RuntimeException e) {
+            System.out.println("Error saving " + kind.name().toLowerCase() + " in the background: " + e);
+            return false;
+        }
+    }
+
+    /**
+     * Reads the autosave interval of this session, turning autosave off if the property is invalid
+     * @return Seconds between autosaves, 0 for none
+     */
+    private static long autosaveSecondsFromProperties() {
+        String setting = System.getProperty(AUTOSAVE_PROPERTY, "0");
+        try {
+            long seconds = Long.parseLong(setting);
+            if (seconds >= 0) {
+                return seconds;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        System.out.println("Invalid " + AUTOSAVE_PROPERTY + ": " + setting + " (expected seconds, 0 for none); autosave is off");
+        return 0;
+    }
+}
@@ -0,0 +1,292 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Headless command runner for scripted changes such as bulk onboarding.
+ * Reads one command per line from a file or standard input and applies them to the
+ * restored roster without printing any prompts. Commands are collected in batches:
+ * new actors and availability edits are applied together, so an actor added and given
+ * availability in the same batch costs a single journal record, and the changes are
+ * saved once at the end.
+ * <p>
+ * Commands (fields separated by ';', blank lines and lines starting with '#' are ignored):
+ * <pre>
+ * add;First name;Last name;Email;Phone
+ * set;actor;Day;slots;Y|N      e.g. set;last;Monday;1,3;Y or set;last;Monday;5-12;Y
+ * date;actor;dates;slots|none|weekly
+ *                              e.g. date;last;2026-12-24..2026-12-26;none or date;2;2027-01-05;1-2
+ * remove;actor
+ * generate
+ * best;actors;minimum;count    e.g. best;1,4;10;5 or best;;0;3
+ * save
+ * </pre>
+ * An actor is given by its number in the roster (as in the menus, new actors are numbered
+ * after the existing ones) or by "last" for the most recently added actor. A date command sets
+ * the slots available on a date or date range instead of the weekly availability, or with
+ * "weekly" lets the weekly availability apply to those dates again. A best command prints the
+ * count slots with the most available actors in which the listed actors (none for any slot) are
+ * all free and at least minimum actors are available.
+ */
+public class BatchRunner {
+    // Commands collected before the pending changes are applied to the roster
+    private static final int BATCH_SIZE = 1000;
+
+    private final Schedule schedule = new Schedule();
+
+    // Actors added in the current batch, not on the roster yet
+    private final List<Actor> pendingActors = new ArrayList<>();
+
+    // New availability of roster actors edited in the current batch, applied once per actor
+    private final Map<Actor, SlotMask> pendingAvailability = new LinkedHashMap<>();
+    private int pendingCommands;
+
+    // Changes applied since the last save
+    private boolean unsaved;
+
+    // Summary counters
+    private int commands;
+    private int added;
+    private int removed;
+    private int availabilityUpdates;
+    private int errors;
+
+    /**
+     * Runs the commands of a file, or of standard input if the source is "-"
+     * @param source Command file path or "-"
+     * @return Number of commands that failed
+     */
+    public int run(String source) {
+        long start = System.nanoTime();
+        PlannerMetrics.register(schedule);
+        schedule.restore();
+
+        try (BufferedReader reader = source.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Path.of(source), StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                commands++;
+                try {
+                    execute(line.split(";", -1));
+                } catch (IllegalArgumentException e) {
+                    errors++;
+                    System.out.println("Line " + lineNumber + ": " + e.getMessage());
+                }
+            }
+        } catch (NoSuchFileException e) {
+            System.out.println("Command file not found: " + source);
+            errors++;
+        } catch (IOException e) {
+            System.out.println("Error reading commands: " + e.getMessage());
+            errors++;
+        }
+
+        flush();
+        if (unsaved) {
+            schedule.saveToFile();
+        }
+        schedule.close();
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        System.out.printf("Batch complete: %d commands (%d added, %d removed, %d availability updates, %d errors) in %d ms, %.0f commands/s%n",
+                commands, added, removed, availabilityUpdates, errors, elapsedMillis,
+                commands * 1000.0 / Math.max(1, elapsedMillis));
+        return errors;
+    }
+
+    /**
+     * Executes one command
+     * @param fields Command name followed by its arguments
+     */
+    private void execute(String[] fields) {
+        String command = fields[0].trim().toLowerCase();
+        switch (command) {
+            case "add" -> {
+                expectFields(fields, 5, "add;First name;Last name;Email;Phone");
+                pendingActors.add(new Actor(fields[1].trim(), fields[2].trim(), fields[3].trim(), fields[4].trim()));
+                added++;
+                batched();
+            }
+            case "set" -> {
+                expectFields(fields, 5, "set;actor;Day;slots;Y|N");
+                setAvailability(fields);
+                availabilityUpdates++;
+                batched();
+            }
+            case "date" -> {
+                expectFields(fields, 4, "date;actor;dates;slots|none|weekly");
+                setDateAvailability(fields);
+                availabilityUpdates++;
+                unsaved = true;
+            }
+            case "remove" -> {
+                expectFields(fields, 2, "remove;actor");
+                flush();
+                schedule.removeActor(resolveActor(fields[1]));
+                removed++;
+                unsaved = true;
+            }
+            case "generate" -> {
+                flush();
+                schedule.generateSchedule();
+            }
+            case "best" -> {
+                expectFields(fields, 4, "best;actors;minimum;count");
+                flush();
+                findBestSlots(fields);
+            }
+            case "save" -> {
+                flush();
+                schedule.saveToFile();
+                unsaved = false;
+            }
+            default -> throw new IllegalArgumentException("Unknown command: " + fields[0].trim());
+        }
+    }
+
+    // Applies an availability edit to a pending actor directly or records the new mask of a roster actor
+    private void setAvailability(String[] fields) {
+        Actor actor = resolveActor(fields[1]);
+        int day = Actor.dayIndex(normalizeDay(fields[2].trim()));
+        if (day < 0) {
+            throw new IllegalArgumentException("Invalid day: " + fields[2].trim());
+        }
+        int[] slots = TimeGrid.configured().parseSlotNumbers(fields[3]);
+        long[] words = new long[SlotMask.wordCount(Actor.SLOTS_PER_WEEK)];
+        for (int slot : slots) {
+            int index = Actor.slotIndex(day, slot - 1);
+            words[index >>> 6] |= 1L << index;
+        }
+        SlotMask bits = SlotMask.of(Actor.SLOTS_PER_WEEK, words);
+        String answer = fields[4].trim().toLowerCase();
+        boolean isAvailable = switch (answer) {
+            case "y", "yes" -> true;
+            case "n", "no" -> false;
+            default -> throw new IllegalArgumentException("Invalid availability: " + fields[4].trim() + " (expected Y or N)");
+        };
+
+        SlotMask availability = pendingAvailability.getOrDefault(actor, actor.getAvailability());
+        availability = isAvailable ? availability.or(bits) : availability.andNot(bits);
+        if (pendingActors.contains(actor)) {
+            actor.setAvailability(availability); // Not on the roster yet, so nothing is journaled
+        } else {
+            pendingAvailability.put(actor, availability);
+        }
+    }
+
+    // Sets or clears the date exception of an actor right away; exceptions are rare, so they are not batched
+    private void setDateAvailability(String[] fields) {
+        Actor actor = resolveActor(fields[1]);
+        AvailabilityExceptions.DateRange range = AvailabilityExceptions.DateRange.parse(fields[2]);
+        String slots = fields[3].trim();
+        if (slots.equalsIgnoreCase("weekly")) {
+            actor.clearDateAvailability(range.from(), range.to());
+        } else {
+            actor.setDateAvailability(range.from(), range.to(),
+                    slots.equalsIgnoreCase("none") ? new int[0] : TimeGrid.configured().parseSlotNumbers(slots));
+        }
+    }
+
+    // Prints the best slots for a comma-separated list of actors, a minimum headcount and a slot count
+    private void findBestSlots(String[] fields) {
+        List<Actor> cast = new ArrayList<>();
+        for (String reference : fields[1].split(",")) {
+            if (!reference.isBlank()) {
+                cast.add(resolveActor(reference));
+            }
+        }
+        int minimumHeadcount = parseCount(fields[2], "minimum", 0, Integer.MAX_VALUE);
+        int limit = parseCount(fields[3], "count", 1, Schedule.MAX_RANKED_SLOTS);
+        schedule.printBestSlots(schedule.findBestSlots(cast, minimumHeadcount, limit));
+    }
+
+    // Finds an actor by roster number, counting pending actors after the roster, or "last"
+    private Actor resolveActor(String reference) {
+        reference = reference.trim();
+        List<Actor> roster = schedule.getActors();
+        if (reference.equalsIgnoreCase("last")) {
+            if (!pendingActors.isEmpty()) {
+                return pendingActors.get(pendingActors.size() - 1);
+            }
+            if (roster.isEmpty()) {
+                throw new IllegalArgumentException("No actors added yet.");
+            }
+            return roster.get(roster.size() - 1);
+        }
+        int number;
+        try {
+            number = Integer.parseInt(reference);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid actor: " + reference);
+        }
+        int total = roster.size() + pendingActors.size();
+        if (number < 1 || number > total) {
+            throw new IllegalArgumentException("Invalid actor number: " + number + " (roster has " + total + " actors)");
+        }
+        return number <= roster.size() ? roster.get(number - 1) : pendingActors.get(number - roster.size() - 1);
+    }
+
+    // Counts a batched command and applies the batch once it is full
+    private void batched() {
+        if (++pendingCommands >= BATCH_SIZE) {
+            flush();
+        }
+    }
+
+    // Applies the pending actors and availability edits to the roster
+    private void flush() {
+        for (Map.Entry<Actor, SlotMask> entry : pendingAvailability.entrySet()) {
+            entry.getKey().setAvailability(entry.getValue());
+        }
+        for (Actor actor : pendingActors) {
+            schedule.addActor(actor);
+        }
+        if (pendingCommands > 0) {
+            unsaved = true;
+        }
+        pendingAvailability.clear();
+        pendingActors.clear();
+        pendingCommands = 0;
+    }
+
+    private static int parseCount(String field, String name, int min, int max) {
+        try {
+            int value = Integer.parseInt(field.trim());
+            if (value >= min && value <= max) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Invalid " + name + ": " + field.trim() + " (expected " + min + "-" + max + ")");
+    }
+
+    private static void expectFields(String[] fields, int count, String usage) {
+        if (fields.length != count) {
+            throw new IllegalArgumentException("Expected " + usage);
+        }
+    }
+
+    // Capitalizes the first letter and lowercases the rest, as in the interactive menus
+    private static String normalizeDay(String day) {
+        if (day.isEmpty()) {
+            return day;
+        }
+        return day.substring(0, 1).toUpperCase() + day.substring(1).toLowerCase();
+    }
+}
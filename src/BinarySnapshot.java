@@ -0,0 +1,392 @@
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact, versioned binary snapshot of the actor roster.
+ * Names, emails and phone numbers are stored once in a string dictionary and every actor
+ * is a fixed-width record of dictionary references plus its word-packed availability, so a
+ * snapshot can be read straight from a memory-mapped file without any text parsing.
+ * Snapshots written on another {@link TimeGrid} are converted to the configured grid when read,
+ * and fail to read if that would lose slots.
+ * Date exceptions are rare, so they follow the string data for the actors that have any.
+ * <p>
+ * Layout (big-endian):
+ * <pre>
+ * header      magic "RPSN", version, slots per week, actor count, string count,
+ *             positions of the records, the string offset table and the string data: long,
+ *             last change journal sequence contained in the snapshot: long,
+ *             start minute and slot length of the time grid: int,
+ *             position of the date exceptions: long,
+ *             position of the availability index: long
+ * records     actor count x (id, first name, last name, email, phone references: int;
+ *             availability: one long per 64 slots of the week)
+ * index       slots per week x one long per 64 actors: bitset of the record indexes available in the slot,
+ *             so a lazily loaded roster is indexed without reading every record (see {@link LazyRoster})
+ * offsets     (string count + 1) x int, start of each string within the string data
+ * string data UTF-8 bytes of all dictionary strings
+ * exceptions  count of actors with date exceptions: int, then for each their record index: int and
+ *             the runs as written by {@link AvailabilityExceptions#writeTo(java.io.DataOutput)}
+ * </pre>
+ */
+public class BinarySnapshot {
+    // "RPSN" - identifies a binary snapshot at the start of the file
+    public static final int MAGIC = 0x5250534E;
+    public static final short VERSION = 1;
+
+    private static final int HEADER_SIZE = 72;
+    private static final int RECORD_FIELDS_SIZE = 5 * Integer.BYTES; // Id and string references, before the availability
+
+    private BinarySnapshot() { }
+
+    /**
+     * Checks whether a file starts with the snapshot magic number
+     * @param path File to check
+     * @return true if the file is a binary snapshot
+     */
+    public static boolean isSnapshot(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            byte[] magic = in.readNBytes(Integer.BYTES);
+            return magic.length == Integer.BYTES && ByteBuffer.wrap(magic).getInt() == MAGIC;
+        }
+    }
+
+    /**
+     * Writes the roster as a binary snapshot
+     * @param actors Actors to write
+     * @param path File to write to, replaced if it exists
+     */
+    public static void write(List<Actor> actors, Path path) throws IOException {
+        SlotMask[] availability = new SlotMask[actors.size()];
+        AvailabilityExceptions[] exceptions = new AvailabilityExceptions[actors.size()];
+        for (int i = 0; i < availability.length; i++) {
+            availability[i] = actors.get(i).peekAvailability();
+            exceptions[i] = actors.get(i).getExceptions();
+        }
+        write(actors, availability, exceptions, 0L, path);
+    }
+
+    /**
+     * Writes a roster captured at one point in time as a binary snapshot
+     * @param actors Actors to write
+     * @param availability Weekly availability of each actor when the roster was captured
+     * @param exceptions Date exceptions of each actor when the roster was captured
+     * @param journalSequence Last change journal sequence contained in the roster
+     * @param path File to write to, replaced if it exists
+     */
+    public static void write(List<Actor> actors, SlotMask[] availability, AvailabilityExceptions[] exceptions,
+                             long journalSequence, Path path) throws IOException {
+        // Build the string dictionary, storing each distinct string once
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<byte[]> strings = new ArrayList<>();
+        int[] references = new int[actors.size() * 4];
+        int stringBytes = 0;
+        for (int i = 0; i < actors.size(); i++) {
+            Actor actor = actors.get(i);
+            String[] fields = {actor.getFirstName(), actor.getLastName(), actor.getEmail(), actor.getPhone()};
+            for (int f = 0; f < fields.length; f++) {
+                Integer reference = dictionary.get(fields[f]);
+                if (reference == null) {
+                    reference = strings.size();
+                    dictionary.put(fields[f], reference);
+                    byte[] bytes = fields[f].getBytes(StandardCharsets.UTF_8);
+                    strings.add(bytes);
+                    stringBytes += bytes.length;
+                }
+                references[i * 4 + f] = reference;
+            }
+        }
+
+        TimeGrid grid = TimeGrid.configured();
+        int words = SlotMask.wordCount(grid.slotsPerWeek());
+        long recordsPosition = HEADER_SIZE;
+        long indexPosition = recordsPosition + (long) actors.size() * (RECORD_FIELDS_SIZE + words * Long.BYTES);
+        long[][] index = index(availability, grid.slotsPerWeek());
+        long offsetsPosition = indexPosition + (long) grid.slotsPerWeek() * indexWords(actors.size()) * Long.BYTES;
+        long stringDataPosition = offsetsPosition + (long) (strings.size() + 1) * Integer.BYTES;
+        long exceptionsPosition = stringDataPosition + stringBytes;
+        byte[] exceptionBytes = exceptionSection(exceptions);
+        if (exceptionsPosition + exceptionBytes.length > Integer.MAX_VALUE) {
+            throw new IOException("Roster is too large for a binary snapshot.");
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeShort(grid.slotsPerWeek());
+            out.writeInt(actors.size());
+            out.writeInt(strings.size());
+            out.writeLong(recordsPosition);
+            out.writeLong(offsetsPosition);
+            out.writeLong(stringDataPosition);
+            out.writeLong(journalSequence);
+            out.writeInt(grid.startMinute());
+            out.writeInt(grid.slotMinutes());
+            out.writeLong(exceptionsPosition);
+            out.writeLong(indexPosition);
+
+            for (int i = 0; i < actors.size(); i++) {
+                out.writeInt(actors.get(i).getId());
+                for (int f = 0; f < 4; f++) {
+                    out.writeInt(references[i * 4 + f]);
+                }
+                for (int w = 0; w < words; w++) {
+                    out.writeLong(availability[i].word(w));
+                }
+            }
+
+            for (long[] slotRecords : index) {
+                for (long word : slotRecords) {
+                    out.writeLong(word);
+                }
+            }
+
+            int offset = 0;
+            for (byte[] bytes : strings) {
+                out.writeInt(offset);
+                offset += bytes.length;
+            }
+            out.writeInt(offset);
+
+            for (byte[] bytes : strings) {
+                out.write(bytes);
+            }
+            out.write(exceptionBytes);
+        }
+    }
+
+    // Inverts the actors' availability into a bitset of record indexes per weekly slot
+    private static long[][] index(SlotMask[] availability, int slotsPerWeek) {
+        long[][] index = new long[slotsPerWeek][indexWords(availability.length)];
+        for (int i = 0; i < availability.length; i++) {
+            for (int w = 0; w < availability[i].wordCount(); w++) {
+                long bits = availability[i].word(w);
+                while (bits != 0) {
+                    index[(w << 6) + Long.numberOfTrailingZeros(bits)][i >>> 6] |= 1L << i;
+                    bits &= bits - 1;
+                }
+            }
+        }
+        return index;
+    }
+
+    // Words of an index bitset over a number of records
+    private static int indexWords(int records) {
+        return (records + 63) >>> 6;
+    }
+
+    // Encodes the exceptions section: the count of actors with exceptions, then their record indexes and runs
+    private static byte[] exceptionSection(AvailabilityExceptions[] exceptions) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        int count = 0;
+        for (AvailabilityExceptions actorExceptions : exceptions) {
+            count += actorExceptions.isEmpty() ? 0 : 1;
+        }
+        out.writeInt(count);
+        for (int i = 0; i < exceptions.length; i++) {
+            if (!exceptions[i].isEmpty()) {
+                out.writeInt(i);
+                exceptions[i].writeTo(out);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads a binary snapshot through a memory-mapped file
+     * @param path Snapshot file
+     * @return Actors in snapshot order
+     */
+    public static List<Actor> read(Path path) throws IOException {
+        return read(path, 0);
+    }
+
+    /**
+     * Reads only the ids, details and date exceptions of the actors of a binary snapshot. Each actor's
+     * weekly availability stays in the memory-mapped file and is read from its record on first access,
+     * and the roster is indexed from the snapshot's availability index (see {@link LazyRoster}). A snapshot on a grid the configured grid does not refine is read in full,
+     * so that a conversion losing slots fails here rather than on first access.
+     * @param path Snapshot file
+     * @param residentActors Most actors whose availability read from the file is kept in memory
+     * @return Actors in snapshot order
+     */
+    public static List<Actor> readLazily(Path path, int residentActors) throws IOException {
+        return read(path, Math.max(1, residentActors));
+    }
+
+    // Reads a snapshot, in full if residentActors is 0 and otherwise leaving the availability in the file
+    private static List<Actor> read(Path path, int residentActors) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            MappedByteBuffer buffer = map(channel, path);
+            TimeGrid grid = grid(buffer, path);
+            int words = SlotMask.wordCount(grid.slotsPerWeek());
+            int recordSize = RECORD_FIELDS_SIZE + words * Long.BYTES;
+            int actorCount = buffer.getInt(8);
+            int stringCount = buffer.getInt(12);
+            long recordsPosition = buffer.getLong(16);
+            long offsetsPosition = buffer.getLong(24);
+            long stringDataPosition = buffer.getLong(32);
+            long indexPosition = buffer.getLong(64);
+            if (actorCount < 0 || stringCount < 0
+                    || recordsPosition + (long) actorCount * recordSize > size
+                    || indexPosition < HEADER_SIZE || indexPosition + (long) grid.slotsPerWeek() * indexWords(actorCount) * Long.BYTES > size
+                    || offsetsPosition + (long) (stringCount + 1) * Integer.BYTES > size
+                    || stringDataPosition > size) {
+                throw new IOException("Corrupt binary snapshot header: " + path);
+            }
+
+            // Decode every dictionary string once; actors share the instances
+            String[] strings = new String[stringCount];
+            for (int i = 0; i < stringCount; i++) {
+                int start = buffer.getInt((int) offsetsPosition + i * Integer.BYTES);
+                int end = buffer.getInt((int) offsetsPosition + (i + 1) * Integer.BYTES);
+                if (start < 0 || end < start || stringDataPosition + end > size) {
+                    throw new IOException("Corrupt binary snapshot string table: " + path);
+                }
+                byte[] bytes = new byte[end - start];
+                buffer.get((int) stringDataPosition + start, bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+
+            TimeGrid configured = TimeGrid.configured();
+            LazyRoster lazy = residentActors > 0 && configured.refines(grid)
+                    ? new LazyRoster(buffer, (int) recordsPosition + RECORD_FIELDS_SIZE, recordSize, (int) indexPosition, actorCount, grid, residentActors)
+                    : null;
+            long[] availabilityWords = new long[words];
+            List<Actor> actors = new ArrayList<>(actorCount);
+            int position = (int) recordsPosition;
+            for (int i = 0; i < actorCount; i++, position += recordSize) {
+                int fields = position + Integer.BYTES;
+                String firstName = string(strings, buffer.getInt(fields), path);
+                String lastName = string(strings, buffer.getInt(fields + 4), path);
+                String email = string(strings, buffer.getInt(fields + 8), path);
+                String phone = string(strings, buffer.getInt(fields + 12), path);
+                if (lazy != null) {
+                    actors.add(new Actor(checkId(buffer.getInt(position), path), firstName, lastName, email, phone, lazy, i));
+                    continue;
+                }
+                for (int w = 0; w < words; w++) {
+                    availabilityWords[w] = buffer.getLong(fields + 16 + w * Long.BYTES);
+                }
+                SlotMask availability;
+                try {
+                    availability = configured.convertExactly(SlotMask.of(grid.slotsPerWeek(), availabilityWords), grid);
+                } catch (IllegalArgumentException e) {
+                    throw new IOException(path + ": " + e.getMessage());
+                }
+                actors.add(new Actor(checkId(buffer.getInt(position), path), firstName, lastName, email, phone, availability));
+            }
+            readExceptions(buffer, grid, actors, path);
+            return actors;
+        }
+    }
+
+    /**
+     * Reads the time grid a snapshot was written on
+     * @param path Snapshot file
+     * @return Grid of the snapshot's availability
+     */
+    public static TimeGrid grid(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return grid(map(channel, path), path);
+        }
+    }
+
+    /**
+     * Reads the last change journal sequence contained in a snapshot
+     * @param path Snapshot file
+     * @return Journal sequence, 0 for snapshots written without a journal
+     */
+    public static long journalSequence(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return map(channel, path).getLong(40);
+        }
+    }
+
+    // Reads the exceptions section and sets the date exceptions of the actors that have any
+    private static void readExceptions(MappedByteBuffer buffer, TimeGrid grid, List<Actor> actors, Path path) throws IOException {
+        long position = buffer.getLong(56);
+        if (position < HEADER_SIZE || position > buffer.capacity() - Integer.BYTES) {
+            throw new IOException("Corrupt binary snapshot header: " + path);
+        }
+        byte[] section = new byte[buffer.capacity() - (int) position];
+        buffer.get((int) position, section);
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(section));
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                int record = in.readInt();
+                if (record < 0 || record >= actors.size()) {
+                    throw new IOException("Corrupt binary snapshot date exceptions: " + path);
+                }
+                actors.get(record).setExceptions(AvailabilityExceptions.readFrom(in, grid));
+            }
+        } catch (EOFException e) {
+            throw new IOException("Truncated binary snapshot date exceptions: " + path);
+        }
+    }
+
+    // Maps a snapshot file and validates its size, magic number and version
+    private static MappedByteBuffer map(FileChannel channel, Path path) throws IOException {
+        long size = channel.size();
+        if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+            throw new IOException("Invalid binary snapshot size: " + size + " bytes");
+        }
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a binary snapshot: " + path);
+        }
+        short version = buffer.getShort(4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary snapshot version: " + version);
+        }
+        return buffer;
+    }
+
+    // Reads the time grid a snapshot was written with
+    private static TimeGrid grid(MappedByteBuffer buffer, Path path) throws IOException {
+        int slotsPerWeek = buffer.getShort(6) & 0xFFFF;
+        try {
+            if (slotsPerWeek % TimeGrid.DAYS_PER_WEEK != 0) {
+                throw new IllegalArgumentException(slotsPerWeek + " slots per week");
+            }
+            return TimeGrid.of(buffer.getInt(48), buffer.getInt(52), slotsPerWeek / TimeGrid.DAYS_PER_WEEK);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupt binary snapshot time grid in " + path + ": " + e.getMessage());
+        }
+    }
+
+    // Rejects actor ids that are not positive
+    private static int checkId(int id, Path path) throws IOException {
+        if (id <= 0) {
+            throw new IOException("Corrupt binary snapshot record: " + path);
+        }
+        return id;
+    }
+
+    // Resolves a dictionary reference, rejecting references outside the dictionary
+    private static String string(String[] strings, int reference, Path path) throws IOException {
+        if (reference < 0 || reference >= strings.length) {
+            throw new IOException("Corrupt binary snapshot record: " + path);
+        }
+        return strings[reference];
+    }
+}
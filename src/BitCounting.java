@@ -0,0 +1,200 @@
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
+/**
+ * Counting and intersection kernels over packed availability words, e.g. the bitset of roster
+ * positions of a weekly slot in the {@link AvailabilityIndex}.
+ * <p>
+ * The kernels are vectorized with the incubating Vector API ({@code jdk.incubator.vector}, see
+ * {@link VectorBitCounting}) when the JVM was started with {@code --add-modules jdk.incubator.vector},
+ * and run as scalar loops of {@link Long#bitCount(long)} otherwise. The vector kernels are loaded
+ * by name, so without the module no class referring to it is ever loaded. Setting {@value #PROPERTY}
+ * to {@code off} keeps the scalar kernels even when the module is present.
+ */
+public final class BitCounting {
+    // Set to "off" to count with the scalar kernels only; "auto" (default) uses the Vector API when available
+    public static final String PROPERTY = "rehearsalplanner.vector";
+
+    // Module of the Vector API
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    private static final Kernel SCALAR = new Scalar();
+
+    // Vector kernels, or null if the Vector API is not available
+    private static final Kernel VECTOR = loadVectorKernel();
+
+    // Kernels of this session
+    private static final Kernel CONFIGURED = fromProperty();
+
+    /**
+     * Counting and intersection kernels over packed words. Words hold 64 bits each, bit i of word w
+     * standing for position w * 64 + i.
+     */
+    public interface Kernel {
+        /**
+         * @return Name of the kernels, "scalar" or "vector" with the number of words per vector
+         */
+        String name();
+
+        /**
+         * @param words Packed words
+         * @param length Number of words to count, from the first
+         * @return Number of set bits
+         */
+        int bitCount(long[] words, int length);
+
+        /**
+         * Counts the bits set in both of two bitsets, e.g. the members of a group available in a slot
+         * @param a Packed words
+         * @param b Packed words
+         * @param length Number of words to intersect, from the first
+         * @return Number of bits set in both
+         */
+        int andBitCount(long[] a, long[] b, int length);
+
+        /**
+         * @param words Segment of packed words in native byte order
+         * @param index Index of the first word to count
+         * @param length Number of words to count
+         * @return Number of set bits
+         */
+        int bitCount(MemorySegment words, long index, int length);
+
+        /**
+         * Counts the bits set both in off-heap words and in words held by the caller
+         * @param words Segment of packed words in native byte order
+         * @param index Index of the first word of the segment to intersect
+         * @param other Packed words, intersected from the first
+         * @param length Number of words to intersect
+         * @return Number of bits set in both
+         */
+        int andBitCount(MemorySegment words, long index, long[] other, int length);
+    }
+
+    private BitCounting() { }
+
+    /**
+     * @return Kernels of this session: vectorized if the Vector API is available and not turned off
+     */
+    public static Kernel kernel() { return CONFIGURED; }
+
+    /**
+     * @return Scalar kernels, available on every JVM
+     */
+    public static Kernel scalarKernel() { return SCALAR; }
+
+    /**
+     * @return Vectorized kernels, or null if the JVM was started without the Vector API module
+     */
+    public static Kernel vectorKernel() { return VECTOR; }
+
+    /**
+     * Counts the set bits with the kernels of this session
+     * @param words Packed words
+     * @param length Number of words to count, from the first
+     * @return Number of set bits
+     */
+    public static int bitCount(long[] words, int length) {
+        return CONFIGURED.bitCount(words, length);
+    }
+
+    /**
+     * Counts the bits set in both bitsets with the kernels of this session
+     * @param a Packed words
+     * @param b Packed words
+     * @param length Number of words to intersect, from the first
+     * @return Number of bits set in both
+     */
+    public static int andBitCount(long[] a, long[] b, int length) {
+        return CONFIGURED.andBitCount(a, b, length);
+    }
+
+    /**
+     * Counts the set bits of off-heap words with the kernels of this session
+     * @param words Segment of packed words in native byte order
+     * @param index Index of the first word to count
+     * @param length Number of words to count
+     * @return Number of set bits
+     */
+    public static int bitCount(MemorySegment words, long index, int length) {
+        return CONFIGURED.bitCount(words, index, length);
+    }
+
+    /**
+     * Counts the bits set both in off-heap words and in words held by the caller with the kernels of this session
+     * @param words Segment of packed words in native byte order
+     * @param index Index of the first word of the segment to intersect
+     * @param other Packed words, intersected from the first
+     * @param length Number of words to intersect
+     * @return Number of bits set in both
+     */
+    public static int andBitCount(MemorySegment words, long index, long[] other, int length) {
+        return CONFIGURED.andBitCount(words, index, other, length);
+    }
+
+    // Loads the vector kernels if the Vector API module is in the boot layer
+    private static Kernel loadVectorKernel() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            return null;
+        }
+        try {
+            return (Kernel) Class.forName("VectorBitCounting").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            System.out.println("Vector API unavailable, counting with scalar code: " + e);
+            return null;
+        }
+    }
+
+    // Reads the kernels of this session from the property, falling back to scalar kernels
+    private static Kernel fromProperty() {
+        String setting = System.getProperty(PROPERTY, "auto");
+        if (!setting.equals("auto") && !setting.equals("off")) {
+            System.out.println("Invalid " + PROPERTY + ": " + setting + " (expected auto or off); using auto");
+        }
+        return setting.equals("off") || VECTOR == null ? SCALAR : VECTOR;
+    }
+
+    /**
+     * Scalar kernels: one {@link Long#bitCount(long)} per word, which the JIT compiles to a popcount instruction.
+     */
+    private static final class Scalar implements Kernel {
+        @Override
+        public String name() { return "scalar"; }
+
+        @Override
+        public int bitCount(long[] words, int length) {
+            int count = 0;
+            for (int w = 0; w < length; w++) {
+                count += Long.bitCount(words[w]);
+            }
+            return count;
+        }
+
+        @Override
+        public int andBitCount(long[] a, long[] b, int length) {
+            int count = 0;
+            for (int w = 0; w < length; w++) {
+                count += Long.bitCount(a[w] & b[w]);
+            }
+            return count;
+        }
+
+        @Override
+        public int bitCount(MemorySegment words, long index, int length) {
+            int count = 0;
+            for (int w = 0; w < length; w++) {
+                count += Long.bitCount(words.getAtIndex(ValueLayout.JAVA_LONG, index + w));
+            }
+            return count;
+        }
+
+        @Override
+        public int andBitCount(MemorySegment words, long index, long[] other, int length) {
+            int count = 0;
+            for (int w = 0; w < length; w++) {
+                count += Long.bitCount(words.getAtIndex(ValueLayout.JAVA_LONG, index + w) & other[w]);
+            }
+            return count;
+        }
+    }
+}
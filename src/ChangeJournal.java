@@ -0,0 +1,450 @@
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of roster changes.
+ * Every change gets a sequence number and is buffered in memory until {@link #commit()}
+ * appends the batch and forces it to disk. Actors are addressed by roster position, so
+ * replaying the entries in order over the snapshot they were recorded against rebuilds the roster.
+ * <p>
+ * File layout: magic "RPJL", version, start minute, slot length and slots per day of the
+ * {@link TimeGrid}, then records of
+ * (payload length: int, CRC32 of payload: int, payload: sequence, type and change data).
+ * A torn record at the end of the file (e.g. after a crash during a write) is discarded on open.
+ * Availability written on another grid is converted to the configured grid when read, and fails to
+ * read if that would lose slots. A journal on another grid is rewritten on the configured grid when it is
+ * opened only if that grid is at least as fine (see {@link TimeGrid#refines(TimeGrid)}); otherwise it is not opened.
+ */
+public class ChangeJournal implements Closeable {
+    // "RPJL" - identifies a journal file
+    private static final int MAGIC = 0x52504A4C;
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER_SIZE = 5 * Integer.BYTES;
+
+    // Change types
+    public static final byte ADD_ACTOR = 1;
+    public static final byte REMOVE_ACTOR = 2; // The last actor moves into the removed position
+    public static final byte SET_AVAILABILITY = 3;
+    public static final byte UPDATE_ACTOR = 4; // New name and contact details
+    public static final byte SET_EXCEPTIONS = 5; // New date exceptions
+
+    /**
+     * Record representing one journaled change
+     * @param sequence Sequence number of the change
+     * @param type ADD_ACTOR, REMOVE_ACTOR, SET_AVAILABILITY, UPDATE_ACTOR or SET_EXCEPTIONS
+     * @param position Roster position of the actor (unused for ADD_ACTOR, which appends)
+     * @param availability New weekly availability (ADD_ACTOR and SET_AVAILABILITY), null otherwise
+     * @param firstName First name of an added or updated actor, null otherwise
+     * @param lastName Last name of an added or updated actor, null otherwise
+     * @param email Email of an added or updated actor, null otherwise
+     * @param phone Phone of an added or updated actor, null otherwise
+     * @param actorId Id of an added actor, 0 otherwise
+     * @param exceptions New date exceptions (ADD_ACTOR and SET_EXCEPTIONS), null otherwise
+     */
+    public record Entry(long sequence, byte type, int position, SlotMask availability,
+                        String firstName, String lastName, String email, String phone, int actorId,
+                        AvailabilityExceptions exceptions) { }
+
+    private final Path path;
+
+    // Open for appending after open() succeeded
+    private FileChannel channel;
+
+    // Records appended since the last commit
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private int pendingCount;
+
+    // Last sequence number handed out
+    private long sequence;
+
+    // Committed records in the file, used to decide when to compact
+    private int committedCount;
+
+    /**
+     * @param path Journal file
+     */
+    public ChangeJournal(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Opens the journal for appending and returns the entries to replay.
+     * Creates the file if it does not exist and cuts off a torn record at the end.
+     * @param snapshotSequence Last sequence number already contained in the snapshot
+     * @return Committed entries newer than the snapshot, in order
+     */
+    public synchronized List<Entry> open(long snapshotSequence) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        Scan scan = scan(snapshotSequence, entries);
+        sequence = Math.max(snapshotSequence, scan.lastSequence());
+        committedCount = scan.records();
+        long validLength = scan.validLength();
+        TimeGrid configured = TimeGrid.configured();
+        if (scan.grid() != null && !scan.grid().equals(configured)) {
+            if (!configured.refines(scan.grid())) {
+                throw new IOException(path + ": " + configured.lossMessage(scan.grid()));
+            }
+            // Written on a coarser grid: keep only the entries to replay, on the configured grid
+            rewrite(entries);
+            committedCount = entries.size();
+            validLength = Files.size(path);
+        }
+
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (channel.size() == 0) {
+            channel.write(fileHeader());
+            channel.force(true);
+        }
+        channel.truncate(validLength);
+        channel.position(validLength);
+        return entries;
+    }
+
+    /**
+     * Reads the committed entries without opening the journal for appending
+     * @param snapshotSequence Last sequence number already contained in the snapshot
+     * @return Committed entries newer than the snapshot, in order
+     */
+    public synchronized List<Entry> read(long snapshotSequence) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        scan(snapshotSequence, entries);
+        return entries;
+    }
+
+    /**
+     * Records an actor appended to the roster
+     * @param actor Added actor
+     */
+    public synchronized void appendAdd(Actor actor) {
+        append(ADD_ACTOR, 0, actor.getAvailability(), actor, actor.getExceptions());
+    }
+
+    /**
+     * Records an actor removed from the roster, with the last actor moved into its position
+     * @param position Roster position of the removed actor
+     */
+    public synchronized void appendRemove(int position) {
+        append(REMOVE_ACTOR, position, null, null, null);
+    }
+
+    /**
+     * Records new name and contact details of an actor
+     * @param position Roster position of the actor
+     * @param actor Actor with the new details
+     */
+    public synchronized void appendUpdate(int position, Actor actor) {
+        append(UPDATE_ACTOR, position, null, actor, null);
+    }
+
+    /**
+     * Records an availability change
+     * @param position Roster position of the actor
+     * @param availability New weekly availability
+     */
+    public synchronized void appendSetAvailability(int position, SlotMask availability) {
+        append(SET_AVAILABILITY, position, availability, null, null);
+    }
+
+    /**
+     * Records a change of date exceptions
+     * @param position Roster position of the actor
+     * @param exceptions New date exceptions
+     */
+    public synchronized void appendSetExceptions(int position, AvailabilityExceptions exceptions) {
+        append(SET_EXCEPTIONS, position, null, null, exceptions);
+    }
+
+    /**
+     * Appends all buffered records to the journal file and forces them to disk.
+     * @return Number of records committed
+     */
+    public synchronized int commit() throws IOException {
+        if (channel == null) {
+            throw new IOException("Journal is not open: " + path);
+        }
+        int count = pendingCount;
+        if (count > 0) {
+            ByteBuffer buffer = ByteBuffer.wrap(pending.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+            PlannerMetrics.countBytesWritten(buffer.capacity());
+            pending.reset();
+            pendingCount = 0;
+            committedCount += count;
+        }
+        return count;
+    }
+
+    /**
+     * @return Last sequence number handed out, i.e. the state of the in-memory roster
+     */
+    public synchronized long sequence() {
+        return sequence;
+    }
+
+    /**
+     * @return Number of committed records in the journal file
+     */
+    public synchronized int committedCount() {
+        return committedCount;
+    }
+
+    /**
+     * Drops the records that a new snapshot already contains. The remaining committed records are
+     * written to a temporary file that atomically replaces the journal; records not committed yet
+     * are dropped from memory, since the snapshot may have been captured before they were committed.
+     * @param snapshotSequence Last sequence number contained in the new snapshot
+     */
+    public synchronized void truncateThrough(long snapshotSequence) throws IOException {
+        discardPendingThrough(snapshotSequence);
+        if (channel == null) {
+            return;
+        }
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        int kept = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)));
+             FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            TimeGrid grid = readHeader(in);
+            out.write(fileHeader());
+            byte[] payload;
+            while ((payload = readRecord(in)) != null) {
+                if (decode(payload, grid).sequence() > snapshotSequence) {
+                    out.write(frame(payload));
+                    kept++;
+                }
+            }
+            out.force(true);
+        }
+        channel.close();
+        // Commits after this only force the new file, so the rename must be on disk first
+        DurableFiles.replace(temp, path);
+        channel = FileChannel.open(path, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        committedCount = kept;
+    }
+
+    /**
+     * Closes the journal file. Records that were not committed are discarded.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * Drops the records appended since the last commit, e.g. once a snapshot contains them
+     */
+    public synchronized void discardPending() {
+        pending.reset();
+        pendingCount = 0;
+    }
+
+    // Drops the records not committed yet up to a sequence number; their sequence numbers run up to the last one handed out
+    private void discardPendingThrough(long snapshotSequence) throws IOException {
+        if (sequence - pendingCount >= snapshotSequence) {
+            return;
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(pending.toByteArray()));
+        pending.reset();
+        pendingCount = 0;
+        byte[] payload;
+        while ((payload = readRecord(in)) != null) {
+            if (decode(payload, TimeGrid.configured()).sequence() > snapshotSequence) {
+                ByteBuffer framed = frame(payload);
+                pending.write(framed.array(), 0, framed.limit());
+                pendingCount++;
+            }
+        }
+    }
+
+    /**
+     * Record representing the committed part of the journal file
+     * @param validLength Length of the file up to the last complete record
+     * @param records Number of complete records
+     * @param lastSequence Highest sequence number in the file, 0 if empty
+     * @param grid Time grid the file was written on, null if the file is empty
+     */
+    private record Scan(long validLength, int records, long lastSequence, TimeGrid grid) { }
+
+    // Reads all complete records, collecting those newer than the snapshot
+    private Scan scan(long snapshotSequence, List<Entry> entries) throws IOException {
+        long validLength = FILE_HEADER_SIZE;
+        int records = 0;
+        long lastSequence = 0;
+        TimeGrid grid = null;
+        if (Files.exists(path) && Files.size(path) > 0) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+                grid = readHeader(in);
+                byte[] payload;
+                while ((payload = readRecord(in)) != null) {
+                    Entry entry = decode(payload, grid);
+                    validLength += 2 * Integer.BYTES + payload.length;
+                    records++;
+                    lastSequence = Math.max(lastSequence, entry.sequence());
+                    if (entry.sequence() > snapshotSequence) {
+                        entries.add(entry);
+                    }
+                }
+            }
+        }
+        return new Scan(validLength, records, lastSequence, grid);
+    }
+
+    // Replaces the journal file with the given entries in the current format
+    private void rewrite(List<Entry> entries) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            out.write(fileHeader());
+            for (Entry entry : entries) {
+                out.write(frame(encode(entry)));
+            }
+            out.force(true);
+        }
+        DurableFiles.replace(temp, path);
+    }
+
+    // Encodes a record into the pending batch
+    private void append(byte type, int position, SlotMask availability, Actor actor, AvailabilityExceptions exceptions) {
+        Entry entry = actor == null ? new Entry(++sequence, type, position, availability, null, null, null, null, 0, exceptions)
+                : new Entry(++sequence, type, position, availability,
+                        actor.getFirstName(), actor.getLastName(), actor.getEmail(), actor.getPhone(), actor.getId(), exceptions);
+        ByteBuffer framed = frame(encode(entry));
+        pending.write(framed.array(), 0, framed.limit());
+        pendingCount++;
+    }
+
+    // Payload of a record: sequence, type, position, availability words (count: short, then the words),
+    // actor details and date exceptions
+    private static byte[] encode(Entry entry) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeLong(entry.sequence());
+            out.writeByte(entry.type());
+            out.writeInt(entry.position());
+            SlotMask availability = entry.availability();
+            out.writeShort(availability == null ? 0 : availability.wordCount());
+            for (int w = 0; availability != null && w < availability.wordCount(); w++) {
+                out.writeLong(availability.word(w));
+            }
+            if (entry.type() == ADD_ACTOR || entry.type() == UPDATE_ACTOR) {
+                out.writeUTF(entry.firstName());
+                out.writeUTF(entry.lastName());
+                out.writeUTF(entry.email());
+                out.writeUTF(entry.phone());
+            }
+            if (entry.type() == ADD_ACTOR) {
+                out.writeInt(entry.actorId());
+            }
+            if (entry.type() == ADD_ACTOR || entry.type() == SET_EXCEPTIONS) {
+                entry.exceptions().writeTo(out);
+            }
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not encode journal record", e); // In-memory streams do not fail
+        }
+    }
+
+    private static ByteBuffer fileHeader() {
+        TimeGrid grid = TimeGrid.configured();
+        return ByteBuffer.allocate(FILE_HEADER_SIZE).putInt(MAGIC).putInt(VERSION)
+                .putInt(grid.startMinute()).putInt(grid.slotMinutes()).putInt(grid.slotsPerDay()).flip();
+    }
+
+    // Checks the file header and returns the time grid the records were written on
+    private TimeGrid readHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a RehearsalPlanner journal: " + path);
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported journal version: " + version);
+        }
+        try {
+            return TimeGrid.of(in.readInt(), in.readInt(), in.readInt());
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupt journal time grid in " + path + ": " + e.getMessage());
+        }
+    }
+
+    // Adds the length and checksum in front of a payload
+    private static ByteBuffer frame(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return ByteBuffer.allocate(2 * Integer.BYTES + payload.length)
+                .putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+    }
+
+    // Reads the next complete record, or null at the end of the file or at a torn or corrupt record
+    private static byte[] readRecord(DataInputStream in) throws IOException {
+        try {
+            int length = in.readInt();
+            int checksum = in.readInt();
+            if (length <= 0 || length > 1 << 20) {
+                return null;
+            }
+            byte[] payload = in.readNBytes(length);
+            if (payload.length != length) {
+                return null;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            return (int) crc.getValue() == checksum ? payload : null;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    // Decodes a record, converting its availability and date exceptions to the configured grid; fails if that would lose slots
+    private static Entry decode(byte[] payload, TimeGrid grid) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        long sequence = in.readLong();
+        byte type = in.readByte();
+        int position = in.readInt();
+        int words = in.readUnsignedShort();
+        long[] availabilityWords = new long[words];
+        for (int w = 0; w < words; w++) {
+            availabilityWords[w] = in.readLong();
+        }
+        SlotMask availability = null;
+        if (type == ADD_ACTOR || type == SET_AVAILABILITY) {
+            try {
+                availability = TimeGrid.configured().convertExactly(SlotMask.of(grid.slotsPerWeek(), availabilityWords), grid);
+            } catch (IllegalArgumentException e) {
+                throw new IOException(e.getMessage());
+            }
+        }
+        if (type == ADD_ACTOR || type == UPDATE_ACTOR) {
+            String firstName = in.readUTF();
+            String lastName = in.readUTF();
+            String email = in.readUTF();
+            String phone = in.readUTF();
+            int actorId = type == ADD_ACTOR ? in.readInt() : 0;
+            AvailabilityExceptions exceptions = type == ADD_ACTOR ? AvailabilityExceptions.readFrom(in, grid) : null;
+            return new Entry(sequence, type, position, availability, firstName, lastName, email, phone, actorId, exceptions);
+        }
+        AvailabilityExceptions exceptions = type == SET_EXCEPTIONS ? AvailabilityExceptions.readFrom(in, grid) : null;
+        return new Entry(sequence, type, position, availability, null, null, null, null, 0, exceptions);
+    }
+}
@@ -0,0 +1,690 @@
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Struct-of-arrays store for the actor roster, an alternative to keeping every actor's details
+ * and availability in objects of its own (see {@link Schedule#STORE_PROPERTY}).
+ * <p>
+ * Row r holds the actor at roster position r in columns: a primitive id column, first and last
+ * names as codes into one dictionary shared by both columns (a name used by thousands of actors is
+ * stored once), emails and phone numbers as UTF-8 bytes packed into one array per column, the weekly
+ * availability packed into one long array with a fixed number of words per row, and the date exceptions.
+ * The availability column can be kept off the heap instead, in an {@link AvailabilityMatrix} that may be
+ * mapped from a file, in which case actors read and write their availability there directly. A mapped
+ * file keeps its rows across restarts: when the restored roster matches the state the file was last synced
+ * at (see {@link #synced(long)}), the rows are kept instead of being written again.
+ * <p>
+ * Actors on the roster stay the objects callers already hold, but only as lightweight views: their own
+ * fields are cleared when they move into the store, their getters and setters go to their row, and
+ * their data is moved back into their fields when they leave it. Rows follow the roster's swap removal,
+ * so the row of an actor is always its roster position.
+ */
+public class ColumnarRoster {
+    // Heap bytes of an actor object without its strings and masks: header, fields and padding
+    public static final long ACTOR_OBJECT_BYTES = 56;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    // Guards the columns and the rows of the actors. Taken last: after actor monitors and the roster lock
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Availability words per row
+    private final int words = SlotMask.wordCount(Actor.SLOTS_PER_WEEK);
+
+    private int size;
+    private Actor[] actors = new Actor[INITIAL_CAPACITY]; // View of each row
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private int[] firstNames = new int[INITIAL_CAPACITY]; // Codes into names
+    private int[] lastNames = new int[INITIAL_CAPACITY];
+    private Dictionary names = new Dictionary();
+    private TextColumn emails = new TextColumn(INITIAL_CAPACITY);
+    private TextColumn phones = new TextColumn(INITIAL_CAPACITY);
+    private long[] availability; // Row r in words r * words .. r * words + words - 1; null if off the heap
+    private final AvailabilityMatrix offHeapAvailability; // Row r for roster position r; null if on the heap
+    private AvailabilityExceptions[] exceptions = new AvailabilityExceptions[INITIAL_CAPACITY]; // null if none
+
+    // Rows of a mapped availability file kept by clearKeepingRows, which the actors added next take their availability from
+    private int keptRows;
+
+    /**
+     * Record representing the data of an actor as it moves into or out of the store
+     * @param firstName First name
+     * @param lastName Last name
+     * @param email Contact email address
+     * @param phone Contact phone number
+     * @param availability Weekly availability
+     * @param exceptions Date exceptions
+     */
+    public record Details(String firstName, String lastName, String email, String phone,
+                          SlotMask availability, AvailabilityExceptions exceptions) { }
+
+    /**
+     * Creates an empty store with every column on the heap
+     */
+    public ColumnarRoster() {
+        availability = new long[INITIAL_CAPACITY * words];
+        offHeapAvailability = null;
+    }
+
+    /**
+     * Creates an empty store keeping the availability column off the heap
+     * @param availability Matrix for the availability column, with as many words per row as a week's mask;
+     *                     owned by the store from now on and closed with it. The rows of a mapped file are
+     *                     left as they are until the store is cleared or keeps them (see {@link #clearKeepingRows}).
+     * @throws IllegalArgumentException if the rows of the matrix do not fit a week's mask
+     */
+    public ColumnarRoster(AvailabilityMatrix availability) {
+        if (availability.words() != words) {
+            throw new IllegalArgumentException("Availability matrix has " + availability.words() + " words per row, expected " + words);
+        }
+        if (availability.rows() < INITIAL_CAPACITY) {
+            availability.resize(INITIAL_CAPACITY, words);
+        }
+        offHeapAvailability = availability;
+    }
+
+    /**
+     * @return true if the availability column is kept off the heap
+     */
+    public boolean isOffHeap() { return offHeapAvailability != null; }
+
+    /**
+     * @return Bytes of the availability column off the heap, including unused capacity
+     */
+    public long offHeapBytes() {
+        lock.readLock().lock();
+        try {
+            return offHeapAvailability == null ? 0 : offHeapAvailability.sizeInBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Moves the data of every row back into its actor and frees the off-heap availability column, or
+     * unmaps its file, which keeps the rows as they were; the store must not be used afterwards
+     */
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            for (int row = 0; row < size; row++) {
+                actors[row].moveOut(details(row));
+                actors[row] = null;
+            }
+            size = 0;
+            if (offHeapAvailability != null) {
+                offHeapAvailability.close();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return Number of rows, matching the roster size
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Moves an actor's data into a new row at the end of the store; the actor becomes a view of the row
+     * @param actor Actor that is not on any columnar roster
+     */
+    public void add(Actor actor) {
+        lock.writeLock().lock();
+        try {
+            ensureCapacity(size + 1);
+            int row = size++;
+            actors[row] = actor;
+            ids[row] = actor.getId();
+            // From here on the actor's edits come to the store and wait for the lock
+            Details details = actor.moveInto(this, row);
+            write(row, details, row >= keptRows);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Moves the data of a row back into its actor and moves the last row into its place,
+     * matching the swap removal of the roster
+     * @param row Row to remove
+     */
+    public void swapRemove(int row) {
+        lock.writeLock().lock();
+        try {
+            actors[row].moveOut(details(row));
+            keptRows = 0;
+            emails.release(row);
+            phones.release(row);
+            int last = --size;
+            if (row != last) {
+                actors[row] = actors[last];
+                ids[row] = ids[last];
+                firstNames[row] = firstNames[last];
+                lastNames[row] = lastNames[last];
+                emails.move(last, row);
+                phones.move(last, row);
+                if (offHeapAvailability != null) {
+                    offHeapAvailability.copyRow(last, row);
+                } else {
+                    System.arraycopy(availability, last * words, availability, row * words, words);
+                }
+                exceptions[row] = exceptions[last];
+                actors[row].moveToRow(row);
+            }
+            actors[last] = null;
+            exceptions[last] = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Moves the data of every row back into its actor and empties the store
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            reset(INITIAL_CAPACITY);
+            if (offHeapAvailability != null) {
+                offHeapAvailability.resize(INITIAL_CAPACITY, words);
+                offHeapAvailability.clear();
+            } else {
+                availability = new long[INITIAL_CAPACITY * words];
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Empties the store like {@link #clear()}, but keeps the rows of a mapped availability file if it was last
+     * synced at the given state, so the actors of a restored roster take their availability from the file instead
+     * of having it written again. Otherwise the store is cleared.
+     * @param sequence Change journal sequence of the restored roster
+     * @param rows Number of actors of the restored roster, added next in their roster order
+     * @return true if the rows of the file are kept
+     */
+    public boolean clearKeepingRows(long sequence, int rows) {
+        lock.writeLock().lock();
+        try {
+            if (offHeapAvailability == null || offHeapAvailability.syncedSequence() != sequence
+                    || offHeapAvailability.rowsInUse() != rows) {
+                clear();
+                return false;
+            }
+            reset(Math.max(INITIAL_CAPACITY, offHeapAvailability.rows()));
+            keptRows = rows;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Records that the rows match a durable state, e.g. after the change journal was committed, so a mapped
+     * availability file can be kept on the next restore (see {@link #clearKeepingRows}). Called with the
+     * roster's edits held, so the rows match the sequence.
+     * @param sequence Change journal sequence the rows match
+     */
+    public void synced(long sequence) {
+        lock.writeLock().lock();
+        try {
+            if (offHeapAvailability != null && offHeapAvailability.isMapped()) {
+                offHeapAvailability.markSynced(sequence, size);
+            }
+        } catch (UncheckedIOException e) {
+            System.out.println("Error syncing the availability matrix file: " + e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param actor Actor to look up
+     * @return Row of the actor, or -1 if the actor is not in the store
+     */
+    public int rowOf(Actor actor) {
+        lock.readLock().lock();
+        try {
+            return row(actor);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param row Row of an actor
+     * @return Id of the actor in the row, read from the primitive id column
+     */
+    public int idAt(int row) {
+        lock.readLock().lock();
+        try {
+            return ids[row];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param actor Actor to read
+     * @return First name of the actor, or null if the actor is not in the store
+     */
+    public String firstName(Actor actor) {
+        lock.readLock().lock();
+        try {
+            int row = row(actor);
+            return row < 0 ? null : names.decode(firstNames[row]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param actor Actor to read
+     * @return Last name of the actor, or null if the actor is not in the store
+     */
+    public String lastName(Actor actor) {
+        lock.readLock().lock();
+        try {
+            int row = row(actor);
+            return row < 0 ? null : names.decode(lastNames[row]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param actor Actor to read
+     * @return Email of the actor, or null if the actor is not in the store
+     */
+    public String email(Actor actor) {
+        lock.readLock().lock();
+        try {
+            int row = row(actor);
+            return row < 0 ? null : emails.get(row);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param actor Actor to read
+     * @return Phone number of the actor, or null if the actor is not in the store
+     */
+    public String phone(Actor actor) {
+        lock.readLock().lock();
+        try {
+            int row = row(actor);
+            return row < 0 ? null : phones.get(row);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param actor Actor to read
+     * @return Weekly availability of the actor, or null if the actor is not in the store
+     */
+    public SlotMask availability(Actor actor) {
+        lock.readLock().lock();
+        try {
+            int row = row(actor);
+            return row < 0 ? null : readAvailability(row);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param actor Actor to read
+     * @return Date exceptions of the actor, or null if the actor is not in the store
+     */
+    public AvailabilityExceptions exceptions(Actor actor) {
+        lock.readLock().lock();
+        try {
+            int row = row(actor);
+            return row < 0 ? null : exceptions[row] == null ? AvailabilityExceptions.NONE : exceptions[row];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param actor Actor to update
+     * @param firstName New first name
+     * @param lastName New last name
+     * @param email New email
+     * @param phone New phone number
+     * @return false if the actor is not in the store
+     */
+    public boolean setDetails(Actor actor, String firstName, String lastName, String email, String phone) {
+        lock.writeLock().lock();
+        try {
+            int row = row(actor);
+            if (row < 0) {
+                return false;
+            }
+            firstNames[row] = names.encode(firstName);
+            lastNames[row] = names.encode(lastName);
+            emails.set(row, email, size);
+            phones.set(row, phone, size);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param actor Actor to update
+     * @param availability New weekly availability
+     * @return false if the actor is not in the store
+     */
+    public boolean setAvailability(Actor actor, SlotMask availability) {
+        lock.writeLock().lock();
+        try {
+            int row = row(actor);
+            if (row < 0) {
+                return false;
+            }
+            writeAvailability(row, availability);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param actor Actor to update
+     * @param exceptions New date exceptions
+     * @return false if the actor is not in the store
+     */
+    public boolean setExceptions(Actor actor, AvailabilityExceptions exceptions) {
+        lock.writeLock().lock();
+        try {
+            int row = row(actor);
+            if (row < 0) {
+                return false;
+            }
+            this.exceptions[row] = exceptions.isEmpty() ? null : exceptions;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return Estimated heap bytes of the columns and the name dictionary, including unused capacity;
+     *         the actor objects viewing the rows and an off-heap availability column (see {@link #offHeapBytes()})
+     *         are not included (see {@link Actor#sizeInBytes()})
+     */
+    public long sizeInBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 4 * (16 + (long) actors.length * Integer.BYTES) // actors, ids, firstNames, lastNames
+                    + (availability == null ? 0 : 16 + (long) availability.length * Long.BYTES)
+                    + 16 + (long) exceptions.length * Integer.BYTES
+                    + names.sizeInBytes() + emails.sizeInBytes() + phones.sizeInBytes();
+            for (int row = 0; row < size; row++) {
+                bytes += exceptions[row] == null ? 0 : exceptions[row].sizeInBytes();
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return Estimated heap bytes the same actors would take as actor objects with their own strings and masks
+     */
+    public long objectModelBytes() {
+        lock.readLock().lock();
+        try {
+            long maskBytes = TimeGrid.configured().emptyWeek().sizeInBytes();
+            long bytes = 0;
+            for (int row = 0; row < size; row++) {
+                bytes += ACTOR_OBJECT_BYTES + maskBytes
+                        + stringBytes(names.length(firstNames[row])) + stringBytes(names.length(lastNames[row]))
+                        + stringBytes(emails.length(row)) + stringBytes(phones.length(row))
+                        + (exceptions[row] == null ? 0 : exceptions[row].sizeInBytes());
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param length Characters of a string with only Latin-1 characters, or -1 for null
+     * @return Estimated heap bytes of the string: the object and its byte array
+     */
+    public static long stringBytes(int length) {
+        return length < 0 ? 0 : 24 + ((16 + length + 7) & ~7);
+    }
+
+    // Row of an actor, or -1 if it is not in the store; called with the lock held
+    private int row(Actor actor) {
+        int row = actor.storeRow();
+        return row >= 0 && row < size && actors[row] == actor ? row : -1;
+    }
+
+    // Fills a row with an actor's data; called with the write lock held
+    // Writes a row, leaving the availability to a kept row of a mapped file unless asked to write it
+    private void write(int row, Details details, boolean writeAvailability) {
+        firstNames[row] = names.encode(details.firstName());
+        lastNames[row] = names.encode(details.lastName());
+        emails.set(row, details.email(), size);
+        phones.set(row, details.phone(), size);
+        if (writeAvailability) {
+            writeAvailability(row, details.availability());
+        }
+        exceptions[row] = details.exceptions().isEmpty() ? null : details.exceptions();
+    }
+
+    // Data of a row; called with the lock held
+    private Details details(int row) {
+        return new Details(names.decode(firstNames[row]), names.decode(lastNames[row]), emails.get(row), phones.get(row),
+                readAvailability(row),
+                exceptions[row] == null ? AvailabilityExceptions.NONE : exceptions[row]);
+    }
+
+    // Weekly availability of a row; called with the lock held
+    private SlotMask readAvailability(int row) {
+        return offHeapAvailability != null ? offHeapAvailability.row(row, Actor.SLOTS_PER_WEEK)
+                : SlotMask.wrap(Actor.SLOTS_PER_WEEK, Arrays.copyOfRange(availability, row * words, row * words + words));
+    }
+
+    // Writes the weekly availability of a row; called with the write lock held
+    private void writeAvailability(int row, SlotMask mask) {
+        if (offHeapAvailability != null) {
+            offHeapAvailability.setRow(row, mask);
+            return;
+        }
+        for (int w = 0; w < words; w++) {
+            availability[row * words + w] = mask.word(w);
+        }
+    }
+
+    // Moves the data of every row back into its actor and empties every column but the availability; called with
+    // the write lock held
+    private void reset(int capacity) {
+        for (int row = 0; row < size; row++) {
+            actors[row].moveOut(details(row));
+        }
+        size = 0;
+        keptRows = 0;
+        actors = new Actor[capacity];
+        ids = new int[capacity];
+        firstNames = new int[capacity];
+        lastNames = new int[capacity];
+        names = new Dictionary();
+        emails = new TextColumn(capacity);
+        phones = new TextColumn(capacity);
+        exceptions = new AvailabilityExceptions[capacity];
+    }
+
+    // Grows the columns so they can hold the given number of rows
+    private void ensureCapacity(int rows) {
+        if (rows <= actors.length) {
+            return;
+        }
+        int capacity = Math.max(rows, actors.length * 2);
+        actors = Arrays.copyOf(actors, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        firstNames = Arrays.copyOf(firstNames, capacity);
+        lastNames = Arrays.copyOf(lastNames, capacity);
+        emails.grow(capacity);
+        phones.grow(capacity);
+        if (offHeapAvailability != null) {
+            // A mapped matrix may already hold more rows, kept from its file
+            if (offHeapAvailability.rows() < capacity) {
+                offHeapAvailability.resize(capacity, words);
+            }
+        } else {
+            availability = Arrays.copyOf(availability, capacity * words);
+        }
+        exceptions = Arrays.copyOf(exceptions, capacity);
+    }
+
+    /**
+     * Distinct strings of a column, each stored once and addressed by its code.
+     * Codes are never reused, so the dictionary only grows until the store is cleared.
+     */
+    private static final class Dictionary {
+        private String[] values = new String[INITIAL_CAPACITY];
+        private final Map<String, Integer> codes = new HashMap<>();
+
+        // Code of a string, adding it if it is new; -1 for null
+        int encode(String value) {
+            if (value == null) {
+                return -1;
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = codes.size();
+                if (code == values.length) {
+                    values = Arrays.copyOf(values, values.length * 2);
+                }
+                values[code] = value;
+                codes.put(value, code);
+            }
+            return code;
+        }
+
+        String decode(int code) {
+            return code < 0 ? null : values[code];
+        }
+
+        // Characters of the string with a code, -1 for null
+        int length(int code) {
+            return code < 0 ? -1 : values[code].length();
+        }
+
+        // Array, strings and hash entries (node, boxed code and table slot)
+        long sizeInBytes() {
+            long bytes = 16 + (long) values.length * Integer.BYTES;
+            for (int code = 0; code < codes.size(); code++) {
+                bytes += stringBytes(values[code].length()) + 32 + 16 + 8;
+            }
+            return bytes;
+        }
+    }
+
+    /**
+     * Strings of a column packed as UTF-8 bytes into one array. Replaced and removed values are
+     * left in place and reclaimed by rewriting the live values once they make up half of the array.
+     */
+    private static final class TextColumn {
+        private byte[] data = new byte[256];
+        private int used;     // Bytes appended so far
+        private int garbage;  // Bytes of values that were replaced or removed
+        private long[] spans; // Per row: offset << 32 | (length + 1), 0 for null
+
+        TextColumn(int capacity) {
+            spans = new long[capacity];
+        }
+
+        void grow(int capacity) {
+            spans = Arrays.copyOf(spans, capacity);
+        }
+
+        String get(int row) {
+            long span = spans[row];
+            return span == 0 ? null : new String(data, (int) (span >>> 32), (int) span - 1, StandardCharsets.UTF_8);
+        }
+
+        // Bytes of the value in a row, -1 for null
+        int length(int row) {
+            return (int) spans[row] - 1;
+        }
+
+        // Replaces the value of a row; rows is the number of rows in use, which are kept when compacting
+        void set(int row, String value, int rows) {
+            release(row);
+            if (value == null) {
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (used + bytes.length > data.length) {
+                compact(rows, bytes.length);
+            }
+            System.arraycopy(bytes, 0, data, used, bytes.length);
+            spans[row] = ((long) used << 32) | (bytes.length + 1);
+            used += bytes.length;
+        }
+
+        // Marks the value of a row as garbage
+        void release(int row) {
+            garbage += Math.max(0, length(row));
+            spans[row] = 0;
+        }
+
+        // Moves the value of a row to another row
+        void move(int from, int to) {
+            spans[to] = spans[from];
+            spans[from] = 0;
+        }
+
+        // Makes room for more bytes: drops the garbage once it is half of the bytes appended, otherwise grows the array
+        private void compact(int rows, int needed) {
+            int live = garbage * 2 >= used ? used - garbage : used;
+            int capacity = data.length;
+            while (capacity < live + needed) {
+                capacity *= 2;
+            }
+            if (live == used) {
+                data = Arrays.copyOf(data, capacity);
+                return;
+            }
+            byte[] compacted = new byte[capacity];
+            int offset = 0;
+            for (int row = 0; row < rows; row++) {
+                int length = length(row);
+                if (length >= 0) {
+                    System.arraycopy(data, (int) (spans[row] >>> 32), compacted, offset, length);
+                    spans[row] = ((long) offset << 32) | (length + 1);
+                    offset += length;
+                }
+            }
+            data = compacted;
+            used = offset;
+            garbage = 0;
+        }
+
+        long sizeInBytes() {
+            return 16 + data.length + 16 + (long) spans.length * Long.BYTES;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+
+/**
+ * Scheduling conflict engine.
+ * Checks groups of actors that have to rehearse together (e.g. the cast of a scene)
+ * against their word-packed availability masks. Each group costs one bitwise AND per member and
+ * mask word, and groups are split across a fork-join pool so large festival rosters stay fast.
+ */
+public class ConflictDetector {
+    // Groups handled by a single task before the work is split further
+    private static final int GROUPS_PER_TASK = 64;
+
+    /**
+     * Record representing actors that have to be called together
+     * @param name Display name of the group (e.g. a scene title)
+     * @param members Actors required in the group
+     * @param requiredCalls Weekly slots the group is called for, empty if it has no fixed calls
+     */
+    public record ActorGroup(String name, List<Actor> members, SlotMask requiredCalls) { }
+
+    /**
+     * Record representing a required call that some members cannot attend
+     * @param group Group that was called
+     * @param day Day index (0 = Monday, 6 = Sunday)
+     * @param slot Time slot index within the day
+     * @param unavailableActors Members who are not available at the call
+     */
+    public record CallConflict(ActorGroup group, int day, int slot, List<Actor> unavailableActors) { }
+
+    /**
+     * Record representing an actor that keeps groups from being scheduled
+     * @param actor Blocking actor
+     * @param blockedGroups Number of groups the actor blocks
+     */
+    public record Blocker(Actor actor, int blockedGroups) { }
+
+    /**
+     * Record representing the result of a conflict check
+     * @param callConflicts Every required call with at least one unavailable member
+     * @param groupsWithoutCommonSlot Groups whose members share no free slot in the week
+     * @param blockers Actors ordered by the number of groups they block, most first
+     */
+    public record Report(List<CallConflict> callConflicts, List<ActorGroup> groupsWithoutCommonSlot, List<Blocker> blockers) {
+        /**
+         * @return true if no conflicts were found
+         */
+        public boolean isEmpty() {
+            return callConflicts.isEmpty() && groupsWithoutCommonSlot.isEmpty();
+        }
+    }
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a detector running on the common fork-join pool
+     */
+    public ConflictDetector() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a detector running on the given pool
+     * @param pool Pool used to check groups in parallel
+     */
+    public ConflictDetector(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Checks all groups for conflicts.
+     * An actor blocks a group when they miss one of its required calls, or when the group
+     * has no common free slot but the other members would have one without them.
+     * @param groups Groups to check
+     * @param maxBlockers Maximum number of blockers to report
+     * @return Conflict report
+     */
+    public Report detect(List<ActorGroup> groups, int maxBlockers) {
+        return detect(groups, maxBlockers, Actor::getAvailability);
+    }
+
+    /**
+     * Checks all groups for conflicts, with the members' availability taken from the given source,
+     * e.g. a view of the roster at one version
+     * @param groups Groups to check
+     * @param maxBlockers Maximum number of blockers to report
+     * @param availability Weekly availability of each member
+     * @return Conflict report
+     */
+    public Report detect(List<ActorGroup> groups, int maxBlockers, Function<Actor, SlotMask> availability) {
+        PartialReport result = pool.invoke(new GroupTask(groups, 0, groups.size(), availability));
+
+        List<Blocker> blockers = new ArrayList<>(result.blockCounts.size());
+        for (Map.Entry<Actor, Integer> entry : result.blockCounts.entrySet()) {
+            blockers.add(new Blocker(entry.getKey(), entry.getValue()));
+        }
+        blockers.sort(Comparator.comparingInt(Blocker::blockedGroups).reversed()
+                .thenComparingInt(blocker -> blocker.actor().getId()));
+        if (blockers.size() > maxBlockers) {
+            blockers = new ArrayList<>(blockers.subList(0, maxBlockers));
+        }
+        return new Report(result.callConflicts, result.groupsWithoutCommonSlot, blockers);
+    }
+
+    /**
+     * Checks a single group and adds its conflicts to the partial result
+     * @param group Group to check
+     * @param source Weekly availability of each member
+     * @param result Partial result to add to
+     */
+    private static void checkGroup(ActorGroup group, Function<Actor, SlotMask> source, PartialReport result) {
+        List<Actor> members = group.members();
+        int size = members.size();
+        if (size == 0) {
+            return;
+        }
+
+        // One consistent mask per member, even if availability is edited meanwhile
+        SlotMask[] availability = new SlotMask[size];
+        for (int i = 0; i < size; i++) {
+            availability[i] = source.apply(members.get(i));
+        }
+
+        // Words i * words .. i * words + words - 1 of suffix are the AND of the availability of members i..size-1
+        SlotMask week = TimeGrid.configured().fullWeek();
+        int words = week.wordCount();
+        long[] suffix = new long[(size + 1) * words];
+        for (int w = 0; w < words; w++) {
+            suffix[size * words + w] = week.word(w);
+        }
+        for (int i = size - 1; i >= 0; i--) {
+            for (int w = 0; w < words; w++) {
+                suffix[i * words + w] = suffix[(i + 1) * words + w] & availability[i].word(w);
+            }
+        }
+
+        // Members missing a required call
+        SlotMask calls = group.requiredCalls();
+        Set<Actor> blocking = new HashSet<>();
+        boolean hasCommonSlot = false;
+        for (int w = 0; w < words; w++) {
+            long common = suffix[w];
+            hasCommonSlot |= common != 0;
+            long missedCalls = calls.word(w) & ~common;
+            while (missedCalls != 0) {
+                int slot = (w << 6) + Long.numberOfTrailingZeros(missedCalls);
+                List<Actor> unavailable = new ArrayList<>();
+                for (int i = 0; i < size; i++) {
+                    if (!availability[i].get(slot)) {
+                        unavailable.add(members.get(i));
+                        blocking.add(members.get(i));
+                    }
+                }
+                result.callConflicts.add(new CallConflict(group, slot / Actor.SLOTS_PER_DAY, slot % Actor.SLOTS_PER_DAY, unavailable));
+                missedCalls &= missedCalls - 1;
+            }
+        }
+
+        // Without a common slot, find the members whose absence would open one
+        if (!hasCommonSlot) {
+            result.groupsWithoutCommonSlot.add(group);
+            long[] prefix = week.toWords();
+            for (int i = 0; i < size; i++) {
+                boolean othersShareSlot = false;
+                for (int w = 0; w < words; w++) {
+                    othersShareSlot |= (prefix[w] & suffix[(i + 1) * words + w]) != 0;
+                    prefix[w] &= availability[i].word(w);
+                }
+                if (othersShareSlot) {
+                    blocking.add(members.get(i));
+                }
+            }
+        }
+
+        for (Actor actor : blocking) {
+            result.blockCounts.merge(actor, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Conflicts found in one range of groups
+     */
+    private static class PartialReport {
+        final List<CallConflict> callConflicts = new ArrayList<>();
+        final List<ActorGroup> groupsWithoutCommonSlot = new ArrayList<>();
+        final Map<Actor, Integer> blockCounts = new HashMap<>();
+
+        // Appends a later range so results stay in group order
+        void merge(PartialReport other) {
+            callConflicts.addAll(other.callConflicts);
+            groupsWithoutCommonSlot.addAll(other.groupsWithoutCommonSlot);
+            other.blockCounts.forEach((actor, count) -> blockCounts.merge(actor, count, Integer::sum));
+        }
+    }
+
+    /**
+     * Checks a range of groups, splitting it in half until it is small enough.
+     * Tasks are never serialized, so the serialization warnings of ForkJoinTask do not apply.
+     */
+    @SuppressWarnings("serial")
+    private static class GroupTask extends RecursiveTask<PartialReport> {
+        private final List<ActorGroup> groups;
+        private final int from;
+        private final int to;
+        private final Function<Actor, SlotMask> availability;
+
+        GroupTask(List<ActorGroup> groups, int from, int to, Function<Actor, SlotMask> availability) {
+            this.groups = groups;
+            this.from = from;
+            this.to = to;
+            this.availability = availability;
+        }
+
+        @Override
+        protected PartialReport compute() {
+            if (to - from <= GROUPS_PER_TASK) {
+                PartialReport result = new PartialReport();
+                for (int i = from; i < to; i++) {
+                    checkGroup(groups.get(i), availability, result);
+                }
+                return result;
+            }
+            int middle = (from + to) >>> 1;
+            GroupTask left = new GroupTask(groups, from, middle, availability);
+            left.fork();
+            PartialReport right = new GroupTask(groups, middle, to, availability).compute();
+            PartialReport result = left.join();
+            result.merge(right);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+import java.io.Console;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+
+/**
+ * Buffered console output for rosters, schedules and reports.
+ * Text is collected in one reusable buffer and written to standard output with a single
+ * write per page instead of one println per line. ANSI colours can be switched off,
+ * and long output can be paged when running in an interactive terminal.
+ * <p>
+ * Colour is controlled by the system property {@code rehearsalplanner.color}:
+ * "always", "never" or "auto" (the default: on in an interactive terminal unless NO_COLOR is set).
+ * The page length is set with {@code rehearsalplanner.pageSize}, 0 turns paging off.
+ */
+public class ConsoleRenderer {
+    // ANSI color codes for console output formatting
+    public static final String GREEN = "\u001B[32m";
+    public static final String YELLOW = "\u001B[33m";
+    public static final String RED = "\u001B[31m";
+    public static final String RESET = "\u001B[0m";
+
+    // Lines per page when paging
+    private static final int DEFAULT_PAGE_SIZE = 40;
+
+    // Buffered text is written once it grows past this many characters, even without paging
+    private static final int FLUSH_THRESHOLD = 64 * 1024;
+
+    private static final boolean INTERACTIVE = isTerminal();
+    private static final boolean COLOR_BY_DEFAULT = detectColor();
+
+    // Text of the current page
+    private final StringBuilder buffer = new StringBuilder(FLUSH_THRESHOLD);
+
+    // Reused to hand the buffer to the writer without creating a String
+    private char[] chars = new char[FLUSH_THRESHOLD];
+
+    private final Writer writer = new OutputStreamWriter(System.out, System.out.charset());
+
+    // Source of the answers to the paging prompt, null if output is not paged
+    private final Scanner input;
+    private final int pageSize;
+
+    private boolean colorEnabled = COLOR_BY_DEFAULT;
+
+    // Start of the entry being rendered and lines already shown on the current page
+    private int entryStart;
+    private int pageLines;
+
+    // Set when the user stopped the output at a page prompt
+    private boolean stopped;
+
+    // Start of the current output and time spent waiting at page prompts, for the render metrics
+    private long renderStart;
+    private long promptNanos;
+
+    /**
+     * Creates a renderer that writes without paging
+     */
+    public ConsoleRenderer() {
+        this(null);
+    }
+
+    /**
+     * Creates a renderer that pages long output in an interactive terminal
+     * @param input Scanner reading the answers to the paging prompt, or null for no paging
+     */
+    public ConsoleRenderer(Scanner input) {
+        this.pageSize = Integer.getInteger("rehearsalplanner.pageSize", DEFAULT_PAGE_SIZE);
+        this.input = INTERACTIVE && pageSize > 0 ? input : null;
+    }
+
+    /**
+     * @return true if ANSI colours are used unless a renderer is switched otherwise
+     */
+    public static boolean colorByDefault() { return COLOR_BY_DEFAULT; }
+
+    /**
+     * @return true if this renderer writes ANSI colours
+     */
+    public boolean isColorEnabled() { return colorEnabled; }
+
+    /**
+     * @param colorEnabled true to write ANSI colours, false for plain text
+     */
+    public void setColorEnabled(boolean colorEnabled) { this.colorEnabled = colorEnabled; }
+
+    /**
+     * Starts a colour, if colours are enabled
+     * @param ansiCode One of the colour constants
+     * @return This renderer
+     */
+    public ConsoleRenderer color(String ansiCode) {
+        started();
+        if (colorEnabled) {
+            buffer.append(ansiCode);
+        }
+        return this;
+    }
+
+    /**
+     * Resets the colour, if colours are enabled
+     * @return This renderer
+     */
+    public ConsoleRenderer reset() {
+        return color(RESET);
+    }
+
+    public ConsoleRenderer text(String text) {
+        started();
+        buffer.append(text);
+        return this;
+    }
+
+    public ConsoleRenderer text(char c) {
+        started();
+        buffer.append(c);
+        return this;
+    }
+
+    public ConsoleRenderer number(long number) {
+        started();
+        buffer.append(number);
+        return this;
+    }
+
+    public ConsoleRenderer newLine() {
+        started();
+        buffer.append('\n');
+        return this;
+    }
+
+    /**
+     * Appends an actor's details and weekly availability
+     * @param actor Actor to render
+     * @return This renderer
+     */
+    public ConsoleRenderer actor(Actor actor) {
+        started();
+        actor.appendTo(buffer, colorEnabled);
+        return this;
+    }
+
+    /**
+     * Ends one entry (e.g. an actor or a schedule line). Pages are only broken between entries.
+     * @return false if the user stopped the output, in which case the caller should stop rendering
+     */
+    public boolean endEntry() {
+        if (stopped) {
+            buffer.setLength(entryStart);
+            return false;
+        }
+        for (int i = entryStart, n = buffer.length(); i < n; i++) {
+            if (buffer.charAt(i) == '\n') {
+                pageLines++;
+            }
+        }
+        if (input != null && pageLines >= pageSize) {
+            write();
+            pageLines = 0;
+            long promptStart = System.nanoTime();
+            stopped = !askForMore();
+            promptNanos += System.nanoTime() - promptStart;
+        } else if (buffer.length() >= FLUSH_THRESHOLD) {
+            write();
+        }
+        entryStart = buffer.length();
+        return !stopped;
+    }
+
+    /**
+     * @return true if the user stopped the output at a page prompt
+     */
+    public boolean isStopped() { return stopped; }
+
+    /**
+     * Writes the remaining output and resets paging for the next output
+     */
+    public void finish() {
+        if (stopped) {
+            buffer.setLength(0);
+        }
+        write();
+        entryStart = 0;
+        pageLines = 0;
+        stopped = false;
+        if (renderStart != 0) {
+            PlannerMetrics.RENDER.record(System.nanoTime() - renderStart - promptNanos);
+            renderStart = 0;
+            promptNanos = 0;
+        }
+    }
+
+    // Notes the start of a new output for the render metrics
+    private void started() {
+        if (renderStart == 0) {
+            renderStart = System.nanoTime();
+        }
+    }
+
+    // Writes the buffered text to standard output in one go
+    private void write() {
+        int length = buffer.length();
+        if (length > chars.length) {
+            chars = new char[Math.max(length, chars.length * 2)];
+        }
+        buffer.getChars(0, length, chars, 0);
+        buffer.setLength(0);
+        entryStart = 0;
+        try {
+            writer.write(chars, 0, length);
+            writer.flush();
+        } catch (IOException e) {
+            stopped = true; // Standard output is gone, e.g. a closed pipe
+        }
+    }
+
+    // Shows the paging prompt and reads the answer
+    private boolean askForMore() {
+        try {
+            writer.write("-- More: press Enter to continue or 'q' to stop --");
+            writer.flush();
+            String answer = input.nextLine().trim();
+            return !answer.equalsIgnoreCase("q");
+        } catch (IOException | NoSuchElementException e) {
+            return false;
+        }
+    }
+
+    private static boolean isTerminal() {
+        Console console = System.console();
+        return console != null && console.isTerminal();
+    }
+
+    private static boolean detectColor() {
+        String setting = System.getProperty("rehearsalplanner.color", "auto");
+        return switch (setting) {
+            case "always" -> true;
+            case "never" -> false;
+            default -> INTERACTIVE && System.getenv("NO_COLOR") == null;
+        };
+    }
+}
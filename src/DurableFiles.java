@@ -0,0 +1,41 @@
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Crash-safe replacement of data files: a complete new version is written and forced to a
+ * temporary file, which then takes the place of the old file in one atomic rename. The rename
+ * itself is a change to the directory, so it is forced to disk as well before anything relies on it.
+ */
+public final class DurableFiles {
+    private DurableFiles() { }
+
+    /**
+     * Atomically replaces a file with a temporary file and forces the rename to disk, so after a
+     * crash the file is either the old or the new version, never an older one
+     * @param temp Complete new version, already forced to disk
+     * @param target File to replace
+     */
+    public static void replace(Path temp, Path target) throws IOException {
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        forceDirectory(target.toAbsolutePath().getParent());
+    }
+
+    // Forces the entries of a directory, e.g. a rename, to disk. Where directories cannot be opened
+    // (Windows), renames are journaled by the file system itself and there is nothing to force
+    private static void forceDirectory(Path directory) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (AccessDeniedException e) {
+            return;
+        }
+        try (channel) {
+            channel.force(true);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of latencies for reporting percentiles such as p99, e.g. of HTTP requests.
+ * Latencies are counted in microsecond buckets whose width grows with the value: every power
+ * of two is split into 16 buckets, so reported percentiles are at most 1/16 above the real value.
+ * Recording takes three atomic updates (the bucket, the count and the maximum), without locking,
+ * and can be done from any number of threads.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    // Recorded latencies per bucket, see bucket()
+    private final AtomicLongArray counts = new AtomicLongArray((Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS);
+
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    /**
+     * Record representing latency percentiles
+     * @param count Number of recorded latencies
+     * @param p50Micros Median in microseconds
+     * @param p90Micros 90th percentile in microseconds
+     * @param p99Micros 99th percentile in microseconds
+     * @param maxMicros Highest latency in microseconds
+     */
+    public record Summary(long count, long p50Micros, long p90Micros, long p99Micros, long maxMicros) {
+        @Override
+        public String toString() {
+            return String.format("p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, max %.2f ms",
+                    p50Micros / 1000.0, p90Micros / 1000.0, p99Micros / 1000.0, maxMicros / 1000.0);
+        }
+    }
+
+    /**
+     * Records one latency
+     * @param nanos Latency in nanoseconds
+     */
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        counts.incrementAndGet(bucket(micros));
+        count.incrementAndGet();
+        maxMicros.accumulateAndGet(micros, Math::max);
+    }
+
+    /**
+     * @return Number of recorded latencies
+     */
+    public long count() { return count.get(); }
+
+    /**
+     * @return Highest recorded latency in microseconds, 0 if nothing was recorded
+     */
+    public long maxMicros() { return maxMicros.get(); }
+
+    /**
+     * Computes a percentile from the recorded latencies
+     * @param percentile Percentile between 0 and 100
+     * @return Upper bound of the bucket holding the percentile in microseconds, 0 if nothing was recorded
+     */
+    public long percentileMicros(double percentile) {
+        long total = count.get();
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(upperBound(i), maxMicros.get());
+            }
+        }
+        return maxMicros.get(); // Latencies recorded while counting
+    }
+
+    /**
+     * @return Count, p50, p90, p99 and maximum of the recorded latencies
+     */
+    public Summary summary() {
+        return new Summary(count.get(), percentileMicros(50), percentileMicros(90), percentileMicros(99), maxMicros.get());
+    }
+
+    // Values below SUB_BUCKETS get a bucket each; above, each power of two is split into SUB_BUCKETS buckets
+    private static int bucket(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS;
+        int subBucket = (int) (micros >>> shift) - SUB_BUCKETS;
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    // Highest value counted in a bucket
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long subBucket = bucket % SUB_BUCKETS;
+        return ((SUB_BUCKETS + subBucket + 1) << shift) - 1;
+    }
+}
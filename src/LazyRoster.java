@@ -0,0 +1,143 @@
+import java.nio.MappedByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Weekly availability of the actors of a binary snapshot that was loaded lazily (see
+ * {@link LoadSave#LOAD_PROPERTY}). Only the actors' ids and details are read when the snapshot is
+ * opened; an actor's availability is read from its record in the memory-mapped file the first time
+ * it is asked for and then kept in a least recently used cache, so the masks held in memory are
+ * bounded by the cache size however large the snapshot is.
+ * <p>
+ * The snapshot also holds a bitset of the actors available in each slot, which {@link #slotRecords(int)}
+ * reads so that the roster can be indexed when it is opened without reading every actor's record.
+ * <p>
+ * The cache only holds availability that is still as in the file. An actor whose availability is
+ * edited keeps the new mask in its own field and no longer reads it from here. The mapping stays
+ * valid when the snapshot file is replaced, e.g. by a compaction, since it refers to the old file.
+ */
+public final class LazyRoster {
+    // Mapped snapshot, read with absolute gets only, so it is shared by all threads
+    private final MappedByteBuffer buffer;
+
+    // Position of the first record's availability words and bytes from one record to the next
+    private final int availabilityPosition;
+    private final int recordSize;
+
+    // Position of the bitsets of available records per slot of the snapshot's grid, and words per bitset
+    private final int indexPosition;
+    private final int indexWords;
+
+    // Time grid the snapshot was written with, converted to the configured grid when read
+    private final TimeGrid grid;
+    private final int words;
+
+    // Slot of the snapshot's grid containing each slot of the configured grid, or -1
+    private final int[] sourceSlots;
+
+    // Most masks kept in the cache
+    private final int capacity;
+
+    // Availability read from the file per record index, least recently used first; guarded by itself
+    private final Map<Integer, SlotMask> resident;
+
+    /**
+     * @param buffer Mapped snapshot
+     * @param availabilityPosition Position of the first record's availability words
+     * @param recordSize Bytes from one record to the next
+     * @param indexPosition Position of the bitsets of available records per slot
+     * @param records Number of records
+     * @param grid Time grid the snapshot was written with
+     * @param capacity Most availability masks kept in memory (at least 1)
+     */
+    LazyRoster(MappedByteBuffer buffer, int availabilityPosition, int recordSize, int indexPosition, int records, TimeGrid grid, int capacity) {
+        this.buffer = buffer;
+        this.availabilityPosition = availabilityPosition;
+        this.recordSize = recordSize;
+        this.indexPosition = indexPosition;
+        this.indexWords = (records + 63) >>> 6;
+        this.grid = grid;
+        this.words = SlotMask.wordCount(grid.slotsPerWeek());
+        this.sourceSlots = TimeGrid.configured().containingSlots(grid);
+        this.capacity = Math.max(1, capacity);
+        this.resident = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, SlotMask> eldest) {
+                return size() > LazyRoster.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the availability of a record, reading it from the file on first access and keeping it
+     * as the most recently used
+     * @param record Record index in the snapshot
+     * @return Weekly availability on the configured grid
+     */
+    public SlotMask availability(int record) {
+        synchronized (resident) {
+            SlotMask availability = resident.get(record);
+            if (availability != null) {
+                return availability;
+            }
+        }
+        SlotMask availability = read(record); // Outside the lock, a racing read of the same record gives an equal mask
+        PlannerMetrics.countAvailabilityFaults(1);
+        synchronized (resident) {
+            resident.put(record, availability);
+        }
+        return availability;
+    }
+
+    /**
+     * Reads the availability of a record without keeping it in the cache, e.g. when the whole roster
+     * is indexed or written, so a pass over all actors does not push out the actors in use
+     * @param record Record index in the snapshot
+     * @return Weekly availability on the configured grid
+     */
+    public SlotMask peek(int record) {
+        synchronized (resident) {
+            SlotMask availability = resident.get(record);
+            if (availability != null) {
+                return availability;
+            }
+        }
+        return read(record);
+    }
+
+    /**
+     * Reads the records available in a slot from the snapshot's index, without reading their availability
+     * @param slotIndex Weekly slot index on the configured grid
+     * @return Bitset of the available records, bit r of word r / 64 for record r
+     */
+    public long[] slotRecords(int slotIndex) {
+        long[] records = new long[indexWords];
+        int source = sourceSlots[slotIndex];
+        if (source >= 0) {
+            int position = indexPosition + source * indexWords * Long.BYTES;
+            for (int w = 0; w < indexWords; w++) {
+                records[w] = buffer.getLong(position + w * Long.BYTES);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * @return Number of availability masks kept in memory
+     */
+    public int residentCount() {
+        synchronized (resident) {
+            return resident.size();
+        }
+    }
+
+    // Reads the words of a record from the mapping and converts them to the configured grid
+    private SlotMask read(int record) {
+        int position = availabilityPosition + record * recordSize;
+        long[] availabilityWords = new long[words];
+        for (int w = 0; w < words; w++) {
+            availabilityWords[w] = buffer.getLong(position + w * Long.BYTES);
+        }
+        return TimeGrid.configured().convert(SlotMask.wrap(grid.slotsPerWeek(), availabilityWords), grid);
+    }
+}
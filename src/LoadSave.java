@@ -1,16 +1,434 @@
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.function.LongConsumer;
 
 public class LoadSave {
+    // Data file names, resolved against the data directory
     private static final String FILE_PATH = "RehearsalPlannerData.txt";
+    private static final String SNAPSHOT_PATH = "RehearsalPlannerData.bin";
+    private static final String JOURNAL_PATH = "RehearsalPlannerData.journal";
 
-    public LoadSave() { }
+    // First line of a text data file. Files are written with the v2 header, which is followed by the
+    // time grid of the availability lines (e.g. "9:00-21:00/180") and whose blocks hold actor ids and
+    // may hold date exception lines; files with the original header are still read, on the original grid
+    private static final String TEXT_HEADER = "REHEARSAL_PLANNER_DATA";
+    private static final String TEXT_HEADER_V2 = "REHEARSAL_PLANNER_DATA v2 ";
+
+    // Committed journal records before a compaction is started, at least; scales with the roster size
+    private static final int MIN_COMPACTION_RECORDS = 1000;
+
+    // Text files at least this large are split into chunks and parsed in parallel
+    private static final long PARALLEL_LOAD_THRESHOLD = 8L << 20;
+
+    // Target size of one chunk of a text file parsed in parallel
+    private static final long CHUNK_SIZE = 4L << 20;
+
+    // Bytes read at a time while looking for a chunk boundary
+    private static final int BOUNDARY_WINDOW = 64 << 10;
+
+    // Selects how binary snapshots are read: "eager" (default) reads every actor in full, "lazy" reads only
+    // the actors' ids and details and each actor's availability on first access (see LazyRoster)
+    public static final String LOAD_PROPERTY = "rehearsalplanner.load";
+
+    // Most actors whose availability read from a lazily loaded snapshot is kept in memory
+    public static final String RESIDENT_ACTORS_PROPERTY = "rehearsalplanner.residentActors";
+    private static final int DEFAULT_RESIDENT_ACTORS = 10_000;
+
+    // Data files in the directory the roster is kept in
+    private final String filePath;
+    private final String snapshotPath;
+    private final String journalPath;
+
+    // Write-ahead journal of roster changes since the last snapshot
+    private final ChangeJournal journal;
+
+    // Background thread writing compacted snapshots
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "snapshot-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean compactionRunning = new AtomicBoolean();
+
+    // Counts replacements of the whole roster, which the journal cannot record; only changed while edits are held
+    private volatile long replacements;
+
+    // Replacements contained in the last snapshot written; saves write a snapshot until it contains the last one
+    private final AtomicLong snapshotReplacements = new AtomicLong();
+
+    // Set if the saved data could not be restored, so that no snapshot overwrites it
+    private volatile boolean restoreFailed;
+
+    // Told the journal sequence after each successful commit, with edits still held; null if nobody listens
+    private volatile LongConsumer commitListener;
+
+    // Actors whose availability stays in memory when snapshots are loaded lazily, 0 to load them in full
+    private final int residentActors = residentActorsFromProperties();
+
+    /**
+     * Creates a handler for the data files in the working directory
+     */
+    public LoadSave() {
+        this(Path.of(""));
+    }
+
+    /**
+     * Creates a handler for the data files in a directory
+     * @param directory Directory holding the text file, snapshot and journal
+     */
+    public LoadSave(Path directory) {
+        filePath = directory.resolve(FILE_PATH).toString();
+        snapshotPath = directory.resolve(SNAPSHOT_PATH).toString();
+        journalPath = directory.resolve(JOURNAL_PATH).toString();
+        journal = new ChangeJournal(Path.of(journalPath));
+    }
+
+    /**
+     * Restores the roster saved by the previous session from the last snapshot and
+     * the journal entries recorded after it, and opens the journal for new changes.
+     * Saved data on a time grid the configured grid does not refine is not restored, since it would
+     * be rewritten on the coarser grid (see {@link TimeGrid#refines(TimeGrid)}). If the data cannot be
+     * restored, the files are left as they are: the session neither journals nor writes snapshots.
+     * @return Restored actors, empty if nothing was saved yet or the saved data could not be restored
+     */
+    public List<Actor> recover() {
+        long start = PlannerMetrics.LOAD.start();
+        List<Actor> actors = new ArrayList<>();
+        try {
+            long snapshotSequence = 0;
+            Path snapshot = Path.of(snapshotPath);
+            if (Files.exists(snapshot)) {
+                TimeGrid grid = BinarySnapshot.grid(snapshot);
+                if (!TimeGrid.configured().refines(grid)) {
+                    throw new IOException(snapshotPath + ": " + TimeGrid.configured().lossMessage(grid));
+                }
+                actors = readSnapshot(snapshot);
+                snapshotSequence = BinarySnapshot.journalSequence(snapshot);
+                PlannerMetrics.countBytesRead(Files.size(snapshot));
+            }
+            List<ChangeJournal.Entry> entries = journal.open(snapshotSequence);
+            PlannerMetrics.countBytesRead(Files.size(Path.of(journalPath)));
+            replay(actors, entries);
+            if (!actors.isEmpty() || !entries.isEmpty()) {
+                System.out.printf("Restored %d actors from %s (%d journal entries replayed)%n", actors.size(), snapshotPath, entries.size());
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Error restoring saved data: " + e.getMessage());
+            System.out.println("The saved data is left unchanged; changes made in this session can only be exported.");
+            restoreFailed = true;
+            actors = new ArrayList<>();
+        }
+        PlannerMetrics.countActorsLoaded(actors.size());
+        PlannerMetrics.LOAD.stop(start);
+        return actors;
+    }
+
+    // Reads a snapshot in full, or only its index if snapshots are loaded lazily
+    private List<Actor> readSnapshot(Path path) throws IOException {
+        return residentActors > 0 ? BinarySnapshot.readLazily(path, residentActors) : BinarySnapshot.read(path);
+    }
+
+    /**
+     * @return Change journal sequence of the roster returned by {@link #recover()}, or -1 if it could not be restored
+     */
+    public long restoredSequence() { return restoreFailed ? -1 : journal.sequence(); }
+
+    /**
+     * Sets the listener told the journal sequence after each successful journal commit. It is called with
+     * edits held, so the roster matches the sequence, e.g. to mark a copy of the roster data as up to date.
+     * @param listener Listener, or null for none
+     */
+    public void setCommitListener(LongConsumer listener) { commitListener = listener; }
+
+    /**
+     * @return true if snapshots are loaded lazily, leaving the actors' availability in the snapshot file
+     */
+    public boolean loadsLazily() { return residentActors > 0; }
+
+    /**
+     * Reads the load mode of this session, falling back to eager loading if the properties are invalid
+     * @return Most actors whose availability stays in memory in lazy mode, or 0 to load snapshots in full
+     */
+    private static int residentActorsFromProperties() {
+        String setting = System.getProperty(LOAD_PROPERTY, "eager");
+        if (!setting.equals("lazy")) {
+            if (!setting.equals("eager")) {
+                System.out.println("Invalid " + LOAD_PROPERTY + ": " + setting + " (expected eager or lazy); using eager");
+            }
+            return 0;
+        }
+        String resident = System.getProperty(RESIDENT_ACTORS_PROPERTY, String.valueOf(DEFAULT_RESIDENT_ACTORS));
+        try {
+            int count = Integer.parseInt(resident);
+            if (count > 0) {
+                return count;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        System.out.println("Invalid " + RESIDENT_ACTORS_PROPERTY + ": " + resident + " (expected a positive number); using " + DEFAULT_RESIDENT_ACTORS);
+        return DEFAULT_RESIDENT_ACTORS;
+    }
+
+    /**
+     * Records an actor appended to the roster; written to disk by the next {@link #commitChanges(List, Lock)}
+     * @param actor Added actor
+     */
+    public void journalAdd(Actor actor) { journal.appendAdd(actor); }
+
+    /**
+     * Records an actor removed from the roster with the last actor moved into its position;
+     * written to disk by the next {@link #commitChanges(List, Lock)}
+     * @param position Roster position of the removed actor
+     */
+    public void journalRemove(int position) { journal.appendRemove(position); }
+
+    /**
+     * Records new name and contact details of an actor; written to disk by the next {@link #commitChanges(List, Lock)}
+     * @param position Roster position of the actor
+     * @param actor Actor with the new details
+     */
+    public void journalUpdate(int position, Actor actor) { journal.appendUpdate(position, actor); }
+
+    /**
+     * Records an availability change; written to disk by the next {@link #commitChanges(List, Lock)}
+     * @param position Roster position of the actor
+     * @param availability New weekly availability
+     */
+    public void journalSetAvailability(int position, SlotMask availability) { journal.appendSetAvailability(position, availability); }
+
+    /**
+     * Records a change of date exceptions; written to disk by the next {@link #commitChanges(List, Lock)}
+     * @param position Roster position of the actor
+     * @param exceptions New date exceptions
+     */
+    public void journalSetExceptions(int position, AvailabilityExceptions exceptions) { journal.appendSetExceptions(position, exceptions); }
+
+    /**
+     * Records that the whole roster was replaced, e.g. by a loaded data file. Nothing is written now:
+     * the journal cannot express the replacement, so the changes recorded before it are dropped and
+     * the next {@link #commitChanges(List, Lock)} writes a snapshot of the new roster instead.
+     * Called while edits are held, like the other journal methods.
+     */
+    public void journalReplace() {
+        journal.discardPending();
+        replacements++;
+    }
+
+    /**
+     * Saves all changes since the last save by appending them to the journal and forcing it to disk.
+     * The cost depends only on the number of changes, not on the roster size. Once enough changes
+     * have accumulated, a new snapshot is written in the background. After the roster was replaced
+     * (see {@link #journalReplace()}) a snapshot is written right away instead.
+     * @param actors Current roster, captured if a compaction is started
+     * @param captureLock Lock holding edits back, taken while the journal is committed and the roster captured
+     * @return true if the changes are on disk, false if they could not be written (the error is printed)
+     */
+    public boolean commitChanges(List<Actor> actors, Lock captureLock) {
+        if (restoreFailed) {
+            System.out.println("Changes not saved: the saved data could not be restored at startup and is left unchanged.");
+            return false;
+        }
+        captureLock.lock();
+        try {
+            // Committed with edits held, so a roster replacement cannot come between the check and the commit
+            if (replacements == snapshotReplacements.get()) {
+                return commitJournal(actors);
+            }
+        } finally {
+            captureLock.unlock();
+        }
+        return saveSnapshot(actors, captureLock);
+    }
+
+    // Appends the pending changes to the journal and starts a compaction once enough have accumulated; called with
+    // edits held. Returns false if the journal could not be written
+    private boolean commitJournal(List<Actor> actors) {
+        long start = PlannerMetrics.SAVE.start();
+        try {
+            int count = journal.commit();
+            if (count == 0) {
+                System.out.println("No unsaved changes.");
+            } else {
+                System.out.printf("Saved %d change%s to %s%n", count, count == 1 ? "" : "s", journalPath);
+            }
+        } catch (IOException e) {
+            System.out.println("Error saving data to file: " + e.getMessage());
+            return false;
+        } finally {
+            PlannerMetrics.SAVE.stop(start);
+        }
+        LongConsumer listener = commitListener;
+        if (listener != null) {
+            listener.accept(journal.sequence());
+        }
+
+        if (journal.committedCount() >= Math.max(MIN_COMPACTION_RECORDS, actors.size() / 10)
+                && compactionRunning.compareAndSet(false, true)) {
+            startCompaction(actors);
+        }
+        return true;
+    }
+
+    /**
+     * Writes a new snapshot of the roster right away and drops the journal entries it contains.
+     * Changes that were not saved yet become part of the snapshot. Edits are held only while the
+     * roster is captured; changes made while the snapshot is written stay in the journal.
+     * @param actors Current roster
+     * @param captureLock Lock holding edits back, taken while the roster is captured
+     * @return true if the snapshot was written, false if it could not be (the error is printed)
+     */
+    public boolean saveSnapshot(List<Actor> actors, Lock captureLock) {
+        if (restoreFailed) {
+            System.out.println("Snapshot not saved: the saved data could not be restored at startup and is left unchanged.");
+            return false;
+        }
+        long start = PlannerMetrics.SAVE.start();
+        try {
+            long replaced;
+            Future<?> write;
+            captureLock.lock();
+            try {
+                replaced = replacements;
+                write = startCompaction(actors);
+            } finally {
+                captureLock.unlock();
+            }
+            write.get();
+            snapshotReplacements.accumulateAndGet(replaced, Math::max);
+            System.out.println("Snapshot saved successfully to " + snapshotPath + " (" + new File(snapshotPath).length() + " bytes)");
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            return false; // Already reported by the compactor thread
+        } finally {
+            PlannerMetrics.SAVE.stop(start);
+        }
+    }
+
+    /**
+     * Waits for a running compaction and closes the journal. Changes that were not saved are discarded.
+     */
+    public void close() {
+        compactor.shutdown();
+        try {
+            while (!compactor.awaitTermination(1, TimeUnit.MINUTES)) {
+                System.out.println("Still writing the snapshot...");
+            }
+        } catch (InterruptedException e) {
+            // The journal keeps every change the unfinished snapshot would have contained
+            System.out.println("Interrupted while writing the snapshot; the saved changes stay in the journal.");
+            Thread.currentThread().interrupt();
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            System.out.println("Error closing journal: " + e.getMessage());
+        }
+    }
+
+    // Captures the roster on the calling thread and writes it as a snapshot on the compactor thread
+    private Future<?> startCompaction(List<Actor> actors) {
+        List<Actor> roster = new ArrayList<>(actors);
+        SlotMask[] availability = new SlotMask[roster.size()];
+        AvailabilityExceptions[] exceptions = new AvailabilityExceptions[roster.size()];
+        for (int i = 0; i < availability.length; i++) {
+            availability[i] = roster.get(i).peekAvailability();
+            exceptions[i] = roster.get(i).getExceptions();
+        }
+        long sequence = journal.sequence();
+        return compactor.submit(() -> {
+            try {
+                writeSnapshot(roster, availability, exceptions, sequence);
+            } catch (IOException e) {
+                System.out.println("Error saving snapshot to file: " + e.getMessage());
+                throw e;
+            } finally {
+                compactionRunning.set(false);
+            }
+            return null;
+        });
+    }
+
+    // Writes the snapshot to a temporary file, atomically replaces the old one and trims the journal
+    private void writeSnapshot(List<Actor> actors, SlotMask[] availability, AvailabilityExceptions[] exceptions,
+                               long sequence) throws IOException {
+        Path snapshot = Path.of(snapshotPath);
+        Path temp = Path.of(snapshotPath + ".tmp");
+        BinarySnapshot.write(actors, availability, exceptions, sequence, temp);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+            PlannerMetrics.countBytesWritten(channel.size());
+        }
+        PlannerMetrics.countActorsSaved(actors.size());
+        // The rename must be on disk before the journal loses the records the snapshot now holds
+        DurableFiles.replace(temp, snapshot);
+        journal.truncateThrough(sequence);
+    }
+
+    // Applies journal entries to a roster in order
+    private void replay(List<Actor> actors, List<ChangeJournal.Entry> entries) {
+        for (ChangeJournal.Entry entry : entries) {
+            switch (entry.type()) {
+                case ChangeJournal.ADD_ACTOR -> {
+                    Actor actor = new Actor(entry.actorId(), entry.firstName(), entry.lastName(), entry.email(), entry.phone(), entry.availability());
+                    actor.setExceptions(entry.exceptions());
+                    actors.add(actor);
+                }
+                case ChangeJournal.UPDATE_ACTOR -> actors.get(checkPosition(actors, entry))
+                        .setDetails(entry.firstName(), entry.lastName(), entry.email(), entry.phone());
+                case ChangeJournal.REMOVE_ACTOR -> {
+                    int position = checkPosition(actors, entry);
+                    Actor last = actors.remove(actors.size() - 1);
+                    if (position < actors.size()) {
+                        actors.set(position, last);
+                    }
+                }
+                case ChangeJournal.SET_AVAILABILITY -> actors.get(checkPosition(actors, entry)).setAvailability(entry.availability());
+                case ChangeJournal.SET_EXCEPTIONS -> actors.get(checkPosition(actors, entry)).setExceptions(entry.exceptions());
+                default -> throw new IllegalArgumentException("Unknown journal entry type " + entry.type() + " at sequence " + entry.sequence());
+            }
+        }
+    }
+
+    private int checkPosition(List<Actor> actors, ChangeJournal.Entry entry) {
+        if (entry.position() < 0 || entry.position() >= actors.size()) {
+            throw new IllegalArgumentException("Journal entry " + entry.sequence() + " refers to missing roster position " + entry.position());
+        }
+        return entry.position();
+    }
 
     public void saveToFile(List<Actor> actors) {
-        File file = new File(FILE_PATH);
+        saveToFile(actors, filePath);
+    }
+
+    /**
+     * Writes the roster as a text data file
+     * @param actors Actors to write
+     * @param path File to write to, replaced if it exists
+     */
+    public void saveToFile(List<Actor> actors, String path) {
+        File file = new File(path);
         if (file.exists()) {
             System.out.println("File exists at: " + file.getAbsolutePath());
             System.out.println("File size: " + file.length() + " bytes");
@@ -21,113 +439,492 @@ public class LoadSave {
             return;
         }
 
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(FILE_PATH))) {
-            writer.write("REHEARSAL_PLANNER_DATA\n");
+        long start = PlannerMetrics.SAVE.start();
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(path))) {
+            writer.write(TEXT_HEADER_V2 + TimeGrid.configured() + "\n");
+            StringBuilder block = new StringBuilder(512); // Reused for every actor
             for (Actor actor : actors) {
-                writer.write(actorToString(actor));
+                block.setLength(0);
+                appendActor(block, actor);
+                writer.append(block);
             }
             writer.write("END_FILE");
-            System.out.println("Data saved successfully to " + FILE_PATH);
+            System.out.println("Data saved successfully to " + path);
         } catch (IOException e) {
             System.out.println("Error saving data to file: " + e.getMessage());
+        } finally {
+            PlannerMetrics.SAVE.stop(start);
+        }
+        PlannerMetrics.countActorsSaved(actors.size());
+        PlannerMetrics.countBytesWritten(file.length());
+    }
+
+    /**
+     * Loads the most recently saved data file, either the text file or the binary snapshot.
+     * A snapshot is brought up to date with the saved journal entries recorded after it.
+     * @return Loaded actors
+     * @throws IOException if there is no data file, or if it cannot be read or is not valid; nothing is loaded then
+     */
+    public List<Actor> loadFromFile() throws IOException {
+        File text = new File(filePath);
+        File snapshot = new File(snapshotPath);
+        boolean useSnapshot = snapshot.exists() && (!text.exists() || snapshot.lastModified() >= text.lastModified());
+        if (!useSnapshot) {
+            return loadFromFile(filePath);
+        }
+
+        List<Actor> actors = loadFromFile(snapshotPath);
+        try {
+            replay(actors, journal.read(BinarySnapshot.journalSequence(snapshot.toPath())));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid journal " + journalPath + ": " + e.getMessage(), e);
+        }
+        return actors;
+    }
+
+    /**
+     * Loads a data file, detecting from its content whether it is text or a binary snapshot.
+     * @param path Data file to load
+     * @return Loaded actors
+     * @throws IOException if the file does not exist, cannot be read or is not valid; nothing is loaded then
+     */
+    public List<Actor> loadFromFile(String path) throws IOException {
+        long start = PlannerMetrics.LOAD.start();
+        try {
+            List<Actor> actors = BinarySnapshot.isSnapshot(Path.of(path)) ? readSnapshot(Path.of(path)) : loadTextFile(path);
+            System.out.println("Data loaded successfully from " + path);
+            PlannerMetrics.countActorsLoaded(actors.size());
+            PlannerMetrics.countBytesRead(new File(path).length());
+            return actors;
+        } finally {
+            PlannerMetrics.LOAD.stop(start);
         }
     }
 
-    public List<Actor> loadFromFile() {
+    // Reads a whole text data file, which has to end with END_FILE
+    private List<Actor> loadTextFile(String path) throws IOException {
+        if (new File(path).length() >= PARALLEL_LOAD_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            return loadTextFileParallel(path);
+        }
+
         List<Actor> actors = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(FILE_PATH))) {
-            List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(path))) {
+            LineReader lines = new LineReader(reader);
+            String header = lines.next();
+            TimeGrid grid = textGrid(header);
+            if (grid == null) {
+                throw new IOException("File is empty or is not a valid RehearsalPlanner file: " + path);
+            }
+            boolean withIds = !TEXT_HEADER.equals(header);
+
+            // Parse one actor block at a time until END_FILE
             String line;
-            while ((line = reader.readLine()) != null) {
-                String trimmed = line.trim();
-                if (!trimmed.isEmpty()) {
-                    lines.add(trimmed);
+            while ((line = lines.next()) != null && !"END_FILE".equals(line)) {
+                actors.add(parseActor(line, lines, withIds, grid).toActor());
+            }
+            if (line == null) {
+                throw new IOException("File ends without END_FILE after line " + lines.lineNumber() + ": " + path);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        return actors;
+    }
+
+    /**
+     * Loads a text data file by splitting it at END_ACTOR lines into byte ranges and parsing
+     * the memory-mapped ranges concurrently on the fork-join pool. Actors are returned in file
+     * order and errors are reported with their line numbers in the file.
+     * @param path Text data file to load
+     * @return Loaded actors
+     * @throws IOException if the file does not exist, cannot be read or is not valid; nothing is loaded then
+     */
+    public List<Actor> loadTextFileParallel(String path) throws IOException {
+        List<Actor> actors = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(Path.of(path), StandardOpenOption.READ)) {
+            long size = channel.size();
+
+            // Find the header line; the actor blocks start right after it
+            long dataStart = 0;
+            int headerLines = 0;
+            String header = "";
+            while (header.isEmpty() && dataStart < size) {
+                long lineEnd = lineEnd(channel, dataStart);
+                header = readString(channel, dataStart, lineEnd).trim();
+                dataStart = lineEnd;
+                headerLines++;
+            }
+            TimeGrid grid = textGrid(header);
+            if (grid == null) {
+                throw new IOException("File is empty or is not a valid RehearsalPlanner file: " + path);
+            }
+            boolean withIds = !TEXT_HEADER.equals(header);
+
+            // Split into chunks that each end right after an END_ACTOR line
+            List<Long> boundaries = new ArrayList<>();
+            boundaries.add(dataStart);
+            long next = dataStart + CHUNK_SIZE;
+            while (next < size) {
+                long boundary = chunkBoundary(channel, next);
+                if (boundary >= size) {
+                    break;
                 }
+                boundaries.add(boundary);
+                next = boundary + CHUNK_SIZE;
             }
+            boundaries.add(size);
+            int chunks = boundaries.size() - 1;
 
-            if (lines.isEmpty() || !"REHEARSAL_PLANNER_DATA".equals(lines.get(0))) {
-                System.out.println("File is empty or is not a valid RehearsalPlanner file.");
-                return actors;
+            // Parse all chunks with line numbers relative to the chunk
+            List<Callable<ChunkResult>> parsers = new ArrayList<>(chunks);
+            for (int i = 0; i < chunks; i++) {
+                long start = boundaries.get(i);
+                long end = boundaries.get(i + 1);
+                parsers.add(() -> parseChunk(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start), 0, withIds, grid));
             }
+            List<Future<ChunkResult>> results = ForkJoinPool.commonPool().invokeAll(parsers);
 
-            int currentLine = 1;
-            while (currentLine < lines.size() && !"END_FILE".equals(lines.get(currentLine))) {
-                Actor actor = parseActorFromLines(lines.toArray(new String[0]), currentLine);
-                actors.add(actor);
-                // Skip to the next actor safely
-                while (currentLine < lines.size() && !"END_ACTOR".equals(lines.get(currentLine))) {
-                    currentLine++;
+            // Merge in file order, stopping at the chunk that contains END_FILE
+            boolean endOfFile = false;
+            for (int i = 0; i < chunks && !endOfFile; i++) {
+                ChunkResult result;
+                try {
+                    result = results.get(i).get();
+                } catch (ExecutionException e) {
+                    // Parse the failing chunk again with its line numbers in the file to report the error
+                    long start = boundaries.get(i);
+                    int linesBefore = headerLines + countLines(channel.map(FileChannel.MapMode.READ_ONLY, dataStart, start - dataStart));
+                    result = parseChunk(channel.map(FileChannel.MapMode.READ_ONLY, start, boundaries.get(i + 1) - start), linesBefore, withIds, grid);
                 }
-                if (currentLine < lines.size()) {
-                    currentLine++; // move past END_ACTOR
+                for (ActorData data : result.actors()) {
+                    actors.add(data.toActor());
                 }
+                endOfFile = result.endOfFile();
             }
-            System.out.println("Data loaded successfully from " + FILE_PATH);
-        } catch (FileNotFoundException e) {
-            System.out.println("No saved data found. Starting with empty schedule");
-        } catch (IOException e) {
-            System.out.println("Error loading data from file: " + e.getMessage());
+            if (!endOfFile) {
+                throw new IOException("File ends without END_FILE: " + path);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while loading " + path);
         }
         return actors;
     }
 
-    private String actorToString(Actor actor) {
-        StringBuilder sb = new StringBuilder();
-        sb.append(String.format("%s,%s,%s,%s\n", actor.getFirstName(), actor.getLastName(), actor.getEmail(), actor.getPhone()));
+    /**
+     * Record representing the actors parsed from one chunk of a text data file
+     * @param actors Parsed actors in file order
+     * @param endOfFile true if the chunk contains the END_FILE line
+     */
+    private record ChunkResult(List<ActorData> actors, boolean endOfFile) { }
+
+    /**
+     * Reads the time grid of the availability lines from the header line of a text data file
+     * @param header First line of the file
+     * @return Grid of the file, the original four-slot grid for files with the original header,
+     *         or null if the line is not a RehearsalPlanner header
+     * @throws IllegalArgumentException if the grid in a v2 header is invalid
+     */
+    private static TimeGrid textGrid(String header) {
+        if (TEXT_HEADER.equals(header)) {
+            return TimeGrid.LEGACY;
+        }
+        return header != null && header.startsWith(TEXT_HEADER_V2)
+                ? TimeGrid.parse(header.substring(TEXT_HEADER_V2.length())) : null;
+    }
+
+    // Parses the actor blocks of one chunk; line numbers in errors count from linesBefore + 1
+    private static ChunkResult parseChunk(MappedByteBuffer chunk, int linesBefore, boolean withIds, TimeGrid grid) throws IOException {
+        byte[] bytes = new byte[chunk.remaining()];
+        chunk.get(bytes);
+        LineReader lines = new LineReader(new BufferedReader(new StringReader(new String(bytes, StandardCharsets.UTF_8))), linesBefore);
+        List<ActorData> actors = new ArrayList<>();
+        String line;
+        while ((line = lines.next()) != null) {
+            if ("END_FILE".equals(line)) {
+                return new ChunkResult(actors, true);
+            }
+            actors.add(parseActor(line, lines, withIds, grid));
+        }
+        return new ChunkResult(actors, false);
+    }
+
+    private static int countLines(MappedByteBuffer chunk) {
+        int lines = 0;
+        for (int i = chunk.position(), end = chunk.limit(); i < end; i++) {
+            if (chunk.get(i) == '\n') {
+                lines++;
+            }
+        }
+        return lines;
+    }
+
+    // Position right after the first END_ACTOR line starting at or after the given position, or the file size
+    private static long chunkBoundary(FileChannel channel, long position) throws IOException {
+        byte[] marker = "\nEND_ACTOR".getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer window = ByteBuffer.allocate(BOUNDARY_WINDOW);
+        long size = channel.size();
+        long windowStart = position - 1; // Include the newline before a line starting at the position
+        while (windowStart < size) {
+            window.clear();
+            channel.read(window, windowStart);
+            window.flip();
+            for (int i = 0; i + marker.length <= window.limit(); i++) {
+                if (matches(window, i, marker)) {
+                    long markerEnd = windowStart + i + marker.length;
+                    long lineEnd = lineEnd(channel, markerEnd);
+                    if (readString(channel, markerEnd, lineEnd).isBlank()) {
+                        return lineEnd;
+                    }
+                }
+            }
+            // Overlap the windows so a marker on the border is not missed
+            windowStart += Math.max(1, window.limit() - marker.length + 1);
+        }
+        return size;
+    }
+
+    private static boolean matches(ByteBuffer window, int offset, byte[] marker) {
+        for (int i = 0; i < marker.length; i++) {
+            if (window.get(offset + i) != marker[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Position right after the next newline at or after the given position, or the file size
+    private static long lineEnd(FileChannel channel, long position) throws IOException {
+        ByteBuffer window = ByteBuffer.allocate(256);
+        long size = channel.size();
+        while (position < size) {
+            window.clear();
+            int read = channel.read(window, position);
+            for (int i = 0; i < read; i++) {
+                if (window.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private static String readString(FileChannel channel, long start, long end) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate((int) (end - start));
+        while (bytes.hasRemaining() && channel.read(bytes, start + bytes.position()) > 0) {
+            // Keep reading until the range is complete
+        }
+        return new String(bytes.array(), 0, bytes.position(), StandardCharsets.UTF_8);
+    }
+
+    // Appends the text block of an actor, from its personal info line to END_ACTOR
+    private static void appendActor(StringBuilder sb, Actor actor) {
+        sb.append(actor.getId()).append(',').append(actor.getFirstName()).append(',').append(actor.getLastName())
+                .append(',').append(actor.getEmail()).append(',').append(actor.getPhone()).append('\n');
+
+        // Save availability data, one line per day in weekday order with one character per slot of the grid
+        SlotMask availability = actor.peekAvailability();
+        for (int day = 0; day < Actor.DAYS.length; day++) {
+            sb.append(Actor.DAYS[day]).append(":");
+            for (int slot = 0; slot < Actor.SLOTS_PER_DAY; slot++) {
+                sb.append(availability.get(Actor.slotIndex(day, slot)) ? '1' : '0');
+            }
+            sb.append("\n");
+        }
 
-        // Save availability data
-        Map<String, boolean[]> availability = actor.getAvailability();
-        for (Map.Entry<String, boolean[]> entry : availability.entrySet()) {
-            sb.append(entry.getKey()).append(":");
-            boolean[] slots = entry.getValue();
-            for (boolean slot : slots) {
-                sb.append(slot ? "1" : "0");
+        // Date exceptions, one line per run: first date, last date if it is longer than a day, and the slots
+        for (AvailabilityExceptions.Run run : actor.getExceptions().runs()) {
+            sb.append(run.dates()).append(":");
+            for (int slot = 0; slot < Actor.SLOTS_PER_DAY; slot++) {
+                sb.append(run.availability().get(slot) ? '1' : '0');
             }
             sb.append("\n");
         }
         sb.append("END_ACTOR\n");
-        return sb.toString();
     }
 
-    private Actor parseActorFromLines(String[] lines, int startIndex) {
+    /**
+     * Parses one actor block, reading its availability and date exception lines up to END_ACTOR.
+     * Date exception lines start with the date (e.g. "2026-12-24:0000" or "2026-12-24..2026-12-26:0110"),
+     * availability lines with the weekday.
+     * @param personalInfoLine First line of the block with (id,) name, email and phone
+     * @param lines Reader positioned on the line after the personal info
+     * @param withId true if the personal info line starts with the actor id
+     * @param grid Time grid of the availability lines, converted to the configured grid
+     * @return Parsed actor data
+     */
+    private static ActorData parseActor(String personalInfoLine, LineReader lines, boolean withId, TimeGrid grid) throws IOException {
         // Validate personal info line
-        if (startIndex >= lines.length) {
-            throw new IllegalArgumentException("Unexpected end of file while reading actor personal info.");
-        }
-        String[] personalInfo = lines[startIndex].split(",", 4);
-        if (personalInfo.length < 4) {
-            throw new IllegalArgumentException("Invalid actor personal info line: " + lines[startIndex]);
-        }
-        String firstName = personalInfo[0];
-        String lastName = personalInfo[1];
-        String email = personalInfo[2];
-        String phone = personalInfo[3];
-
-        Map<String, boolean[]> availability = new HashMap<>();
-        int currentLine = startIndex + 1;
-
-        while (currentLine < lines.length && !"END_ACTOR".equals(lines[currentLine])) {
-            String[] dayData = lines[currentLine].split(":", 2);
-            if (dayData.length != 2) {
-                throw new IllegalArgumentException("Invalid availability line: " + lines[currentLine]);
-            }
-            String day = dayData[0];
-            String bits = dayData[1];
-            if (bits.length() < 4) {
-                throw new IllegalArgumentException("Invalid availability bitstring (expected 4): " + bits);
-            }
-            boolean[] slots = new boolean[4];
-            for (int i = 0; i < 4; i++) {
-                char c = bits.charAt(i);
+        int personalInfoLineNumber = lines.lineNumber();
+        int id = 0;
+        int firstNameStart = 0;
+        if (withId) {
+            firstNameStart = personalInfoLine.indexOf(',') + 1;
+            try {
+                id = Integer.parseInt(personalInfoLine.substring(0, Math.max(0, firstNameStart - 1)));
+            } catch (NumberFormatException e) {
+                id = 0;
+            }
+            if (id <= 0) {
+                throw new IllegalArgumentException("Invalid actor id on line " + personalInfoLineNumber + ": " + personalInfoLine);
+            }
+        }
+        int lastNameStart = personalInfoLine.indexOf(',', firstNameStart) + 1;
+        int emailStart = lastNameStart == 0 ? 0 : personalInfoLine.indexOf(',', lastNameStart) + 1;
+        int phoneStart = emailStart == 0 ? 0 : personalInfoLine.indexOf(',', emailStart) + 1;
+        if (phoneStart == 0) {
+            throw new IllegalArgumentException("Invalid actor personal info line " + personalInfoLineNumber + ": " + personalInfoLine);
+        }
+        String firstName = personalInfoLine.substring(firstNameStart, lastNameStart - 1);
+        String lastName = personalInfoLine.substring(lastNameStart, emailStart - 1);
+        String email = personalInfoLine.substring(emailStart, phoneStart - 1);
+        String phone = personalInfoLine.substring(phoneStart);
+
+        int slotsPerDay = grid.slotsPerDay();
+        long[] availability = new long[SlotMask.wordCount(grid.slotsPerWeek())];
+        AvailabilityExceptions exceptions = AvailabilityExceptions.NONE;
+        String line;
+        while ((line = lines.next()) != null && !"END_ACTOR".equals(line)) {
+            int separator = line.indexOf(':');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid availability line " + lines.lineNumber() + ": " + line);
+            }
+            if (Character.isDigit(line.charAt(0))) {
+                exceptions = parseException(line, separator, lines.lineNumber(), grid, exceptions);
+                continue;
+            }
+            int day = Actor.dayIndex(line.substring(0, separator));
+            if (day < 0) {
+                throw new IllegalArgumentException("Invalid day in availability line " + lines.lineNumber() + ": " + line);
+            }
+            if (line.length() - separator - 1 < slotsPerDay) {
+                throw new IllegalArgumentException("Invalid availability bitstring on line " + lines.lineNumber()
+                        + " (expected " + slotsPerDay + "): " + line.substring(separator + 1));
+            }
+            for (int i = 0; i < slotsPerDay; i++) {
+                char c = line.charAt(separator + 1 + i);
                 if (c != '0' && c != '1') {
-                    throw new IllegalArgumentException("Invalid availability character (expected 0/1): " + c);
+                    throw new IllegalArgumentException("Invalid availability character on line " + lines.lineNumber() + " (expected 0/1): " + c);
+                }
+                if (c == '1') {
+                    int slot = grid.slotIndex(day, i);
+                    availability[slot >>> 6] |= 1L << slot;
+                }
+            }
+        }
+
+        SlotMask week;
+        try {
+            week = TimeGrid.configured().convertExactly(SlotMask.wrap(grid.slotsPerWeek(), availability), grid);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Actor on line " + personalInfoLineNumber + ": " + e.getMessage());
+        }
+        return new ActorData(id, firstName, lastName, email, phone, week, exceptions);
+    }
+
+    /**
+     * Parses a date exception line and adds it to the exceptions parsed so far
+     * @param line Line with the date or date range, ':' and one character per slot of the day
+     * @param separator Position of the ':'
+     * @param lineNumber Line number for error messages
+     * @param grid Time grid of the slots, converted to the configured grid without losing slots
+     * @param exceptions Exceptions of the earlier lines of the block
+     * @return Exceptions including this line
+     */
+    private static AvailabilityExceptions parseException(String line, int separator, int lineNumber, TimeGrid grid,
+                                                         AvailabilityExceptions exceptions) {
+        AvailabilityExceptions.DateRange dates;
+        try {
+            dates = AvailabilityExceptions.DateRange.parse(line.substring(0, separator));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(e.getMessage() + " in date exception line " + lineNumber);
+        }
+
+        int slotsPerDay = grid.slotsPerDay();
+        if (line.length() - separator - 1 < slotsPerDay) {
+            throw new IllegalArgumentException("Invalid availability bitstring on line " + lineNumber
+                    + " (expected " + slotsPerDay + "): " + line.substring(separator + 1));
+        }
+        long[] day = new long[SlotMask.wordCount(slotsPerDay)];
+        for (int i = 0; i < slotsPerDay; i++) {
+            char c = line.charAt(separator + 1 + i);
+            if (c != '0' && c != '1') {
+                throw new IllegalArgumentException("Invalid availability character on line " + lineNumber + " (expected 0/1): " + c);
+            }
+            if (c == '1') {
+                day[i >>> 6] |= 1L << i;
+            }
+        }
+        try {
+            return exceptions.with(dates.from(), dates.to(), TimeGrid.configured().convertExactly(SlotMask.wrap(slotsPerDay, day), grid));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Date exception line " + lineNumber + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Record representing an actor block parsed from a text data file
+     * @param id Saved actor id, 0 for files written without ids
+     * @param firstName Actor's first name
+     * @param lastName Actor's last name
+     * @param email Contact email address
+     * @param phone Contact phone number
+     * @param availability Weekly availability on the configured grid
+     * @param exceptions Date exceptions on the configured grid
+     */
+    private record ActorData(int id, String firstName, String lastName, String email, String phone, SlotMask availability,
+                             AvailabilityExceptions exceptions) {
+        Actor toActor() {
+            Actor actor = id > 0 ? new Actor(id, firstName, lastName, email, phone, availability)
+                    : new Actor(firstName, lastName, email, phone, availability);
+            actor.setExceptions(exceptions);
+            return actor;
+        }
+    }
+
+    /**
+     * Reads trimmed, non-empty lines from a data file while tracking line numbers for error messages.
+     */
+    private static class LineReader {
+        private final BufferedReader reader;
+        private int lineNumber;
+
+        LineReader(BufferedReader reader) {
+            this(reader, 0);
+        }
+
+        /**
+         * @param reader Source of the lines
+         * @param linesBefore Number of lines in the file before the first line of the reader
+         */
+        LineReader(BufferedReader reader, int linesBefore) {
+            this.reader = reader;
+            this.lineNumber = linesBefore;
+        }
+
+        /**
+         * @return Next trimmed non-empty line, or null at the end of the file
+         */
+        String next() throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (!line.isEmpty()) {
+                    return line;
                 }
-                slots[i] = c == '1';
             }
-            availability.put(day, slots);
-            currentLine++;
+            return null;
         }
 
-        return new Actor(firstName, lastName, email, phone, availability);
+        /**
+         * @return Line number (1-based) of the line last returned by {@link #next()}
+         */
+        int lineNumber() {
+            return lineNumber;
+        }
     }
 }
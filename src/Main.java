@@ -1,7 +1,44 @@
+import java.io.IOException;
+import java.util.Arrays;
+
 public class Main {
     public static void main(String[] args) {
+        // "--no-color" turns off ANSI colors, e.g. when the output is piped into a file
+        if (args.length > 0 && args[0].equals("--no-color")) {
+            System.setProperty("rehearsalplanner.color", "never");
+            args = Arrays.copyOfRange(args, 1, args.length);
+        }
+
+        // "--batch [file]" runs scripted commands from a file or standard input without the menus,
+        // "--serve [port]" serves the roster as a local HTTP/JSON API instead of the menus
+        if (args.length > 0) {
+            if (args.length > 2 || !(args[0].equals("--batch") || args[0].equals("--serve"))) {
+                System.out.println("Usage: java Main [--no-color] [--batch [command file | -] | --serve [port]]");
+                System.exit(2);
+            }
+            if (args[0].equals("--serve")) {
+                serve(args.length > 1 ? args[1] : String.valueOf(ScheduleServer.DEFAULT_PORT));
+                return;
+            }
+            int errors = new BatchRunner().run(args.length > 1 ? args[1] : "-");
+            System.exit(errors == 0 ? 0 : 1);
+        }
+
         // Create and initialize the application navigation system
         // This will start the main menu loop and handle all user interactions
         AppNavigation appNavigation = new AppNavigation();
     }
-}
\ No newline at end of file
+
+    // Starts the HTTP service mode; the server keeps the process running until it is stopped
+    private static void serve(String port) {
+        try {
+            ScheduleServer.serve(Integer.parseInt(port));
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid port: " + port);
+            System.exit(2);
+        } catch (IOException e) {
+            System.out.println("Error starting server: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
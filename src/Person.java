@@ -1,178 +1,70 @@
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
 /**
- * Core class for managing rehearsal schedules.
- * Handles actor roster management, schedule generation, and persistence operations.
- * Provides color-coded console output for schedule visualization.
+ * Base class for people managed by the RehearsalPlanner.
+ * Holds the personal and contact details shared by actors and other staff.
  */
-public class Schedule {
-    // List of all actors in the system
-    private List<Actor> actors = new ArrayList<>();
-
-    // Handler for saving and loading schedule data
-    private final LoadSave loadSave;
-
-    /**
-     * Record representing a time slot in the schedule with its available actors
-     * @param timeSlot Time period (e.g., "9-12")
-     * @param actors List of actors available during this slot
-     */
-    private record ScheduleSlot(String timeSlot, List<Actor> actors) { }
+public class Person {
+    // Staff number handed out to the most recently created person
+    private static int staffId;
+    private static int nextStaffId = 1;
 
-    // ANSI color codes for schedule visualization
-    private static final String ANSI_GREEN = "\u001B[32m";  // 3+ actors available
-    private static final String ANSI_YELLOW = "\u001B[33m"; // 2 actors available
-    private static final String ANSI_RED = "\u001B[31m";    // 1 actor available or no sessions
-    private static final String ANSI_RESET = "\u001B[0m";   // Reset color formatting
+    // Personal and contact details; volatile so an actor moving into a columnar roster is read consistently
+    private volatile String firstName;
+    private volatile String lastName;
+    private volatile String email;
+    private volatile String phone;
 
     /**
-     * Creates a new Schedule instance with an empty actor roster
-     * and initializes data persistence handler
+     * Creates a new Person with the given contact details.
+     *
+     * @param firstName First name
+     * @param lastName Last name
+     * @param email Contact email address
+     * @param phone Contact phone number
      */
-    public Schedule() {
-        loadSave = new LoadSave();
+    public Person(String firstName, String lastName, String email, String phone) {
+        staffId = nextStaffId++;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.email = email;
+        this.phone = phone;
     }
 
-    /**
-     * Adds a new actor to the roster
-     * @param actor Actor to be added
-     */
-    public void addActor(Actor actor) {
-        actors.add(actor);
+    public String getFirstName() {
+        return firstName;
     }
 
-    /**
-     * Removes an actor from the roster
-     * @param actor Actor to be removed
-     */
-    public void removeActor(Actor actor) {
-        actors.remove(actor);
+    public String getLastName() {
+        return lastName;
     }
 
-    /**
-     * @return List of all actors in the roster
-     */
-    public List<Actor> getActors() { return actors; }
-
-    /**
-     * Replaces the entire actor roster
-     * @param actors New list of actors
-     */
-    public void setActors(List<Actor> actors) { this.actors = actors; }
-
-    /**
-     * Saves current actor roster and their availability to file
-     */
-    public void saveToFile() { loadSave.saveToFile(actors); }
-
-    /**
-     * Loads actor roster and availability from a file
-     */
-    public void loadFromFile() { actors = loadSave.loadFromFile(); }
-
-    /**
-     * Generates a weekly schedule based on actors' availability.
-     * Creates a schedule showing all time slots where at least one actor is available.
-     * Output is color-coded based on a number of available actors:
-     * - Green: 3 or more actors
-     * - Yellow: 2 actors
-     * - Red: 1 actor
-     * - Red text "No scheduled sessions": No actors available
-     */
-    public void generateSchedule() {
-        System.out.printf("Generating schedule for %d actors...\n", actors.size());
-        if (actors.isEmpty()) {
-            System.out.println("No actors available to create a schedule for. Please add actors before generating a schedule.");
-        }
-
-        Map<String, List<ScheduleSlot>> weeklySchedule = new HashMap<>();
-        String[] days = {"Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday"};
-
-        // Initialize the empty schedule for each day
-        for (String day : days) {
-            weeklySchedule.put(day, new ArrayList<>());
-        }
-
-        // Populate the schedule with available actors for each time slot
-        for (String day : days) {
-            for (int slot = 0; slot < 4; slot++) {
-                List<Actor> availableActors = findAvailableActors(day, slot);
-                if (!availableActors.isEmpty()) {
-                    String timeSlot = getTimeSlotString(slot);
-                    weeklySchedule.get(day).add(new ScheduleSlot(timeSlot, availableActors));
-                }
-            }
-        }
-
-        // Print generated schedule
-        printSchedule(weeklySchedule);
-
+    public String getEmail() {
+        return email;
     }
 
-    /**
-     * Finds all actors available for a specific day and time slot
-     * @param day Day of the week
-     * @param slot Time slot index (0-3)
-     * @return List of available actors
-     */
-    private List<Actor> findAvailableActors(String day, int slot) {
-        List<Actor> availableActors = new ArrayList<>();
-        for (Actor actor : actors) {
-            Map<String, boolean[]> availability = actor.getAvailability();
-            if (availability.containsKey(day) && availability.get(day)[slot]) {
-                availableActors.add(actor);
-            }
-        }
-        return availableActors;
+    public String getPhone() {
+        return phone;
     }
 
     /**
-     * Converts time slot index to human-readable time range
-     * @param slot Time slot index (0-3)
-     * @return String representation of time range
+     * Replaces the name and contact details. Used by the roster, which keeps its lookup indexes in sync.
+     *
+     * @param firstName First name
+     * @param lastName Last name
+     * @param email Contact email address
+     * @param phone Contact phone number
      */
-    private String getTimeSlotString(int slot) {
-        return switch(slot) {
-            case 0 -> "9-12";
-            case 1 -> "12-15";
-            case 2 -> "15-18";
-            case 3 -> "18-21";
-            default -> "Invalid Time Slot";
-        };
+    protected void setDetails(String firstName, String lastName, String email, String phone) {
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.email = email;
+        this.phone = phone;
     }
 
     /**
-     * Prints the generated schedule in a color-coded format
-     * Colors indicate a number of available actors for each slot
-     * @param weeklySchedule Map containing schedule data
+     * @return Name and contact details (e.g. "Jane Doe, Email: jane@example.com, Phone: 555-0100")
      */
-    public void printSchedule(Map<String, List<ScheduleSlot>> weeklySchedule) {
-        String[] days = {"Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday"};
-        for (String day : days) {
-            System.out.println("\n" + day + ":");
-            List<ScheduleSlot> slots = weeklySchedule.get(day);
-            if (slots.isEmpty()) {
-                System.out.println(ANSI_RED + " No scheduled sessions" + ANSI_RESET);
-                continue;
-            }
-
-            for (ScheduleSlot slot : slots) {
-                // Color coding based on the number of available actors
-                String color = switch (slot.actors().size()) {
-                    case 0 -> ANSI_RESET; // Plain white for 0 actors
-                    case 1 -> ANSI_RED; // Red for 1 actor
-                    case 2 -> ANSI_YELLOW; // Yellow for 2 actors
-                    default -> ANSI_GREEN; // Green for 3+ actors
-                };
-                System.out.println(color + " " + slot.timeSlot() + ": " + ANSI_RESET);
-                System.out.println(color + "   Available Actors (" + slot.actors().size() + "): " + ANSI_RESET);
-                for (Actor actor : slot.actors()) {
-                    System.out.println(color + "     - " + actor.getFirstName() + " " + actor.getLastName() + ANSI_RESET);
-                }
-            }
-        }
+    @Override
+    public String toString() {
+        return String.format("%s %s, Email: %s, Phone: %s", getFirstName(), getLastName(), getEmail(), getPhone());
     }
 }
@@ -0,0 +1,233 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+/**
+ * Operational metrics of the planner: latency histograms of loading, saving, schedule generation,
+ * best-slot queries and console rendering, counters of loaded and saved actors, scanned slots, file bytes and availability
+ * read on demand from lazily loaded snapshots, and
+ * gauges of the roster size, the heap and off-heap memory used by availability data and the heap
+ * used by the roster store next to what the same roster takes as actor objects. The memory gauges
+ * are estimated by the schedule once per roster version (see {@link Schedule#getRosterFootprint()}).
+ * <p>
+ * The metrics are published through JMX as {@code rehearsalplanner:type=Timer,name=load|save|generate|rank|render}
+ * and {@code rehearsalplanner:type=Counters} (e.g. for JConsole), and printed as a summary when the
+ * menus are exited with {@code -Drehearsalplanner.metricsSummary=true}. Operations are timed as a whole,
+ * not per actor, so recording costs two clock reads and a few atomic increments per operation and the
+ * metrics are always on.
+ */
+public final class PlannerMetrics {
+    // Latencies of whole operations
+    public static final Timer LOAD = new Timer("load");
+    public static final Timer SAVE = new Timer("save");
+    public static final Timer GENERATE = new Timer("generate");
+    public static final Timer RANK = new Timer("rank");
+    public static final Timer RENDER = new Timer("render");
+    private static final Timer[] TIMERS = {LOAD, SAVE, GENERATE, RANK, RENDER};
+
+    // Running totals since the start of the process
+    private static final LongAdder actorsLoaded = new LongAdder();
+    private static final LongAdder actorsSaved = new LongAdder();
+    private static final LongAdder slotsScanned = new LongAdder();
+    private static final LongAdder bytesRead = new LongAdder();
+    private static final LongAdder bytesWritten = new LongAdder();
+    private static final LongAdder availabilityFaults = new LongAdder();
+
+    // Schedule whose roster the gauges report, null until one is registered
+    private static volatile Schedule schedule;
+    private static boolean registered;
+
+    private PlannerMetrics() { }
+
+    /**
+     * JMX view of a timer; latencies are in microseconds
+     */
+    public interface TimerMBean {
+        long getCount();
+        long getTotalMillis();
+        long getP50Micros();
+        long getP90Micros();
+        long getP99Micros();
+        long getMaxMicros();
+    }
+
+    /**
+     * JMX view of the counters and roster gauges
+     */
+    public interface CountersMBean {
+        long getActorsLoaded();
+        long getActorsSaved();
+        long getSlotsScanned();
+        long getBytesRead();
+        long getBytesWritten();
+        long getAvailabilityFaults();
+        int getRosterSize();
+        long getAvailabilityBytes();
+        long getOffHeapAvailabilityBytes();
+        String getRosterStore();
+        long getRosterBytes();
+        long getObjectModelRosterBytes();
+    }
+
+    /**
+     * Latency histogram and total time of one kind of operation
+     */
+    public static final class Timer implements TimerMBean {
+        private final String name;
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private final LongAdder totalNanos = new LongAdder();
+
+        private Timer(String name) {
+            this.name = name;
+        }
+
+        /**
+         * @return Start time to pass to {@link #stop(long)}
+         */
+        public long start() { return System.nanoTime(); }
+
+        /**
+         * Records an operation that began at a time returned by {@link #start()}
+         * @param start Start time
+         */
+        public void stop(long start) { record(System.nanoTime() - start); }
+
+        /**
+         * Records an operation
+         * @param nanos Duration in nanoseconds
+         */
+        public void record(long nanos) {
+            latencies.record(nanos);
+            totalNanos.add(nanos);
+        }
+
+        public String getName() { return name; }
+
+        @Override public long getCount() { return latencies.count(); }
+        @Override public long getTotalMillis() { return totalNanos.sum() / 1_000_000; }
+        @Override public long getP50Micros() { return latencies.percentileMicros(50); }
+        @Override public long getP90Micros() { return latencies.percentileMicros(90); }
+        @Override public long getP99Micros() { return latencies.percentileMicros(99); }
+        @Override public long getMaxMicros() { return latencies.maxMicros(); }
+
+        /**
+         * @return Latency percentiles of the recorded operations
+         */
+        public LatencyHistogram.Summary summary() { return latencies.summary(); }
+    }
+
+    private static final class Counters implements CountersMBean {
+        @Override public long getActorsLoaded() { return actorsLoaded.sum(); }
+        @Override public long getActorsSaved() { return actorsSaved.sum(); }
+        @Override public long getSlotsScanned() { return slotsScanned.sum(); }
+        @Override public long getBytesRead() { return bytesRead.sum(); }
+        @Override public long getBytesWritten() { return bytesWritten.sum(); }
+        @Override public long getAvailabilityFaults() { return availabilityFaults.sum(); }
+
+        @Override
+        public int getRosterSize() {
+            Schedule current = schedule;
+            return current == null ? 0 : current.getRosterSize();
+        }
+
+        @Override
+        public long getAvailabilityBytes() {
+            Schedule current = schedule;
+            return current == null ? 0 : current.getAvailabilityBytes();
+        }
+
+        @Override
+        public long getOffHeapAvailabilityBytes() {
+            Schedule current = schedule;
+            return current == null ? 0 : current.getOffHeapAvailabilityBytes();
+        }
+
+        @Override
+        public String getRosterStore() {
+            Schedule current = schedule;
+            return current == null ? "" : current.getRosterFootprint().store();
+        }
+
+        @Override
+        public long getRosterBytes() {
+            Schedule current = schedule;
+            return current == null ? 0 : current.getRosterFootprint().bytes();
+        }
+
+        @Override
+        public long getObjectModelRosterBytes() {
+            Schedule current = schedule;
+            return current == null ? 0 : current.getRosterFootprint().objectModelBytes();
+        }
+    }
+
+    public static void countActorsLoaded(long actors) { actorsLoaded.add(actors); }
+
+    public static void countActorsSaved(long actors) { actorsSaved.add(actors); }
+
+    /**
+     * @param slots Weekly slots checked, counted once per actor and slot
+     */
+    public static void countSlotsScanned(long slots) { slotsScanned.add(slots); }
+
+    public static void countBytesRead(long bytes) { bytesRead.add(bytes); }
+
+    public static void countBytesWritten(long bytes) { bytesWritten.add(bytes); }
+
+    /**
+     * @param faults Availability masks read from a lazily loaded snapshot on first access (see {@link LazyRoster})
+     */
+    public static void countAvailabilityFaults(long faults) { availabilityFaults.add(faults); }
+
+    /**
+     * Publishes the metrics through the platform MBean server, once per process, and reports
+     * the roster gauges of a schedule from now on
+     * @param schedule Schedule whose roster size and availability data are reported
+     */
+    public static synchronized void register(Schedule schedule) {
+        PlannerMetrics.schedule = schedule;
+        if (registered) {
+            return;
+        }
+        registered = true;
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            for (Timer timer : TIMERS) {
+                server.registerMBean(new StandardMBean(timer, TimerMBean.class),
+                        new ObjectName("rehearsalplanner:type=Timer,name=" + timer.getName()));
+            }
+            server.registerMBean(new StandardMBean(new Counters(), CountersMBean.class),
+                    new ObjectName("rehearsalplanner:type=Counters"));
+        } catch (JMException e) {
+            System.out.println("Error publishing metrics through JMX: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return Multi-line summary of all timers, counters and gauges
+     */
+    public static String summary() {
+        Counters counters = new Counters();
+        StringBuilder summary = new StringBuilder("Metrics:\n");
+        for (Timer timer : TIMERS) {
+            summary.append(String.format("  %-8s %6d operations, %8d ms total, %s%n",
+                    timer.getName(), timer.getCount(), timer.getTotalMillis(), timer.summary()));
+        }
+        summary.append(String.format("  Actors loaded %d, saved %d; slots scanned %d%n",
+                counters.getActorsLoaded(), counters.getActorsSaved(), counters.getSlotsScanned()));
+        summary.append(String.format("  Bytes read %d, written %d; availability faults %d%n",
+                counters.getBytesRead(), counters.getBytesWritten(), counters.getAvailabilityFaults()));
+        summary.append(String.format("  Roster size %d, availability data %d bytes (%d bytes off the heap)%n",
+                counters.getRosterSize(), counters.getAvailabilityBytes(), counters.getOffHeapAvailabilityBytes()));
+        Schedule current = schedule;
+        if (current != null) {
+            Schedule.RosterFootprint footprint = current.getRosterFootprint();
+            summary.append(String.format("  Roster store %s: %d bytes (%d bytes as actor objects)%n",
+                    footprint.store(), footprint.bytes(), footprint.objectModelBytes()));
+        }
+        return summary.toString();
+    }
+}
@@ -0,0 +1,360 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Scene-based rehearsal optimizer.
+ * Assigns scenes to the weekly time slots so that as many scenes as possible are rehearsed,
+ * and among those plans the one with the fewest idle actor calls is preferred.
+ * An idle call is a slot between an actor's first and last scene of a day in which they are not rehearsing.
+ * The search is a parallel branch-and-bound over word-packed slot masks that stops when its time
+ * budget runs out and returns the best plan found so far.
+ */
+public class RehearsalOptimizer {
+    // Depth of the search tree below which branches are forked as separate tasks
+    private static final int SPLIT_DEPTH = 4;
+
+    /**
+     * Record representing a scene to rehearse
+     * @param name Scene title (e.g. "Act 1 Scene 2")
+     * @param cast Actors required for the scene
+     * @param duration Number of consecutive time slots the scene needs (1 to Actor.SLOTS_PER_DAY)
+     */
+    public record Scene(String name, List<Actor> cast, int duration) { }
+
+    /**
+     * Record representing a scene placed in the week
+     * @param scene Scheduled scene
+     * @param day Day index (0 = Monday, 6 = Sunday)
+     * @param startSlot First time slot index within the day of the rehearsal
+     */
+    public record Assignment(Scene scene, int day, int startSlot) { }
+
+    /**
+     * Record representing an optimized rehearsal plan
+     * @param assignments Scheduled scenes ordered by day and time
+     * @param unscheduled Scenes that could not be placed
+     * @param idleCalls Number of idle actor calls in the plan
+     * @param optimal true if the search finished within its budget, false if the best plan so far was returned
+     */
+    public record Plan(List<Assignment> assignments, List<Scene> unscheduled, int idleCalls, boolean optimal) { }
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates an optimizer running on the common fork-join pool
+     */
+    public RehearsalOptimizer() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates an optimizer running on the given pool
+     * @param pool Pool used for the parallel search
+     */
+    public RehearsalOptimizer(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Finds a rehearsal plan for the given scenes.
+     * @param scenes Scenes to schedule
+     * @param timeBudgetMillis Maximum search time in milliseconds
+     * @return Best plan found within the time budget
+     */
+    public Plan optimize(List<Scene> scenes, long timeBudgetMillis) {
+        Search search = new Search(scenes, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeBudgetMillis));
+        search.greedy();
+        pool.invoke(new SearchTask(search, 0, new long[search.words], 0, 0, new int[search.sceneCount]));
+        return search.toPlan();
+    }
+
+    /**
+     * Shared state of one optimization run
+     */
+    private static class Search {
+        final Scene[] scenes;        // Scenes in search order, most constrained first
+        final int sceneCount;
+        final int[][] placements;    // First weekly slot of each feasible placement of each scene
+        final int[] durations;       // Slots taken by each scene
+        final int[][] casts;         // Cast of each scene as indices into the actor table
+        final int actorCount;
+        final int words;             // Words of a weekly slot mask
+        final long deadline;
+
+        // Best plan so far, packed as (scheduled scenes << 32) | (Integer.MAX_VALUE - idle calls) so larger is better
+        final AtomicLong bestScore = new AtomicLong(Long.MIN_VALUE);
+        int[] bestChoice;
+        volatile boolean timedOut;
+
+        Search(List<Scene> sceneList, long deadline) {
+            this.deadline = deadline;
+            Map<Actor, Integer> actorIndex = new HashMap<>();
+            List<Scene> ordered = new ArrayList<>(sceneList);
+            Map<Scene, int[]> placementsByScene = new HashMap<>();
+            for (Scene scene : ordered) {
+                placementsByScene.put(scene, feasiblePlacements(scene));
+            }
+            // Scenes with the fewest options first, so dead ends are found early
+            ordered.sort(Comparator.comparingInt((Scene scene) -> placementsByScene.get(scene).length)
+                    .thenComparing(Comparator.comparingInt(Scene::duration).reversed()));
+
+            sceneCount = ordered.size();
+            scenes = ordered.toArray(new Scene[0]);
+            placements = new int[sceneCount][];
+            durations = new int[sceneCount];
+            casts = new int[sceneCount][];
+            words = SlotMask.wordCount(Actor.SLOTS_PER_WEEK);
+            for (int i = 0; i < sceneCount; i++) {
+                placements[i] = placementsByScene.get(scenes[i]);
+                durations[i] = scenes[i].duration();
+                List<Actor> cast = scenes[i].cast();
+                casts[i] = new int[cast.size()];
+                for (int c = 0; c < cast.size(); c++) {
+                    casts[i][c] = actorIndex.computeIfAbsent(cast.get(c), actor -> actorIndex.size());
+                }
+            }
+            actorCount = actorIndex.size();
+            bestChoice = new int[sceneCount];
+            Arrays.fill(bestChoice, -1);
+        }
+
+        // First weekly slots of every consecutive block of the scene's duration in which the whole cast is free
+        private static int[] feasiblePlacements(Scene scene) {
+            SlotMask castAvailability = TimeGrid.configured().fullWeek();
+            for (Actor actor : scene.cast()) {
+                castAvailability = castAvailability.and(actor.getAvailability());
+            }
+            int duration = scene.duration();
+            if (duration < 1 || duration > Actor.SLOTS_PER_DAY) {
+                return new int[0];
+            }
+            int[] starts = new int[Actor.SLOTS_PER_WEEK];
+            int count = 0;
+            for (int day = 0; day < Actor.DAYS.length; day++) {
+                for (int start = 0; start + duration <= Actor.SLOTS_PER_DAY; start++) {
+                    int slot = Actor.slotIndex(day, start);
+                    if (castAvailability.allSet(slot, slot + duration)) {
+                        starts[count++] = slot;
+                    }
+                }
+            }
+            return Arrays.copyOf(starts, count);
+        }
+
+        // true if a placement of a scene only takes slots that are still free
+        boolean fits(int scene, int placement, long[] used) {
+            int start = placements[scene][placement];
+            return !SlotMask.anySet(used, start, start + durations[scene]);
+        }
+
+        // Takes or frees the slots of a placement
+        void mark(int scene, int placement, long[] used, boolean taken) {
+            int start = placements[scene][placement];
+            SlotMask.setRange(used, start, start + durations[scene], taken);
+        }
+
+        // Places each scene in its first free placement to get a starting plan for the bound
+        void greedy() {
+            int[] choice = new int[sceneCount];
+            long[] used = new long[words];
+            int scheduled = 0;
+            for (int i = 0; i < sceneCount; i++) {
+                choice[i] = -1;
+                for (int p = 0; p < placements[i].length; p++) {
+                    if (fits(i, p, used)) {
+                        choice[i] = p;
+                        mark(i, p, used, true);
+                        scheduled++;
+                        break;
+                    }
+                }
+            }
+            offer(choice, scheduled);
+        }
+
+        // Records a complete plan if it beats the best one so far
+        void offer(int[] choice, int scheduled) {
+            long score = score(scheduled, idleCalls(choice));
+            if (score <= bestScore.get()) {
+                return;
+            }
+            synchronized (this) {
+                if (score > bestScore.get()) {
+                    bestChoice = choice.clone();
+                    bestScore.set(score);
+                }
+            }
+        }
+
+        static long score(int scheduled, int idleCalls) {
+            return ((long) scheduled << 32) | (Integer.MAX_VALUE - idleCalls);
+        }
+
+        // Counts idle actor calls for a complete plan
+        int idleCalls(int[] choice) {
+            // Words a * words .. a * words + words - 1 hold the slots actor a is called for
+            long[] busy = new long[actorCount * words];
+            for (int i = 0; i < sceneCount; i++) {
+                if (choice[i] >= 0) {
+                    int start = placements[i][choice[i]];
+                    for (int actor : casts[i]) {
+                        SlotMask.setRange(busy, actor * words * 64 + start, actor * words * 64 + start + durations[i], true);
+                    }
+                }
+            }
+            // Per actor and day, the free slots between the first and last call are idle
+            int idle = 0;
+            for (int actor = 0; actor < actorCount; actor++) {
+                int day = -1;
+                int first = 0;
+                int last = 0;
+                int calls = 0;
+                for (int w = 0; w < words; w++) {
+                    long slots = busy[actor * words + w];
+                    while (slots != 0) {
+                        int slot = (w << 6) + Long.numberOfTrailingZeros(slots);
+                        if (slot / Actor.SLOTS_PER_DAY != day) {
+                            idle += calls == 0 ? 0 : last - first + 1 - calls;
+                            day = slot / Actor.SLOTS_PER_DAY;
+                            first = slot;
+                            calls = 0;
+                        }
+                        last = slot;
+                        calls++;
+                        slots &= slots - 1;
+                    }
+                }
+                idle += calls == 0 ? 0 : last - first + 1 - calls;
+            }
+            return idle;
+        }
+
+        // Upper bound on the scenes that can still be scheduled from this scene on with the slots left
+        int remainingBound(int from, long[] used, int usedSlots) {
+            int bound = 0;
+            for (int i = from; i < sceneCount; i++) {
+                for (int p = 0; p < placements[i].length; p++) {
+                    if (fits(i, p, used)) {
+                        bound++;
+                        break;
+                    }
+                }
+            }
+            return Math.min(bound, Actor.SLOTS_PER_WEEK - usedSlots);
+        }
+
+        // true if the subtree cannot beat the best plan so far
+        boolean prune(int scene, long[] used, int usedSlots, int scheduled) {
+            long best = bestScore.get();
+            int bestScheduled = (int) (best >> 32);
+            int reachable = scheduled + remainingBound(scene, used, usedSlots);
+            // Equal scene counts can only win on idle calls, which cannot beat a plan with none
+            return reachable < bestScheduled || (reachable == bestScheduled && (int) best == Integer.MAX_VALUE);
+        }
+
+        boolean outOfTime() {
+            if (timedOut) {
+                return true;
+            }
+            if (System.nanoTime() > deadline) {
+                timedOut = true;
+            }
+            return timedOut;
+        }
+
+        // Sequential depth-first branch-and-bound below a forked task; takes and frees slots in used as it goes
+        void search(int scene, long[] used, int usedSlots, int scheduled, int[] choice) {
+            if (outOfTime()) {
+                return;
+            }
+            if (scene == sceneCount) {
+                offer(choice, scheduled);
+                return;
+            }
+            if (prune(scene, used, usedSlots, scheduled)) {
+                return;
+            }
+            for (int p = 0; p < placements[scene].length; p++) {
+                if (fits(scene, p, used)) {
+                    choice[scene] = p;
+                    mark(scene, p, used, true);
+                    search(scene + 1, used, usedSlots + durations[scene], scheduled + 1, choice);
+                    mark(scene, p, used, false);
+                }
+            }
+            choice[scene] = -1;
+            search(scene + 1, used, usedSlots, scheduled, choice);
+        }
+
+        synchronized Plan toPlan() {
+            List<Assignment> assignments = new ArrayList<>();
+            List<Scene> unscheduled = new ArrayList<>();
+            for (int i = 0; i < sceneCount; i++) {
+                if (bestChoice[i] >= 0) {
+                    int start = placements[i][bestChoice[i]];
+                    assignments.add(new Assignment(scenes[i], start / Actor.SLOTS_PER_DAY, start % Actor.SLOTS_PER_DAY));
+                } else {
+                    unscheduled.add(scenes[i]);
+                }
+            }
+            assignments.sort(Comparator.comparingInt(Assignment::day).thenComparingInt(Assignment::startSlot));
+            return new Plan(assignments, unscheduled, Integer.MAX_VALUE - (int) bestScore.get(), !timedOut);
+        }
+    }
+
+    /**
+     * Explores one branch of the search tree, forking its children near the root.
+     * Only ever run in memory, so it does not need to be serializable like other ForkJoinTasks.
+     */
+    @SuppressWarnings("serial")
+    private static class SearchTask extends RecursiveAction {
+        private final Search search;
+        private final int scene;
+        private final long[] used; // Owned by the task
+        private final int usedSlots;
+        private final int scheduled;
+        private final int[] choice;
+
+        SearchTask(Search search, int scene, long[] used, int usedSlots, int scheduled, int[] choice) {
+            this.search = search;
+            this.scene = scene;
+            this.used = used;
+            this.usedSlots = usedSlots;
+            this.scheduled = scheduled;
+            this.choice = choice;
+        }
+
+        @Override
+        protected void compute() {
+            if (scene >= SPLIT_DEPTH || scene == search.sceneCount) {
+                search.search(scene, used, usedSlots, scheduled, choice);
+                return;
+            }
+            if (search.outOfTime() || search.prune(scene, used, usedSlots, scheduled)) {
+                return;
+            }
+            List<SearchTask> children = new ArrayList<>();
+            for (int p = 0; p < search.placements[scene].length; p++) {
+                if (search.fits(scene, p, used)) {
+                    int[] next = choice.clone();
+                    next[scene] = p;
+                    long[] taken = used.clone();
+                    search.mark(scene, p, taken, true);
+                    children.add(new SearchTask(search, scene + 1, taken, usedSlots + search.durations[scene], scheduled + 1, next));
+                }
+            }
+            int[] skip = choice.clone();
+            skip[scene] = -1;
+            children.add(new SearchTask(search, scene + 1, used.clone(), usedSlots, scheduled, skip));
+            invokeAll(children);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * Roster of actors in fixed-size chunks that are shared with read-only snapshots of the list.
+ * Taking a snapshot copies only the array of chunk references; a chunk is copied the first time
+ * it is written after a snapshot, so an edit between two snapshots copies one chunk rather than
+ * the whole roster. Only the appends and in-place replacements the roster needs are supported.
+ * The list is not thread-safe; its owner guards it with its own lock. Snapshots never change.
+ */
+public class RosterList extends AbstractList<Actor> implements RandomAccess {
+    // Actors per chunk
+    private static final int CHUNK_SIZE = 1024;
+
+    private Actor[][] chunks = new Actor[0][];
+
+    // shared[c] is true while chunks[c] may be referenced by a snapshot
+    private boolean[] shared = new boolean[0];
+
+    private int size;
+
+    @Override
+    public Actor get(int index) {
+        checkIndex(index, size);
+        return chunks[index / CHUNK_SIZE][index % CHUNK_SIZE];
+    }
+
+    @Override
+    public int size() { return size; }
+
+    @Override
+    public boolean add(Actor actor) {
+        int chunk = size / CHUNK_SIZE;
+        if (chunk == chunks.length) {
+            chunks = Arrays.copyOf(chunks, Math.max(4, chunks.length * 2));
+            shared = Arrays.copyOf(shared, chunks.length);
+        }
+        if (chunks[chunk] == null) {
+            chunks[chunk] = new Actor[CHUNK_SIZE];
+        }
+        writableChunk(chunk)[size % CHUNK_SIZE] = actor;
+        size++;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public Actor set(int index, Actor actor) {
+        checkIndex(index, size);
+        Actor[] chunk = writableChunk(index / CHUNK_SIZE);
+        Actor old = chunk[index % CHUNK_SIZE];
+        chunk[index % CHUNK_SIZE] = actor;
+        return old;
+    }
+
+    /**
+     * Removes the last actor, the only removal the roster needs (see {@link Schedule#removeActor(Actor)})
+     * @return Removed actor
+     */
+    @Override
+    public Actor removeLast() {
+        if (size == 0) {
+            throw new NoSuchElementException("Roster is empty");
+        }
+        Actor last = set(size - 1, null);
+        size--;
+        modCount++;
+        return last;
+    }
+
+    @Override
+    public void clear() {
+        chunks = new Actor[0][];
+        shared = new boolean[0];
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * @return Read-only list of the actors as they are now, unaffected by later changes to this list
+     */
+    public List<Actor> snapshot() {
+        Arrays.fill(shared, true);
+        return new Snapshot(chunks.clone(), size);
+    }
+
+    // Chunk that can be written without changing a snapshot
+    private Actor[] writableChunk(int chunk) {
+        if (shared[chunk]) {
+            chunks[chunk] = chunks[chunk].clone();
+            shared[chunk] = false;
+        }
+        return chunks[chunk];
+    }
+
+    private static void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for roster size " + size);
+        }
+    }
+
+    /**
+     * Read-only list over the chunks of a roster at the time the snapshot was taken
+     */
+    private static final class Snapshot extends AbstractList<Actor> implements RandomAccess {
+        private final Actor[][] chunks;
+        private final int size;
+
+        private Snapshot(Actor[][] chunks, int size) {
+            this.chunks = chunks;
+            this.size = size;
+        }
+
+        @Override
+        public Actor get(int index) {
+            checkIndex(index, size);
+            return chunks[index / CHUNK_SIZE][index % CHUNK_SIZE];
+        }
+
+        @Override
+        public int size() { return size; }
+    }
+}
@@ -1,39 +1,281 @@
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Core class for managing rehearsal schedules.
  * Handles actor roster management, schedule generation, and persistence operations.
  * Provides color-coded console output for schedule visualization.
+ * <p>
+ * A schedule can be edited by several threads at once. Edits hold a write lock only for the
+ * few steps that change the roster and its indexes, and edits of one actor's availability are
+ * serialized on that actor. Readers work on an immutable view of the roster that is taken once
+ * per roster version, so schedules and reports are generated without blocking edits.
+ * Printing is not synchronized and should be done by one thread at a time.
  */
 public class Schedule {
-    // List of all actors in the system
-    private List<Actor> actors = new ArrayList<>();
+    // List of all actors in the system, shared chunk by chunk with the roster views
+    private final RosterList actors = new RosterList();
+
+    // Roster position of each actor, matching its index in the actors list; unused by a columnar
+    // store, where an actor's row is its position
+    private final Map<Actor, Integer> positions = new HashMap<>();
+
+    // Id, email and name lookup indexes
+    private final ActorIndex actorIndex = new ActorIndex();
+
+    // Inverted index of roster positions available in each (day, slot)
+    private final AvailabilityIndex availabilityIndex;
+
+    // Selects where the actors' details and availability are kept: "objects" (default), "columnar" or "offheap"
+    public static final String STORE_PROPERTY = "rehearsalplanner.store";
+
+    // File the off-heap availability matrix is mapped from, kept across restarts; kept in memory only if not set
+    public static final String OFF_HEAP_FILE_PROPERTY = "rehearsalplanner.offHeapFile";
+
+    // Columnar store with a row per roster position, or null if every actor keeps its data in its own fields
+    private final ColumnarRoster store;
+
+    // Keeps the index and the change journal in sync when an actor's availability is edited directly
+    private final Actor.AvailabilityListener indexUpdater = new Actor.AvailabilityListener() {
+        @Override
+        public void availabilityChanged(Actor actor, SlotMask oldAvailability, SlotMask newAvailability) {
+            Schedule.this.availabilityChanged(actor, oldAvailability, newAvailability);
+        }
+
+        @Override
+        public void exceptionsChanged(Actor actor, AvailabilityExceptions exceptions) {
+            Schedule.this.exceptionsChanged(actor, exceptions);
+        }
+    };
+
+    // Guards the roster, its indexes and the order of journal records. Lock order: actor monitor, then this lock
+    private final ReentrantReadWriteLock rosterLock = new ReentrantReadWriteLock();
 
     // Handler for saving and loading schedule data
     private final LoadSave loadSave;
 
+    // Engine for checking actor groups against their availability
+    private final ConflictDetector conflictDetector = new ConflictDetector();
+
+    // Number of blocking actors listed in a conflict report
+    private static final int MAX_REPORTED_BLOCKERS = 10;
+
+    // Optimizer for assigning scenes to rehearsal slots
+    private final RehearsalOptimizer rehearsalOptimizer = new RehearsalOptimizer();
+
+    // Time the scene optimizer may search before returning its best plan
+    private static final long OPTIMIZER_TIME_BUDGET_MILLIS = 2000;
+
+    // Engine for ranking the weekly slots by available actors
+    private final SlotRanker slotRanker = new SlotRanker();
+
+    // Most slots a best-slot query returns
+    public static final int MAX_RANKED_SLOTS = 50;
+
+    // Longest date range a schedule is generated for
+    public static final int MAX_SCHEDULE_DAYS = 366;
+
     /**
      * Record representing a time slot in the schedule with its available actors
      * @param timeSlot Time period (e.g., "9-12")
      * @param actors List of actors available during this slot
      */
-    private record ScheduleSlot(String timeSlot, List<Actor> actors) { }
+    public record ScheduleSlot(String timeSlot, List<Actor> actors) { }
+
+    // Bumped by every change to the roster or to an actor's availability; only changed under the write lock
+    private volatile long rosterVersion;
+
+    // View of the roster at the version readers saw last, replaced after the roster changed
+    private volatile RosterView view = new RosterView(0, List.of(), new AvailabilityIndex());
+
+    // Conflict reports cached per view
+    private static final int MAX_CACHED_REPORTS = 16;
+
+    // Results served from the caches and results that had to be computed
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+
+    /**
+     * Record representing the result cache counters
+     * @param hits Schedules and conflict reports served from the cache
+     * @param misses Schedules and conflict reports that had to be computed
+     */
+    public record CacheStats(long hits, long misses) { }
+
+    /**
+     * Record representing the outcome of merging loaded actors into the roster
+     * @param added Actors that were not on the roster
+     * @param updated Roster actors whose details or availability changed
+     * @param unchanged Roster actors that already matched
+     */
+    public record MergeResult(int added, int updated, int unchanged) { }
+
+    /**
+     * Record representing the estimated memory used by the actors' details and availability
+     * @param store Store holding them, "objects", "columnar" or "offheap"
+     * @param bytes Heap used by the actor objects and the store
+     * @param offHeapBytes Memory used off the heap by the store's availability column
+     * @param objectModelBytes Heap the same actors would use as objects with their own strings and masks
+     */
+    public record RosterFootprint(String store, long bytes, long offHeapBytes, long objectModelBytes) { }
 
-    // ANSI color codes for schedule visualization
-    private static final String ANSI_GREEN = "\u001B[32m";  // 3+ actors available
-    private static final String ANSI_YELLOW = "\u001B[33m"; // 2 actors available
-    private static final String ANSI_RED = "\u001B[31m";    // 1 actor available or no sessions
-    private static final String ANSI_RESET = "\u001B[0m";   // Reset color formatting
+    /**
+     * Record representing the result of a best-slot query
+     * @param slots Best slots, most available actors first and then earliest first
+     * @param rosterSize Number of actors on the roster the slots were counted on
+     */
+    public record BestSlots(List<SlotRanker.RankedSlot> slots, int rosterSize) { }
+
+    /**
+     * Record representing the memory gauges of one roster version
+     * @param version Roster version the estimates were computed for
+     * @param availabilityBytes Heap used by availability data, without the roster view's own index bitsets
+     * @param offHeapAvailabilityBytes Off-heap availability data, without the roster view's own index bitsets
+     * @param footprint Heap used by the actors' details and availability
+     */
+    private record MemoryEstimate(long version, long availabilityBytes, long offHeapAvailabilityBytes, RosterFootprint footprint) { }
+
+    // Memory gauges of the last roster version they were requested for, null until then
+    private volatile MemoryEstimate memoryEstimate;
+
+    /**
+     * Immutable view of the roster at one version: the actors in roster order and a copy of
+     * the availability index, both sharing what did not change with the live roster. Also holds
+     * the results computed from it, which stay valid for as long as the view is current.
+     */
+    private static final class RosterView {
+        private final long version;
+        private final List<Actor> actors;
+        private final AvailabilityIndex index;
+
+        // Position of each actor of the view, null until conflicts are first detected on it
+        private volatile Map<Actor, Integer> positions;
+
+        // Weekly schedule of this view, null until it is first generated
+        private volatile Map<String, List<ScheduleSlot>> weeklySchedule;
+
+        // Conflict reports of this view, least recently used first; guarded by itself
+        private final Map<List<ConflictDetector.ActorGroup>, ConflictDetector.Report> reports =
+                new LinkedHashMap<>(MAX_CACHED_REPORTS, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<List<ConflictDetector.ActorGroup>, ConflictDetector.Report> eldest) {
+                        return size() > MAX_CACHED_REPORTS;
+                    }
+                };
+
+        private RosterView(long version, List<Actor> actors, AvailabilityIndex index) {
+            this.version = version;
+            this.actors = actors;
+            this.index = index;
+        }
+
+        /**
+         * @param actor Actor to look up
+         * @return Weekly availability of the actor at this version, read from the index copy;
+         *         the current availability for an actor that is not in the view
+         */
+        private SlotMask availability(Actor actor) {
+            Map<Actor, Integer> byActor = positions;
+            if (byActor == null) {
+                byActor = new HashMap<>();
+                for (int position = 0; position < actors.size(); position++) {
+                    byActor.put(actors.get(position), position);
+                }
+                positions = byActor;
+            }
+            Integer position = byActor.get(actor);
+            return position == null ? actor.getAvailability() : index.availability(position);
+        }
+    }
+
+    // Buffered console output for schedules and reports
+    private ConsoleRenderer renderer = new ConsoleRenderer();
 
     /**
      * Creates a new Schedule instance with an empty actor roster
      * and initializes data persistence handler
      */
     public Schedule() {
-        loadSave = new LoadSave();
+        this(new LoadSave());
+    }
+
+    /**
+     * Creates a new Schedule instance with an empty actor roster
+     * that is saved and loaded through the given handler
+     * @param loadSave Handler for the data files, e.g. of another directory
+     */
+    public Schedule(LoadSave loadSave) {
+        this(loadSave, storeFromProperties(loadSave));
+    }
+
+    /**
+     * Creates a new Schedule instance with an empty actor roster
+     * that is saved and loaded through the given handler
+     * @param loadSave Handler for the data files, e.g. of another directory
+     * @param store Empty store to keep the actors' details and availability in, owned by the schedule
+     *              from now on, or null to keep them in the actor objects. With an off-heap store the
+     *              availability index is kept off the heap as well.
+     * @throws IllegalArgumentException if a store is given and the handler loads snapshots lazily, since the
+     *         store would copy every actor's availability out of the snapshot file
+     */
+    public Schedule(LoadSave loadSave, ColumnarRoster store) {
+        if (store != null && loadSave.loadsLazily()) {
+            throw new IllegalArgumentException("A columnar roster store cannot be used with " + LoadSave.LOAD_PROPERTY + "=lazy");
+        }
+        this.loadSave = loadSave;
+        this.store = store;
+        this.availabilityIndex = store != null && store.isOffHeap() ? AvailabilityIndex.offHeap() : new AvailabilityIndex();
+        if (store != null) {
+            loadSave.setCommitListener(store::synced);
+        }
+    }
+
+    /**
+     * Creates the store selected for this session, falling back to actor objects if the property is invalid
+     * or snapshots are loaded lazily, whose availability a store would copy out of the file in full, and to
+     * memory if the off-heap matrix file cannot be mapped
+     * @param loadSave Handler the store's schedule loads its roster through
+     * @return Empty store, or null to keep the actors' data in the actor objects
+     */
+    public static ColumnarRoster storeFromProperties(LoadSave loadSave) {
+        String setting = System.getProperty(STORE_PROPERTY, "objects");
+        if (!setting.equals("objects") && loadSave.loadsLazily()) {
+            System.out.println(STORE_PROPERTY + "=" + setting + " cannot be combined with " + LoadSave.LOAD_PROPERTY + "=lazy; using objects");
+            return null;
+        }
+        return switch (setting) {
+            case "objects" -> null;
+            case "columnar" -> new ColumnarRoster();
+            case "offheap" -> new ColumnarRoster(offHeapAvailability());
+            default -> {
+                System.out.println("Invalid " + STORE_PROPERTY + ": " + setting + " (expected objects, columnar or offheap); using objects");
+                yield null;
+            }
+        };
+    }
+
+    // Maps the availability matrix from the configured file, or allocates it in memory
+    private static AvailabilityMatrix offHeapAvailability() {
+        int words = SlotMask.wordCount(Actor.SLOTS_PER_WEEK);
+        String file = System.getProperty(OFF_HEAP_FILE_PROPERTY);
+        if (file != null) {
+            try {
+                return AvailabilityMatrix.map(Path.of(file), words, TimeGrid.configured());
+            } catch (IOException | InvalidPathException e) {
+                System.out.println("Error mapping the availability matrix file " + file + ": " + e.getMessage() + "; keeping it in memory");
+            }
+        }
+        return AvailabilityMatrix.allocate(0, words);
     }
 
     /**
@@ -41,37 +283,539 @@ public class Schedule {
      * @param actor Actor to be added
      */
     public void addActor(Actor actor) {
-        actors.add(actor);
+        rosterLock.writeLock().lock();
+        try {
+            if (positionOf(actor) >= 0) {
+                return; // Already on the roster
+            }
+            attach(actor);
+            loadSave.journalAdd(actor);
+        } finally {
+            rosterLock.writeLock().unlock();
+        }
     }
 
     /**
-     * Removes an actor from the roster
+     * Removes an actor from the roster in constant time.
+     * The last actor on the roster takes the position of the removed one.
      * @param actor Actor to be removed
      */
     public void removeActor(Actor actor) {
-        actors.remove(actor);
+        rosterLock.writeLock().lock();
+        try {
+            int position = positionOf(actor);
+            if (position < 0) {
+                return;
+            }
+            Actor last = actors.removeLast();
+            if (last != actor) {
+                actors.set(position, last);
+            }
+            if (store == null) {
+                positions.remove(actor);
+                if (last != actor) {
+                    positions.put(last, position);
+                }
+            }
+            availabilityIndex.swapRemove(position);
+            if (store != null) {
+                store.swapRemove(position);
+            }
+            actorIndex.remove(actor);
+            rosterVersion++;
+            actor.setAvailabilityListener(null);
+            loadSave.journalRemove(position);
+        } finally {
+            rosterLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces an actor's name and contact details, keeping the lookup indexes up to date
+     * @param actor Actor to update
+     * @param firstName New first name
+     * @param lastName New last name
+     * @param email New email
+     * @param phone New phone number
+     */
+    public void updateActorDetails(Actor actor, String firstName, String lastName, String email, String phone) {
+        rosterLock.writeLock().lock();
+        try {
+            int position = positionOf(actor);
+            if (position < 0) {
+                actor.setDetails(firstName, lastName, email, phone);
+                return;
+            }
+            actorIndex.remove(actor);
+            actor.setDetails(firstName, lastName, email, phone);
+            actorIndex.add(actor);
+            rosterVersion++;
+            loadSave.journalUpdate(position, actor);
+        } finally {
+            rosterLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param id Actor id
+     * @return Actor with that id, or null if there is none on the roster
+     */
+    public Actor findActorById(int id) {
+        rosterLock.readLock().lock();
+        try {
+            return actorIndex.byId(id);
+        } finally {
+            rosterLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param email Email address, compared ignoring case
+     * @return Actors with that email, empty if there are none
+     */
+    public List<Actor> findActorsByEmail(String email) {
+        rosterLock.readLock().lock();
+        try {
+            return actorIndex.byEmail(email);
+        } finally {
+            rosterLock.readLock().unlock();
+        }
     }
 
     /**
-     * @return List of all actors in the roster
+     * Finds actors by the start of their first name, last name or full name, e.g. for type-ahead search
+     * @param prefix Start of the name, compared ignoring case
+     * @param limit Maximum number of actors to return
+     * @return Matching actors in alphabetical order of the matched name
      */
-    public List<Actor> getActors() { return actors; }
+    public List<Actor> searchActorsByName(String prefix, int limit) {
+        rosterLock.readLock().lock();
+        try {
+            return actorIndex.byNamePrefix(prefix, limit);
+        } finally {
+            rosterLock.readLock().unlock();
+        }
+    }
 
     /**
-     * Replaces the entire actor roster
+     * @return Read-only snapshot of all actors in the roster; later changes to the roster are not reflected
+     */
+    public List<Actor> getActors() { return view().actors; }
+
+    /**
+     * Replaces the entire actor roster.
+     * Nothing is written to disk: the next save writes the new roster as a snapshot,
+     * since the replacement cannot be journaled change by change.
      * @param actors New list of actors
      */
-    public void setActors(List<Actor> actors) { this.actors = actors; }
+    public void setActors(List<Actor> actors) {
+        rosterLock.writeLock().lock();
+        try {
+            replaceRoster(actors);
+            loadSave.journalReplace();
+        } finally {
+            rosterLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Restores the roster saved by the previous session from the last snapshot and change journal.
+     * A store mapped from a file keeps the availability rows of the file if they were synced at the restored
+     * state, and otherwise rewrites them; either way the file is synced at that state afterwards.
+     */
+    public void restore() {
+        List<Actor> recovered = loadSave.recover();
+        rosterLock.writeLock().lock();
+        try {
+            long sequence = loadSave.restoredSequence();
+            replaceRoster(recovered, sequence);
+            if (store != null && sequence >= 0) {
+                store.synced(sequence);
+            }
+        } finally {
+            rosterLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Saves all changes since the last save to the change journal.
+     * Edits wait while the changes are committed, so the saved roster matches the journal,
+     * but not while a snapshot that the save starts is written.
+     * @return true if the changes are on disk, false if they could not be saved
+     */
+    public boolean saveToFile() { return loadSave.commitChanges(actors, rosterLock.readLock()); }
+
+    /**
+     * Saves current actor roster and their availability as a compact binary snapshot.
+     * Edits wait only until the roster is captured, not while the snapshot is written.
+     * @return true if the snapshot was written
+     */
+    public boolean saveSnapshot() { return loadSave.saveSnapshot(actors, rosterLock.readLock()); }
+
+    /**
+     * Exports current actor roster and their availability to the text file
+     */
+    public void exportToTextFile() { loadSave.saveToFile(view().actors); }
+
+    /**
+     * Finishes background persistence work and closes the change journal.
+     * With an off-heap store the actors' data moves back into the actor objects and the store's
+     * off-heap memory is freed: the roster can still be read, but the schedule must not be changed afterwards.
+     */
+    public void close() {
+        loadSave.close();
+        if (store == null || !store.isOffHeap()) {
+            return;
+        }
+        rosterLock.writeLock().lock();
+        try {
+            for (Actor actor : actors) {
+                actor.setAvailabilityListener(null);
+            }
+            store.close();
+        } finally {
+            rosterLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the renderer used for printing, e.g. with one that pages long output
+     * @param renderer Renderer to print schedules and reports with
+     */
+    public void setRenderer(ConsoleRenderer renderer) { this.renderer = renderer; }
+
+    /**
+     * @return Version of the roster, changed by every change to the roster or to an actor's availability
+     */
+    public long getRosterVersion() { return rosterVersion; }
+
+    /**
+     * @return Number of actors on the roster
+     */
+    public int getRosterSize() {
+        rosterLock.readLock().lock();
+        try {
+            return actors.size();
+        } finally {
+            rosterLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return Estimated heap bytes used by availability data: the slot mask and date exceptions of
+     *         every actor, the availability index and the slot bitsets the current roster view does not share with it;
+     *         data kept off the heap is not included (see {@link #getOffHeapAvailabilityBytes()})
+     */
+    public long getAvailabilityBytes() {
+        MemoryEstimate estimate = memoryEstimate();
+        return estimate.availabilityBytes() + (availabilityIndex.isOffHeap() ? 0 : viewIndexBytes());
+    }
+
+    /**
+     * @return Bytes of availability data kept off the heap by an off-heap store: its availability
+     *         column, the availability index and the slot bitsets the current roster view does not share with it
+     */
+    public long getOffHeapAvailabilityBytes() {
+        MemoryEstimate estimate = memoryEstimate();
+        return estimate.offHeapAvailabilityBytes() + (availabilityIndex.isOffHeap() ? viewIndexBytes() : 0);
+    }
+
+    /**
+     * @return Estimated heap used by the actors' details and availability in the store of this
+     *         schedule, next to what the same roster takes as actor objects
+     */
+    public RosterFootprint getRosterFootprint() { return memoryEstimate().footprint(); }
+
+    /**
+     * Returns the memory estimates of the current roster version. The roster is scanned once per
+     * version, so polling every gauge (e.g. through JMX) does not scan it again while nothing changed.
+     * Lazily loaded availability that is read meanwhile shows at the next roster change.
+     * @return Estimates of the current roster version
+     */
+    private MemoryEstimate memoryEstimate() {
+        MemoryEstimate estimate = memoryEstimate;
+        if (estimate != null && estimate.version() == rosterVersion) {
+            return estimate;
+        }
+        rosterLock.readLock().lock();
+        try {
+            estimate = memoryEstimate;
+            if (estimate != null && estimate.version() == rosterVersion) {
+                return estimate;
+            }
+            // One pass over the actors for all gauges
+            long actorBytes = 0;
+            long exceptionBytes = 0;
+            for (Actor actor : actors) {
+                actorBytes += actor.sizeInBytes();
+                AvailabilityExceptions exceptions = actor.getExceptions();
+                exceptionBytes += exceptions.isEmpty() ? 0 : exceptions.sizeInBytes();
+            }
+            long maskBytes = store == null ? TimeGrid.configured().emptyWeek().sizeInBytes()
+                    : store.isOffHeap() ? 0 : (long) SlotMask.wordCount(Actor.SLOTS_PER_WEEK) * Long.BYTES;
+            long indexBytes = availabilityIndex.sizeInBytes();
+            long availabilityBytes = actors.size() * maskBytes + exceptionBytes + (availabilityIndex.isOffHeap() ? 0 : indexBytes);
+            RosterFootprint footprint;
+            long offHeapBytes = 0;
+            if (store == null) {
+                footprint = new RosterFootprint("objects", actorBytes, 0, actorBytes);
+            } else {
+                long storeOffHeapBytes = store.offHeapBytes();
+                footprint = new RosterFootprint(store.isOffHeap() ? "offheap" : "columnar", actorBytes + store.sizeInBytes(),
+                        storeOffHeapBytes, store.objectModelBytes());
+                offHeapBytes = store.isOffHeap() ? storeOffHeapBytes + indexBytes : 0;
+            }
+            estimate = new MemoryEstimate(rosterVersion, availabilityBytes, offHeapBytes, footprint);
+            memoryEstimate = estimate;
+            return estimate;
+        } finally {
+            rosterLock.readLock().unlock();
+        }
+    }
+
+    // Bytes of the slot bitsets of the current roster view that the live index no longer shares
+    private long viewIndexBytes() {
+        RosterView current = view;
+        rosterLock.readLock().lock();
+        try {
+            return current.index.unsharedBytes(availabilityIndex);
+        } finally {
+            rosterLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return Hit and miss counters of the schedule and conflict report caches
+     */
+    public CacheStats getCacheStats() { return new CacheStats(cacheHits.get(), cacheMisses.get()); }
+
+    // Updates the index and the change journal after an actor's availability was edited.
+    // Runs while the actor's monitor is held, so the changes of one actor are applied in order.
+    private void availabilityChanged(Actor actor, SlotMask oldAvailability, SlotMask newAvailability) {
+        rosterLock.writeLock().lock();
+        try {
+            int position = positionOf(actor);
+            if (position >= 0) {
+                availabilityIndex.update(position, oldAvailability, newAvailability);
+                loadSave.journalSetAvailability(position, newAvailability);
+                rosterVersion++;
+            }
+        } finally {
+            rosterLock.writeLock().unlock();
+        }
+    }
+
+    // Journals new date exceptions of an actor; runs while the actor's monitor is held
+    private void exceptionsChanged(Actor actor, AvailabilityExceptions exceptions) {
+        rosterLock.writeLock().lock();
+        try {
+            int position = positionOf(actor);
+            if (position >= 0) {
+                loadSave.journalSetExceptions(position, exceptions);
+                rosterVersion++;
+            }
+        } finally {
+            rosterLock.writeLock().unlock();
+        }
+    }
+
+    // Roster position of an actor, or -1 if it is not on the roster; called with the lock held
+    private int positionOf(Actor actor) {
+        if (store != null) {
+            return store.rowOf(actor);
+        }
+        Integer position = positions.get(actor);
+        return position == null ? -1 : position;
+    }
+
+    // Puts an actor at the end of the roster and indexes it; called with the write lock held
+    private void attach(Actor actor) {
+        attach(actor, true);
+    }
+
+    // Puts an actor at the end of the roster, indexing its availability unless the caller indexes the whole roster
+    private void attach(Actor actor, boolean index) {
+        if (store == null) {
+            positions.put(actor, actors.size());
+        }
+        actors.add(actor);
+        // Listen before reading the availability, so an edit made meanwhile is either read here or reported
+        actor.setAvailabilityListener(indexUpdater);
+        if (store != null) {
+            store.add(actor);
+        }
+        if (index) {
+            availabilityIndex.add(actor.peekAvailability());
+        }
+        actorIndex.add(actor);
+        rosterVersion++;
+    }
+
+    // Replaces the roster and rebuilds the indexes without journaling the change; called with the write lock held
+    private void replaceRoster(List<Actor> actors) {
+        replaceRoster(actors, -1);
+    }
+
+    // Replaces the roster with one restored at the given journal sequence, whose availability rows the store may
+    // keep from its file, or with any roster if the sequence is -1; called with the write lock held
+    private void replaceRoster(List<Actor> actors, long restoredSequence) {
+        for (Actor actor : this.actors) {
+            actor.setAvailabilityListener(null);
+        }
+        if (store != null && restoredSequence >= 0) {
+            store.clearKeepingRows(restoredSequence, actors.size());
+        } else if (store != null) {
+            store.clear();
+        }
+        this.actors.clear();
+        positions.clear();
+        availabilityIndex.clear();
+        actorIndex.clear();
+        rosterVersion++;
+        // Actors of a lazily loaded snapshot are indexed from the snapshot's own index
+        LazyRoster snapshot = null;
+        for (int i = 0; i < actors.size() && snapshot == null; i++) {
+            snapshot = actors.get(i).lazySource();
+        }
+        for (Actor actor : actors) {
+            if (positionOf(actor) < 0) {
+                attach(actor, snapshot == null);
+            }
+        }
+        if (snapshot != null) {
+            indexFrom(snapshot);
+        }
+    }
+
+    /**
+     * Builds the availability index of the roster from the index of the snapshot it was lazily loaded from.
+     * Only actors that are no longer at the position of their record, e.g. after a removal was replayed
+     * from the journal, or whose availability was edited have their availability read; called with the write lock held
+     * @param snapshot Lazily loaded snapshot
+     */
+    private void indexFrom(LazyRoster snapshot) {
+        int size = actors.size();
+        long[] inPlace = new long[(size + 63) >>> 6];
+        for (int position = 0; position < size; position++) {
+            if (actors.get(position).lazyRecord(snapshot) == position) {
+                inPlace[position >>> 6] |= 1L << position;
+            }
+        }
+        availabilityIndex.load(size, slot -> {
+            long[] records = snapshot.slotRecords(slot);
+            long[] positions = new long[inPlace.length];
+            for (int w = 0, n = Math.min(records.length, positions.length); w < n; w++) {
+                positions[w] = records[w] & inPlace[w];
+            }
+            return positions;
+        });
+        SlotMask none = TimeGrid.configured().emptyWeek();
+        for (int position = 0; position < size; position++) {
+            if ((inPlace[position >>> 6] & 1L << position) == 0) {
+                availabilityIndex.update(position, none, actors.get(position).peekAvailability());
+            }
+        }
+    }
+
+    /**
+     * Returns the view of the current roster version, taking a new one only if the roster changed
+     * since the last view was taken. The new view shares the roster chunks and slot bitsets that
+     * did not change, so its cost grows with the edits since the last view rather than the roster size.
+     * @return Current roster view
+     */
+    private RosterView view() {
+        RosterView current = view;
+        if (current.version == rosterVersion) {
+            return current;
+        }
+        rosterLock.readLock().lock();
+        try {
+            current = view;
+            if (current.version != rosterVersion) {
+                current = new RosterView(rosterVersion, actors.snapshot(), availabilityIndex.copy());
+                view = current;
+            }
+            return current;
+        } finally {
+            rosterLock.readLock().unlock();
+        }
+    }
 
     /**
-     * Saves current actor roster and their availability to file
+     * Loads actor roster and availability from the most recently saved file,
+     * detecting whether it is text or a binary snapshot. The loaded roster is kept
+     * in memory only until the next save (see {@link #setActors(List)}).
+     * @throws IOException if the file could not be loaded or holds no actors; the roster is left unchanged
      */
-    public void saveToFile() { loadSave.saveToFile(actors); }
+    public void loadFromFile() throws IOException {
+        List<Actor> loaded = loadSave.loadFromFile();
+        if (loaded.isEmpty()) {
+            throw new IOException("The saved data holds no actors");
+        }
+        setActors(loaded);
+    }
 
     /**
-     * Loads actor roster and availability from a file
+     * Merges the most recently saved data file into the roster instead of replacing it
+     * @return Numbers of added, updated and unchanged actors
+     * @throws IOException if the file could not be loaded; the roster is left unchanged
+     * @see #merge(List)
      */
-    public void loadFromFile() { actors = loadSave.loadFromFile(); }
+    public MergeResult mergeFromFile() throws IOException { return merge(loadSave.loadFromFile()); }
+
+    /**
+     * Upserts actors into the roster. Each actor is matched by id, or by email if no roster
+     * actor has its id. Only new and changed actors are touched, so unchanged actors keep their
+     * positions and cached results stay valid if nothing changed. Actors that are not in the
+     * list stay on the roster. The changes are journaled like edits made through the menus.
+     * @param loaded Actors to merge, e.g. read from a data file
+     * @return Numbers of added, updated and unchanged actors
+     */
+    public MergeResult merge(List<Actor> loaded) {
+        int added = 0;
+        int updated = 0;
+        int unchanged = 0;
+        for (Actor incoming : loaded) {
+            Actor existing;
+            boolean changed = false;
+            rosterLock.writeLock().lock();
+            try {
+                existing = actorIndex.byId(incoming.getId());
+                if (existing == null) {
+                    List<Actor> sameEmail = actorIndex.byEmail(incoming.getEmail());
+                    existing = sameEmail.isEmpty() ? null : sameEmail.get(0);
+                }
+                if (existing == null) {
+                    addActor(incoming);
+                    added++;
+                    continue;
+                }
+
+                if (!existing.getFirstName().equals(incoming.getFirstName()) || !existing.getLastName().equals(incoming.getLastName())
+                        || !existing.getEmail().equals(incoming.getEmail()) || !existing.getPhone().equals(incoming.getPhone())) {
+                    updateActorDetails(existing, incoming.getFirstName(), incoming.getLastName(), incoming.getEmail(), incoming.getPhone());
+                    changed = true;
+                }
+            } finally {
+                rosterLock.writeLock().unlock();
+            }
+            // Outside the lock, since availability edits lock the actor before the roster
+            if (!existing.getAvailability().equals(incoming.getAvailability())) {
+                existing.setAvailability(incoming.getAvailability());
+                changed = true;
+            }
+            if (!existing.getExceptions().equals(incoming.getExceptions())) {
+                existing.setExceptions(incoming.getExceptions());
+                changed = true;
+            }
+            if (changed) {
+                updated++;
+            } else {
+                unchanged++;
+            }
+        }
+        return new MergeResult(added, updated, unchanged);
+    }
 
     /**
      * Generates a weekly schedule based on actors' availability.
@@ -81,67 +825,262 @@ public class Schedule {
      * - Yellow: 2 actors
      * - Red: 1 actor
      * - Red text "No scheduled sessions": No actors available
+     * The schedule is only recomputed after the roster or an actor's availability changed.
+     * It is generated from a view of the roster, so edits made meanwhile by other threads
+     * are neither blocked nor partly included.
      */
     public void generateSchedule() {
-        System.out.printf("Generating schedule for %d actors...\n", actors.size());
-        if (actors.isEmpty()) {
+        RosterView current = view();
+        System.out.printf("Generating schedule for %d actors...\n", current.actors.size());
+        if (current.actors.isEmpty()) {
             System.out.println("No actors available to create a schedule for. Please add actors before generating a schedule.");
         }
 
-        Map<String, List<ScheduleSlot>> weeklySchedule = new HashMap<>();
-        String[] days = {"Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday"};
+        // Print generated schedule
+        printSchedule(weeklySchedule(current));
+
+    }
+
+    /**
+     * Returns the weekly schedule of a roster view, generating it only on the first call for that view
+     * @param view Roster view to schedule
+     * @return Available actors per time slot for each day
+     */
+    private Map<String, List<ScheduleSlot>> weeklySchedule(RosterView view) {
+        Map<String, List<ScheduleSlot>> weeklySchedule = view.weeklySchedule;
+        if (weeklySchedule != null) {
+            cacheHits.incrementAndGet();
+            return weeklySchedule;
+        }
+        cacheMisses.incrementAndGet();
+        long start = PlannerMetrics.GENERATE.start();
+
+        weeklySchedule = new HashMap<>();
 
         // Initialize the empty schedule for each day
-        for (String day : days) {
+        for (String day : Actor.DAYS) {
             weeklySchedule.put(day, new ArrayList<>());
         }
 
-        // Populate the schedule with available actors for each time slot
-        for (String day : days) {
-            for (int slot = 0; slot < 4; slot++) {
-                List<Actor> availableActors = findAvailableActors(day, slot);
+        // Populate the schedule with available actors for each time slot; empty slots are skipped on their popcount
+        for (int day = 0; day < Actor.DAYS.length; day++) {
+            for (int slot = 0; slot < Actor.SLOTS_PER_DAY; slot++) {
+                if (view.index.count(Actor.slotIndex(day, slot)) == 0) {
+                    continue;
+                }
+                String timeSlot = getTimeSlotString(slot);
+                List<Actor> availableActors = findAvailableActors(view, day, slot);
+                weeklySchedule.get(Actor.DAYS[day]).add(new ScheduleSlot(timeSlot, Collections.unmodifiableList(availableActors)));
+            }
+        }
+
+        // Shared by all callers of this view, so it is made read-only
+        weeklySchedule.replaceAll((day, slots) -> Collections.unmodifiableList(slots));
+        weeklySchedule = Collections.unmodifiableMap(weeklySchedule);
+        view.weeklySchedule = weeklySchedule;
+        PlannerMetrics.GENERATE.stop(start);
+        PlannerMetrics.countSlotsScanned((long) Actor.SLOTS_PER_WEEK * view.actors.size());
+        return weeklySchedule;
+    }
+
+    /**
+     * Returns the weekly schedule without printing it, e.g. for the HTTP service mode.
+     * Cached like {@link #generateSchedule()}.
+     * @return Read-only map of each day name to its slots with available actors; slots without actors are left out
+     */
+    public Map<String, List<ScheduleSlot>> getWeeklySchedule() { return weeklySchedule(view()); }
+
+    /**
+     * Generates the schedule of a range of dates, resolving each actor's weekly availability
+     * and date exceptions, and prints it like the weekly schedule.
+     * @param from First date
+     * @param to Last date, at most {@value #MAX_SCHEDULE_DAYS} days after the first
+     */
+    public void generateSchedule(LocalDate from, LocalDate to) {
+        RosterView current = view();
+        System.out.printf("Generating schedule from %s to %s for %d actors...\n", from, to, current.actors.size());
+        Map<LocalDate, List<ScheduleSlot>> dateSchedule = dateSchedule(current, from, to);
+        List<String> days = new ArrayList<>(dateSchedule.size());
+        Map<String, List<ScheduleSlot>> slotsByDay = new HashMap<>();
+        for (Map.Entry<LocalDate, List<ScheduleSlot>> entry : dateSchedule.entrySet()) {
+            String day = Actor.DAYS[Actor.dayIndex(entry.getKey())] + " " + entry.getKey();
+            days.add(day);
+            slotsByDay.put(day, entry.getValue());
+        }
+        printSlots(days, slotsByDay, "   Available Actors (", true);
+        renderer.finish();
+    }
+
+    /**
+     * Returns the schedule of a range of dates without printing it
+     * @param from First date
+     * @param to Last date, at most {@value #MAX_SCHEDULE_DAYS} days after the first
+     * @return Read-only map of each date, in order, to its slots with available actors; slots without actors are left out
+     * @throws IllegalArgumentException if the range is empty or longer than {@value #MAX_SCHEDULE_DAYS} days
+     */
+    public Map<LocalDate, List<ScheduleSlot>> getDateSchedule(LocalDate from, LocalDate to) {
+        return dateSchedule(view(), from, to);
+    }
+
+    /**
+     * Builds the schedule of a range of dates from the weekly availability index of a roster view.
+     * Only actors with an exception in the range are looked at date by date, so the season is never
+     * expanded: every other actor comes straight from the index slot of the date's weekday.
+     * @param view Roster view to schedule
+     * @param from First date
+     * @param to Last date
+     * @return Available actors per time slot for each date
+     */
+    private Map<LocalDate, List<ScheduleSlot>> dateSchedule(RosterView view, LocalDate from, LocalDate to) {
+        long days = to.toEpochDay() - from.toEpochDay() + 1;
+        if (days < 1 || days > MAX_SCHEDULE_DAYS) {
+            throw new IllegalArgumentException("Schedules cover 1 to " + MAX_SCHEDULE_DAYS + " days: " + from + " to " + to);
+        }
+        long start = PlannerMetrics.GENERATE.start();
+
+        // Actors with exceptions in the range, in roster order; read once so every date sees the same exceptions
+        List<Integer> excepted = new ArrayList<>();
+        List<AvailabilityExceptions> exceptions = new ArrayList<>();
+        for (int position = 0; position < view.actors.size(); position++) {
+            AvailabilityExceptions actorExceptions = view.actors.get(position).getExceptions();
+            if (actorExceptions.overlaps(from, to)) {
+                excepted.add(position);
+                exceptions.add(actorExceptions);
+            }
+        }
+
+        Map<LocalDate, List<ScheduleSlot>> dateSchedule = new LinkedHashMap<>();
+        int[] overridden = new int[excepted.size()];
+        SlotMask[] overrides = new SlotMask[excepted.size()];
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            int count = 0;
+            for (int i = 0; i < excepted.size(); i++) {
+                SlotMask availability = exceptions.get(i).availability(date);
+                if (availability != null) {
+                    overridden[count] = excepted.get(i);
+                    overrides[count++] = availability;
+                }
+            }
+            List<ScheduleSlot> slots = new ArrayList<>();
+            for (int slot = 0; slot < Actor.SLOTS_PER_DAY; slot++) {
+                int[] weekly = view.index.positions(Actor.slotIndex(Actor.dayIndex(date), slot));
+                List<Actor> availableActors = availableOnDate(view, weekly, overridden, overrides, count, slot);
                 if (!availableActors.isEmpty()) {
-                    String timeSlot = getTimeSlotString(slot);
-                    weeklySchedule.get(day).add(new ScheduleSlot(timeSlot, availableActors));
+                    slots.add(new ScheduleSlot(getTimeSlotString(slot), Collections.unmodifiableList(availableActors)));
                 }
             }
+            dateSchedule.put(date, Collections.unmodifiableList(slots));
         }
 
-        // Print generated schedule
-        printSchedule(weeklySchedule);
+        PlannerMetrics.GENERATE.stop(start);
+        PlannerMetrics.countSlotsScanned(days * Actor.SLOTS_PER_DAY * view.actors.size());
+        return Collections.unmodifiableMap(dateSchedule);
+    }
+
+    /**
+     * Merges the actors available in a slot by their weekly availability with the actors whose
+     * exception on the date overrides it; both position lists are in roster order
+     * @param view Roster view the positions refer to
+     * @param weekly Positions available in the slot of the date's weekday
+     * @param overridden Positions with an exception on the date
+     * @param overrides Exception of each overridden position
+     * @param count Number of overridden positions
+     * @param slot Time slot index within the day
+     * @return Available actors in roster order
+     */
+    private static List<Actor> availableOnDate(RosterView view, int[] weekly, int[] overridden, SlotMask[] overrides, int count, int slot) {
+        List<Actor> availableActors = new ArrayList<>(weekly.length);
+        int i = 0;
+        int j = 0;
+        while (i < weekly.length || j < count) {
+            if (j == count || (i < weekly.length && weekly[i] < overridden[j])) {
+                availableActors.add(view.actors.get(weekly[i++]));
+                continue;
+            }
+            if (i < weekly.length && weekly[i] == overridden[j]) {
+                i++;
+            }
+            if (overrides[j].get(slot)) {
+                availableActors.add(view.actors.get(overridden[j]));
+            }
+            j++;
+        }
+        return availableActors;
+    }
 
+    /**
+     * Finds all actors available for a specific day and time slot in the current roster
+     * @param day Day index (0 = Monday, 6 = Sunday)
+     * @param slot Time slot index within the day
+     * @return List of available actors in roster order
+     */
+    public List<Actor> findAvailableActors(int day, int slot) {
+        return findAvailableActors(view(), day, slot);
     }
 
     /**
-     * Finds all actors available for a specific day and time slot
-     * @param day Day of the week
-     * @param slot Time slot index (0-3)
-     * @return List of available actors
+     * Counts the actors available for a specific day and time slot without listing them,
+     * with a popcount over the slot's bitset in the availability index (see {@link BitCounting})
+     * @param day Day index (0 = Monday, 6 = Sunday)
+     * @param slot Time slot index within the day
+     * @return Number of available actors
      */
-    private List<Actor> findAvailableActors(String day, int slot) {
-        List<Actor> availableActors = new ArrayList<>();
-        for (Actor actor : actors) {
-            Map<String, boolean[]> availability = actor.getAvailability();
-            if (availability.containsKey(day) && availability.get(day)[slot]) {
-                availableActors.add(actor);
+    public int countAvailableActors(int day, int slot) {
+        return view().index.count(Actor.slotIndex(day, slot));
+    }
+
+    /**
+     * Counts the actors of a group available in each weekly slot, intersecting each slot's bitset
+     * in the availability index with the roster positions of the group
+     * @param group Actors to count, e.g. the cast of a scene; actors not on the roster are not counted
+     * @return Number of available group members per weekly slot (see {@link Actor#slotIndex(int, int)})
+     */
+    public int[] countAvailableActors(List<Actor> group) {
+        rosterLock.readLock().lock();
+        try {
+            // Positions are read under the lock, so they match the view of the current version
+            RosterView current = view();
+            long[] members = new long[(current.actors.size() + 63) >>> 6];
+            for (Actor actor : group) {
+                int position = positionOf(actor);
+                if (position >= 0) {
+                    members[position >>> 6] |= 1L << position;
+                }
             }
+            int[] counts = new int[Actor.SLOTS_PER_WEEK];
+            for (int slotIndex = 0; slotIndex < counts.length; slotIndex++) {
+                counts[slotIndex] = current.index.count(slotIndex, members);
+            }
+            return counts;
+        } finally {
+            rosterLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds all actors available for a specific day and time slot
+     * using the inverted availability index of a roster view
+     * @param view Roster view to search
+     * @param day Day index (0 = Monday, 6 = Sunday)
+     * @param slot Time slot index within the day
+     * @return List of available actors in roster order
+     */
+    private List<Actor> findAvailableActors(RosterView view, int day, int slot) {
+        int[] availablePositions = view.index.positions(Actor.slotIndex(day, slot));
+        List<Actor> availableActors = new ArrayList<>(availablePositions.length);
+        for (int position : availablePositions) {
+            availableActors.add(view.actors.get(position));
         }
         return availableActors;
     }
 
     /**
      * Converts time slot index to human-readable time range
-     * @param slot Time slot index (0-3)
+     * @param slot Time slot index within the day
      * @return String representation of time range
      */
     private String getTimeSlotString(int slot) {
-        return switch(slot) {
-            case 0 -> "9-12";
-            case 1 -> "12-15";
-            case 2 -> "15-18";
-            case 3 -> "18-21";
-            default -> "Invalid Time Slot";
-        };
+        return TimeGrid.configured().slotLabel(slot);
     }
 
     /**
@@ -150,29 +1089,264 @@ public class Schedule {
      * @param weeklySchedule Map containing schedule data
      */
     public void printSchedule(Map<String, List<ScheduleSlot>> weeklySchedule) {
-        String[] days = {"Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday"};
+        printSlots(List.of(Actor.DAYS), weeklySchedule, "   Available Actors (", true);
+        renderer.finish();
+    }
+
+    /**
+     * Detects scheduling conflicts for groups of actors that have to rehearse together.
+     * Reports required calls that members cannot attend, groups without any common
+     * free slot, and the actors blocking the most groups.
+     * Reports are cached per list of groups until the roster or an actor's availability changes.
+     * Members are checked with their availability in a view of the roster, so edits made meanwhile
+     * are not partly included; members not on the roster are checked with their current availability.
+     * @param groups Groups to check; if empty, the whole roster is checked as one group
+     * @return Conflict report
+     */
+    public ConflictDetector.Report detectConflicts(List<ConflictDetector.ActorGroup> groups) {
+        RosterView current = view();
+        if (groups.isEmpty()) {
+            groups = List.of(new ConflictDetector.ActorGroup("Full cast", current.actors, TimeGrid.configured().emptyWeek()));
+        }
+
+        // Reports stay valid as long as the view is current
+        ConflictDetector.Report report;
+        synchronized (current.reports) {
+            report = current.reports.get(groups);
+        }
+        if (report != null) {
+            cacheHits.incrementAndGet();
+            return report;
+        }
+        cacheMisses.incrementAndGet();
+        report = conflictDetector.detect(groups, MAX_REPORTED_BLOCKERS, current::availability);
+        long members = 0;
+        for (ConflictDetector.ActorGroup group : groups) {
+            members += group.members().size();
+        }
+        PlannerMetrics.countSlotsScanned(Actor.SLOTS_PER_WEEK * members);
+        synchronized (current.reports) {
+            current.reports.put(List.copyOf(groups), report);
+        }
+        return report;
+    }
+
+    /**
+     * Prints a conflict report in a color-coded format
+     * - Red: Missed calls and groups without a common slot
+     * - Yellow: Actors blocking groups
+     * - Green: No conflicts found
+     * @param report Report to print
+     */
+    public void printConflictReport(ConflictDetector.Report report) {
+        if (report.isEmpty()) {
+            renderer.color(ConsoleRenderer.GREEN).text("\nNo scheduling conflicts found.").reset().newLine();
+            renderer.finish();
+            return;
+        }
+
+        if (!report.callConflicts().isEmpty()) {
+            renderer.text("\nRequired calls with unavailable actors:").newLine();
+            for (ConflictDetector.CallConflict conflict : report.callConflicts()) {
+                renderer.color(ConsoleRenderer.RED).text(" ").text(conflict.group().name()).text(" - ")
+                        .text(Actor.DAYS[conflict.day()]).text(" ").text(getTimeSlotString(conflict.slot())).text(":")
+                        .reset().newLine();
+                if (!renderer.endEntry() || !printActorLines(ConsoleRenderer.RED, conflict.unavailableActors())) {
+                    renderer.finish();
+                    return;
+                }
+            }
+        }
+
+        if (!report.groupsWithoutCommonSlot().isEmpty()) {
+            renderer.text("\nGroups without a common free slot:").newLine();
+            for (ConflictDetector.ActorGroup group : report.groupsWithoutCommonSlot()) {
+                renderer.color(ConsoleRenderer.RED).text(" ").text(group.name()).text(" (")
+                        .number(group.members().size()).text(" actors)").reset().newLine();
+                if (!renderer.endEntry()) {
+                    renderer.finish();
+                    return;
+                }
+            }
+        }
+
+        if (!report.blockers().isEmpty()) {
+            renderer.text("\nActors blocking the most groups:").newLine();
+            for (ConflictDetector.Blocker blocker : report.blockers()) {
+                Actor actor = blocker.actor();
+                renderer.color(ConsoleRenderer.YELLOW).text("     - ").text(actor.getFirstName()).text(" ")
+                        .text(actor.getLastName()).text(" (").number(blocker.blockedGroups()).text(")").reset().newLine();
+                if (!renderer.endEntry()) {
+                    break;
+                }
+            }
+        }
+        renderer.finish();
+    }
+
+    /**
+     * Assigns scenes to the weekly time slots, maximizing the number of scenes rehearsed
+     * and then minimizing idle actor calls. The search stops after a fixed time budget
+     * and returns the best plan found so far.
+     * @param scenes Scenes with their required casts and durations
+     * @return Optimized rehearsal plan
+     */
+    public RehearsalOptimizer.Plan optimizeRehearsals(List<RehearsalOptimizer.Scene> scenes) {
+        System.out.printf("Optimizing rehearsals for %d scenes...%n", scenes.size());
+        return rehearsalOptimizer.optimize(scenes, OPTIMIZER_TIME_BUDGET_MILLIS);
+    }
+
+    /**
+     * Prints an optimized rehearsal plan, one slot per scheduled scene with its called cast.
+     * Scenes that could not be placed are listed in red.
+     * @param plan Plan to print
+     */
+    public void printRehearsalPlan(RehearsalOptimizer.Plan plan) {
+        Map<String, List<ScheduleSlot>> weeklyPlan = new HashMap<>();
+        for (String day : Actor.DAYS) {
+            weeklyPlan.put(day, new ArrayList<>());
+        }
+        for (RehearsalOptimizer.Assignment assignment : plan.assignments()) {
+            String timeSlot = getTimeRangeString(assignment.startSlot(), assignment.scene().duration())
+                    + " " + assignment.scene().name();
+            weeklyPlan.get(Actor.DAYS[assignment.day()]).add(new ScheduleSlot(timeSlot, assignment.scene().cast()));
+        }
+
+        if (!printSlots(List.of(Actor.DAYS), weeklyPlan, "   Called Actors (", false)) {
+            renderer.finish();
+            return;
+        }
+
+        if (!plan.unscheduled().isEmpty()) {
+            renderer.text("\nScenes that could not be scheduled:").newLine();
+            for (RehearsalOptimizer.Scene scene : plan.unscheduled()) {
+                renderer.color(ConsoleRenderer.RED).text("     - ").text(scene.name()).reset().newLine();
+                if (!renderer.endEntry()) {
+                    renderer.finish();
+                    return;
+                }
+            }
+        }
+        renderer.text(String.format("%nScheduled %d of %d scenes with %d idle actor calls%s%n",
+                plan.assignments().size(), plan.assignments().size() + plan.unscheduled().size(), plan.idleCalls(),
+                plan.optimal() ? "." : " (best plan found within the time limit)."));
+        renderer.finish();
+    }
+
+    /**
+     * Finds the weekly slots with the most available actors in which a required cast is free.
+     * The cast's availability and the slot counts are both read from one view of the roster, so
+     * edits made meanwhile are not partly included; cast members not on the roster are checked
+     * with their current availability.
+     * @param requiredCast Actors who must all be available, empty to rank every slot
+     * @param minimumHeadcount Minimum number of available actors, the required cast included
+     * @param limit Maximum number of slots to return (at most {@value #MAX_RANKED_SLOTS})
+     * @return Best slots and the size of the roster they were counted on
+     */
+    public BestSlots findBestSlots(List<Actor> requiredCast, int minimumHeadcount, int limit) {
+        RosterView current = view();
+        long start = PlannerMetrics.RANK.start();
+        SlotMask candidates = TimeGrid.configured().fullWeek();
+        for (Actor actor : requiredCast) {
+            candidates = candidates.and(current.availability(actor));
+        }
+        List<SlotRanker.RankedSlot> ranking = slotRanker.rank(current.index, candidates, minimumHeadcount,
+                Math.min(limit, MAX_RANKED_SLOTS));
+        PlannerMetrics.RANK.stop(start);
+        PlannerMetrics.countSlotsScanned((long) candidates.cardinality() * current.actors.size());
+        return new BestSlots(ranking, current.actors.size());
+    }
+
+    /**
+     * Prints a ranking of slots, one numbered line per slot with its number of available actors
+     * - Green: Every actor of the roster is available
+     * - Yellow: Some actors are unavailable
+     * - Red: No slot matched the query
+     * @param best Result of {@link #findBestSlots(List, int, int)}
+     */
+    public void printBestSlots(BestSlots best) {
+        List<SlotRanker.RankedSlot> ranking = best.slots();
+        if (ranking.isEmpty()) {
+            renderer.color(ConsoleRenderer.RED).text("\nNo slot matches the required cast and headcount.").reset().newLine();
+            renderer.finish();
+            return;
+        }
+        int rosterSize = best.rosterSize();
+        renderer.text("\nBest rehearsal slots:").newLine();
+        for (int i = 0; i < ranking.size(); i++) {
+            SlotRanker.RankedSlot slot = ranking.get(i);
+            String color = slot.availableActors() == rosterSize ? ConsoleRenderer.GREEN : ConsoleRenderer.YELLOW;
+            renderer.color(color).text(" ").number(i + 1).text(". ").text(Actor.DAYS[slot.day()]).text(" ")
+                    .text(getTimeSlotString(slot.slot())).text(": ").number(slot.availableActors()).text(" of ")
+                    .number(rosterSize).text(" actors available").reset().newLine();
+            if (!renderer.endEntry()) {
+                break;
+            }
+        }
+        renderer.finish();
+    }
+
+    /**
+     * Renders the slots of each day with their actors
+     * @param days Day headings in the order to print them, e.g. the weekday names
+     * @param slotsByDay Slots per day heading
+     * @param actorsHeading Text in front of the actor count of each slot
+     * @param colorByCount true to color slots by the number of actors, false to show them all in green
+     * @return false if the user stopped the output
+     */
+    private boolean printSlots(List<String> days, Map<String, List<ScheduleSlot>> slotsByDay, String actorsHeading, boolean colorByCount) {
         for (String day : days) {
-            System.out.println("\n" + day + ":");
-            List<ScheduleSlot> slots = weeklySchedule.get(day);
+            renderer.newLine().text(day).text(":").newLine();
+            List<ScheduleSlot> slots = slotsByDay.get(day);
             if (slots.isEmpty()) {
-                System.out.println(ANSI_RED + " No scheduled sessions" + ANSI_RESET);
+                renderer.color(ConsoleRenderer.RED).text(" No scheduled sessions").reset().newLine();
+                if (!renderer.endEntry()) {
+                    return false;
+                }
                 continue;
             }
 
             for (ScheduleSlot slot : slots) {
                 // Color coding based on the number of available actors
-                String color = switch (slot.actors().size()) {
-                    case 0 -> ANSI_RESET; // Plain white for 0 actors
-                    case 1 -> ANSI_RED; // Red for 1 actor
-                    case 2 -> ANSI_YELLOW; // Yellow for 2 actors
-                    default -> ANSI_GREEN; // Green for 3+ actors
+                String color = !colorByCount ? ConsoleRenderer.GREEN : switch (slot.actors().size()) {
+                    case 0 -> ConsoleRenderer.RESET; // Plain white for 0 actors
+                    case 1 -> ConsoleRenderer.RED; // Red for 1 actor
+                    case 2 -> ConsoleRenderer.YELLOW; // Yellow for 2 actors
+                    default -> ConsoleRenderer.GREEN; // Green for 3+ actors
                 };
-                System.out.println(color + " " + slot.timeSlot() + ": " + ANSI_RESET);
-                System.out.println(color + "   Available Actors (" + slot.actors().size() + "): " + ANSI_RESET);
-                for (Actor actor : slot.actors()) {
-                    System.out.println(color + "     - " + actor.getFirstName() + " " + actor.getLastName() + ANSI_RESET);
+                renderer.color(color).text(" ").text(slot.timeSlot()).text(": ").reset().newLine();
+                renderer.color(color).text(actorsHeading).number(slot.actors().size()).text("): ").reset().newLine();
+                if (!renderer.endEntry() || !printActorLines(color, slot.actors())) {
+                    return false;
                 }
             }
         }
+        return true;
+    }
+
+    /**
+     * Renders one line per actor name
+     * @param color Color of the lines
+     * @param actors Actors to list
+     * @return false if the user stopped the output
+     */
+    private boolean printActorLines(String color, List<Actor> actors) {
+        for (Actor actor : actors) {
+            renderer.color(color).text("     - ").text(actor.getFirstName()).text(" ").text(actor.getLastName()).reset().newLine();
+            if (!renderer.endEntry()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Converts a block of consecutive time slots to a human-readable time range
+     * @param startSlot First time slot index within the day
+     * @param duration Number of slots in the block
+     * @return String representation of the time range (e.g. "9-15")
+     */
+    private String getTimeRangeString(int startSlot, int duration) {
+        return TimeGrid.configured().rangeLabel(startSlot, duration);
     }
 }
@@ -0,0 +1,451 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local HTTP/JSON service mode, started with {@code java Main --serve [port]}.
+ * Exposes the roster and schedule operations as a JSON API on the loopback interface, using
+ * the JDK's built-in HTTP server with one virtual thread per request, so many concurrent
+ * clients can be served without a thread pool to size. Request latencies are recorded and
+ * reported as percentiles by {@code GET /stats} and when the server stops.
+ * <pre>
+ * GET    /actors?offset=0&amp;limit=100   Page of the roster in roster order
+ * GET    /actors?name=prefix&amp;limit=10  Actors whose first, last or full name starts with the prefix
+ * GET    /actors?email=address         Actors with that email
+ * POST   /actors                       {"firstName": "...", "lastName": "...", "email": "...", "phone": "..."}
+ * GET    /actors/{id}
+ * DELETE /actors/{id}
+ * PUT    /actors/{id}/availability     {"day": "Monday", "slots": [1, 2], "available": true}
+ * GET    /schedule                     Weekly schedule with the ids of the available actors
+ * POST   /save                         Saves the changes to the journal
+ * POST   /load                         Replaces the roster with the most recently saved data file
+ * GET    /stats                        Request count and latency percentiles, cache counters
+ * </pre>
+ * Actors are returned as {"id", "firstName", "lastName", "email", "phone", "availability"},
+ * where availability maps each day to its available slot numbers (1 to the slots per day of the time grid).
+ * Errors are returned as {"error": "message"} with a 4xx or 5xx status.
+ */
+public class ScheduleServer {
+    public static final int DEFAULT_PORT = 8080;
+
+    // Connections waiting to be accepted
+    private static final int BACKLOG = 4096;
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 10_000;
+    private static final int DEFAULT_SEARCH_LIMIT = 10;
+
+    // Larger request bodies are rejected
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+
+    private final Schedule schedule;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Time from handing a request to its handler until the response is written
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final AtomicLong errorResponses = new AtomicLong();
+
+    // JSON of the weekly schedule, rendered once per roster version
+    private volatile RenderedSchedule renderedSchedule = new RenderedSchedule(-1, null);
+
+    /**
+     * Record representing a response to send
+     * @param status HTTP status code
+     * @param body JSON body, or null for none
+     */
+    private record Response(int status, String body) { }
+
+    /**
+     * Record representing the schedule JSON of one roster version
+     * @param version Roster version the JSON was rendered for
+     * @param json Rendered schedule
+     */
+    private record RenderedSchedule(long version, String json) { }
+
+    /**
+     * Handler of the requests below one path
+     */
+    private interface Route {
+        Response handle(HttpExchange exchange) throws IOException;
+    }
+
+    /**
+     * Creates a server for a schedule, listening on the loopback interface
+     * @param schedule Schedule to serve
+     * @param port Port to listen on, 0 for any free port
+     * @throws IOException If the port cannot be bound
+     */
+    public ScheduleServer(Schedule schedule, int port) throws IOException {
+        this.schedule = schedule;
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), BACKLOG);
+        server.setExecutor(executor);
+        server.createContext("/actors", exchange -> handle(exchange, this::actors));
+        server.createContext("/schedule", exchange -> handle(exchange, this::weeklySchedule));
+        server.createContext("/save", exchange -> handle(exchange, this::save));
+        server.createContext("/load", exchange -> handle(exchange, this::load));
+        server.createContext("/stats", exchange -> handle(exchange, this::stats));
+        server.createContext("/", exchange -> handle(exchange, ignored -> error(404, "Unknown path")));
+    }
+
+    /**
+     * Restores the saved roster and serves it until the process is stopped (e.g. with Ctrl+C),
+     * then saves the changes and prints the request latencies
+     * @param port Port to listen on
+     * @throws IOException If the port cannot be bound
+     */
+    public static void serve(int port) throws IOException {
+        Schedule schedule = new Schedule();
+        PlannerMetrics.register(schedule);
+        schedule.restore();
+        ScheduleServer server = new ScheduleServer(schedule, port);
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            schedule.saveToFile();
+            schedule.close();
+            System.out.printf("Served %d requests (%d errors): %s%n",
+                    server.latencies.count(), server.errorResponses.get(), server.latencies.summary());
+        }, "server-shutdown"));
+        System.out.printf("Serving the rehearsal planner on http://localhost:%d/ (press Ctrl+C to stop)%n", server.getPort());
+    }
+
+    /**
+     * Starts accepting requests
+     */
+    public void start() { server.start(); }
+
+    /**
+     * Stops accepting requests, waits up to a second for requests in progress and ends their threads
+     */
+    public void stop() {
+        server.stop(1);
+        executor.close();
+    }
+
+    /**
+     * @return Port the server listens on
+     */
+    public int getPort() { return server.getAddress().getPort(); }
+
+    /**
+     * @return Latencies of the requests handled so far
+     */
+    public LatencyHistogram getLatencies() { return latencies; }
+
+    // Runs a route, turns exceptions into error responses, sends the response and records its latency
+    private void handle(HttpExchange exchange, Route route) {
+        long start = System.nanoTime();
+        Response response;
+        try {
+            response = route.handle(exchange);
+        } catch (IllegalArgumentException e) {
+            response = error(400, e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            response = error(500, e.toString());
+        }
+        try {
+            send(exchange, response);
+        } catch (IOException e) {
+            // The client closed the connection
+        } finally {
+            exchange.close();
+            if (response.status() >= 400) {
+                errorResponses.incrementAndGet();
+            }
+            latencies.record(System.nanoTime() - start);
+        }
+    }
+
+    private Response actors(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String[] path = exchange.getRequestURI().getPath().split("/"); // "", "actors", id, "availability"
+        if (path.length == 2) {
+            return switch (method) {
+                case "GET" -> listActors(query(exchange));
+                case "POST" -> addActor(jsonBody(exchange));
+                default -> methodNotAllowed(exchange, "GET, POST");
+            };
+        }
+
+        int id;
+        try {
+            id = Integer.parseInt(path[2]);
+        } catch (NumberFormatException e) {
+            return error(404, "Invalid actor id: " + path[2]);
+        }
+        Actor actor = schedule.findActorById(id);
+        if (actor == null) {
+            return error(404, "No actor with id " + id);
+        }
+        if (path.length == 3) {
+            return switch (method) {
+                case "GET" -> new Response(200, appendActor(new StringBuilder(256), actor).toString());
+                case "DELETE" -> {
+                    schedule.removeActor(actor);
+                    yield new Response(204, null);
+                }
+                default -> methodNotAllowed(exchange, "GET, DELETE");
+            };
+        }
+        if (path.length == 4 && path[3].equals("availability")) {
+            return method.equals("PUT") ? setAvailability(actor, jsonBody(exchange)) : methodNotAllowed(exchange, "PUT");
+        }
+        return error(404, "Unknown path");
+    }
+
+    private Response listActors(Map<String, String> query) {
+        List<Actor> actors;
+        StringBuilder json = new StringBuilder(4096).append('{');
+        if (query.containsKey("name")) {
+            actors = schedule.searchActorsByName(query.get("name"), intParameter(query, "limit", DEFAULT_SEARCH_LIMIT, MAX_PAGE_SIZE));
+        } else if (query.containsKey("email")) {
+            actors = schedule.findActorsByEmail(query.get("email"));
+        } else {
+            List<Actor> roster = schedule.getActors();
+            int offset = Math.min(intParameter(query, "offset", 0, Integer.MAX_VALUE), roster.size());
+            int limit = intParameter(query, "limit", DEFAULT_PAGE_SIZE, MAX_PAGE_SIZE);
+            actors = roster.subList(offset, Math.min(roster.size(), offset + limit));
+            json.append("\"total\":").append(roster.size()).append(",\"offset\":").append(offset).append(',');
+        }
+        json.append("\"actors\":[");
+        for (int i = 0; i < actors.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendActor(json, actors.get(i));
+        }
+        return new Response(200, json.append("]}").toString());
+    }
+
+    private Response addActor(Map<String, Object> body) {
+        Actor actor = new Actor(textField(body, "firstName"), textField(body, "lastName"),
+                textField(body, "email"), textField(body, "phone"));
+        schedule.addActor(actor);
+        return new Response(201, appendActor(new StringBuilder(256), actor).toString());
+    }
+
+    private Response setAvailability(Actor actor, Map<String, Object> body) {
+        String day = textField(body, "day");
+        int dayIndex = Actor.dayIndex(day.isEmpty() ? day : day.substring(0, 1).toUpperCase() + day.substring(1).toLowerCase());
+        if (dayIndex < 0) {
+            throw new IllegalArgumentException("Invalid day: " + day);
+        }
+        if (!(body.get("slots") instanceof List<?> slotList) || slotList.isEmpty()) {
+            throw new IllegalArgumentException("\"slots\" must be a non-empty list of slot numbers (1-" + Actor.SLOTS_PER_DAY + ")");
+        }
+        int[] slots = new int[slotList.size()];
+        for (int i = 0; i < slots.length; i++) {
+            if (!(slotList.get(i) instanceof Long slot) || slot < 1 || slot > Actor.SLOTS_PER_DAY) {
+                throw new IllegalArgumentException("Invalid slot number: " + slotList.get(i));
+            }
+            slots[i] = slot.intValue();
+        }
+        if (!(body.get("available") instanceof Boolean available)) {
+            throw new IllegalArgumentException("\"available\" must be true or false");
+        }
+        actor.setAvailability(dayIndex, slots, available);
+        return new Response(200, appendActor(new StringBuilder(256), actor).toString());
+    }
+
+    private Response weeklySchedule(HttpExchange exchange) {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            return methodNotAllowed(exchange, "GET");
+        }
+        // Read the version first, so a schedule rendered meanwhile is never cached under a newer version
+        long version = schedule.getRosterVersion();
+        RenderedSchedule rendered = renderedSchedule;
+        if (rendered.version() != version) {
+            rendered = new RenderedSchedule(version, renderSchedule(version, schedule.getWeeklySchedule()));
+            renderedSchedule = rendered;
+        }
+        return new Response(200, rendered.json());
+    }
+
+    private Response save(HttpExchange exchange) {
+        if (!exchange.getRequestMethod().equals("POST")) {
+            return methodNotAllowed(exchange, "POST");
+        }
+        schedule.saveToFile();
+        return new Response(200, "{\"saved\":true,\"rosterVersion\":" + schedule.getRosterVersion() + "}");
+    }
+
+    private Response load(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("POST")) {
+            return methodNotAllowed(exchange, "POST");
+        }
+        try {
+            schedule.loadFromFile();
+        } catch (NoSuchFileException e) {
+            return error(404, "No saved data found");
+        }
+        return new Response(200, "{\"actors\":" + schedule.getActors().size() + ",\"rosterVersion\":" + schedule.getRosterVersion() + "}");
+    }
+
+    private Response stats(HttpExchange exchange) {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            return methodNotAllowed(exchange, "GET");
+        }
+        LatencyHistogram.Summary summary = latencies.summary();
+        Schedule.CacheStats cache = schedule.getCacheStats();
+        return new Response(200, "{\"requests\":" + summary.count() + ",\"errors\":" + errorResponses.get()
+                + ",\"latencyMicros\":{\"p50\":" + summary.p50Micros() + ",\"p90\":" + summary.p90Micros()
+                + ",\"p99\":" + summary.p99Micros() + ",\"max\":" + summary.maxMicros() + "}"
+                + ",\"rosterVersion\":" + schedule.getRosterVersion() + ",\"actors\":" + schedule.getActors().size()
+                + ",\"cache\":{\"hits\":" + cache.hits() + ",\"misses\":" + cache.misses() + "}}");
+    }
+
+    // Renders the schedule as {"rosterVersion", "days": [{"day", "slots": [{"time", "available", "actorIds"}]}]}
+    private static String renderSchedule(long version, Map<String, List<Schedule.ScheduleSlot>> weeklySchedule) {
+        StringBuilder json = new StringBuilder(4096).append("{\"rosterVersion\":").append(version).append(",\"days\":[");
+        for (int day = 0; day < Actor.DAYS.length; day++) {
+            if (day > 0) {
+                json.append(',');
+            }
+            json.append("{\"day\":\"").append(Actor.DAYS[day]).append("\",\"slots\":[");
+            List<Schedule.ScheduleSlot> slots = weeklySchedule.get(Actor.DAYS[day]);
+            for (int i = 0; i < slots.size(); i++) {
+                Schedule.ScheduleSlot slot = slots.get(i);
+                if (i > 0) {
+                    json.append(',');
+                }
+                json.append("{\"time\":\"").append(slot.timeSlot()).append("\",\"available\":").append(slot.actors().size())
+                        .append(",\"actorIds\":[");
+                for (int a = 0; a < slot.actors().size(); a++) {
+                    if (a > 0) {
+                        json.append(',');
+                    }
+                    json.append(slot.actors().get(a).getId());
+                }
+                json.append("]}");
+            }
+            json.append("]}");
+        }
+        return json.append("]}").toString();
+    }
+
+    // Appends an actor with its availability as slot numbers (1 to SLOTS_PER_DAY) per day
+    private static StringBuilder appendActor(StringBuilder json, Actor actor) {
+        SlotMask availability = actor.getAvailability(); // One consistent week even if it is edited meanwhile
+        json.append("{\"id\":").append(actor.getId()).append(",\"firstName\":");
+        Json.appendString(json, actor.getFirstName()).append(",\"lastName\":");
+        Json.appendString(json, actor.getLastName()).append(",\"email\":");
+        Json.appendString(json, actor.getEmail()).append(",\"phone\":");
+        Json.appendString(json, actor.getPhone()).append(",\"availability\":{");
+        for (int day = 0; day < Actor.DAYS.length; day++) {
+            if (day > 0) {
+                json.append(',');
+            }
+            json.append('"').append(Actor.DAYS[day]).append("\":[");
+            boolean first = true;
+            for (int slot = 0; slot < Actor.SLOTS_PER_DAY; slot++) {
+                if (availability.get(Actor.slotIndex(day, slot))) {
+                    if (!first) {
+                        json.append(',');
+                    }
+                    json.append(slot + 1);
+                    first = false;
+                }
+            }
+            json.append(']');
+        }
+        return json.append("}}");
+    }
+
+    // Reads the request body as a JSON object
+    private static Map<String, Object> jsonBody(HttpExchange exchange) throws IOException {
+        byte[] bytes;
+        try (InputStream in = exchange.getRequestBody()) {
+            bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+        }
+        if (bytes.length > MAX_BODY_BYTES) {
+            throw new IllegalArgumentException("Request body is larger than " + MAX_BODY_BYTES + " bytes");
+        }
+        Object body = Json.parse(new String(bytes, StandardCharsets.UTF_8));
+        if (!(body instanceof Map<?, ?> map)) {
+            throw new IllegalArgumentException("Request body must be a JSON object");
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, Object> object = (Map<String, Object>) map;
+        return object;
+    }
+
+    // A required string field; commas and line breaks are rejected since the text data file uses them as separators
+    private static String textField(Map<String, Object> body, String name) {
+        if (!(body.get(name) instanceof String value) || value.isBlank()) {
+            throw new IllegalArgumentException("\"" + name + "\" must be a non-empty string");
+        }
+        if (value.indexOf(',') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            throw new IllegalArgumentException("\"" + name + "\" may not contain commas or line breaks");
+        }
+        return value.trim();
+    }
+
+    // Decodes the query string into parameters; later values replace earlier ones
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return parameters;
+        }
+        for (String parameter : query.split("&")) {
+            int equals = parameter.indexOf('=');
+            String name = equals < 0 ? parameter : parameter.substring(0, equals);
+            String value = equals < 0 ? "" : parameter.substring(equals + 1);
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    private static int intParameter(Map<String, String> query, String name, int defaultValue, int max) {
+        String value = query.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int number = Integer.parseInt(value);
+            if (number < 0) {
+                throw new NumberFormatException();
+            }
+            return Math.min(number, max);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+    }
+
+    private static Response methodNotAllowed(HttpExchange exchange, String allowed) {
+        exchange.getResponseHeaders().set("Allow", allowed);
+        return error(405, "Method " + exchange.getRequestMethod() + " not allowed, use " + allowed);
+    }
+
+    private static Response error(int status, String message) {
+        return new Response(status, Json.appendString(new StringBuilder("{\"error\":"), message).append('}').toString());
+    }
+
+    private static void send(HttpExchange exchange, Response response) throws IOException {
+        if (response.body() == null) {
+            exchange.sendResponseHeaders(response.status(), -1);
+            return;
+        }
+        byte[] body = response.body().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(response.status(), body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
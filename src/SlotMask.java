@@ -0,0 +1,313 @@
+import java.util.Arrays;
+
+/**
+ * Immutable set of time slots packed into 64-bit words: slot i is bit (i % 64) of word i / 64.
+ * Used for the availability of an actor, the required calls of a group and similar weekly masks,
+ * so a week of 672 15-minute slots takes 11 words and set operations work a word at a time.
+ * <p>
+ * Operations return new masks; the static range helpers work on plain word arrays for kernels
+ * that update a mask in place while searching (see {@link RehearsalOptimizer}).
+ */
+public final class SlotMask {
+    // Number of slots in the mask
+    private final int size;
+
+    // Packed slots; bits at and above size are always clear
+    private final long[] words;
+
+    private SlotMask(int size, long[] words) {
+        this.size = size;
+        this.words = words;
+    }
+
+    /**
+     * @param size Number of slots
+     * @return Mask without any slot set
+     */
+    public static SlotMask empty(int size) {
+        return new SlotMask(size, new long[wordCount(size)]);
+    }
+
+    /**
+     * @param size Number of slots
+     * @return Mask with every slot set
+     */
+    public static SlotMask full(int size) {
+        long[] words = new long[wordCount(size)];
+        Arrays.fill(words, -1L);
+        return wrap(size, words);
+    }
+
+    /**
+     * Creates a mask from packed words
+     * @param size Number of slots
+     * @param words Packed slots; copied, missing words count as clear and bits from size on are ignored
+     * @return Mask
+     */
+    public static SlotMask of(int size, long... words) {
+        return wrap(size, Arrays.copyOf(words, wordCount(size)));
+    }
+
+    /**
+     * Creates a mask with the given slots set
+     * @param size Number of slots
+     * @param slots Slot indexes to set (0 to size - 1)
+     * @return Mask
+     * @throws IllegalArgumentException if a slot is out of range
+     */
+    public static SlotMask ofSlots(int size, int... slots) {
+        long[] words = new long[wordCount(size)];
+        for (int slot : slots) {
+            if (slot < 0 || slot >= size) {
+                throw new IllegalArgumentException("Slot " + slot + " is outside of 0-" + (size - 1));
+            }
+            words[slot >>> 6] |= 1L << slot;
+        }
+        return new SlotMask(size, words);
+    }
+
+    // Takes ownership of the words without copying, clearing the bits from size on
+    static SlotMask wrap(int size, long[] words) {
+        if ((size & 63) != 0 && words.length > 0) {
+            words[words.length - 1] &= -1L >>> (64 - (size & 63));
+        }
+        return new SlotMask(size, words);
+    }
+
+    /**
+     * @param size Number of slots
+     * @return Number of 64-bit words holding that many slots
+     */
+    public static int wordCount(int size) {
+        return (size + 63) >>> 6;
+    }
+
+    /**
+     * @return Number of slots in the mask, set or not
+     */
+    public int size() { return size; }
+
+    /**
+     * @return Number of words the slots are packed into
+     */
+    public int wordCount() { return words.length; }
+
+    /**
+     * @param index Word index (0 to wordCount() - 1)
+     * @return Slots index * 64 to index * 64 + 63 as bits
+     */
+    public long word(int index) { return words[index]; }
+
+    /**
+     * @return Copy of the packed words
+     */
+    public long[] toWords() { return words.clone(); }
+
+    /**
+     * @param slot Slot index
+     * @return true if the slot is set
+     */
+    public boolean get(int slot) {
+        return (words[slot >>> 6] & (1L << slot)) != 0;
+    }
+
+    /**
+     * @param from First slot index of the range
+     * @param to Slot index after the range
+     * @return true if every slot in the range is set (also for an empty range)
+     */
+    public boolean allSet(int from, int to) {
+        return allSet(words, from, to);
+    }
+
+    /**
+     * @return true if no slot is set
+     */
+    public boolean isEmpty() {
+        for (long word : words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return Number of set slots
+     */
+    public int cardinality() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * @param from Slot index to start at
+     * @return First set slot at or after from, or -1 if there is none
+     */
+    public int nextSetBit(int from) {
+        int w = from >>> 6;
+        if (from >= size || w >= words.length) {
+            return -1;
+        }
+        long bits = words[w] & (-1L << from);
+        while (bits == 0) {
+            if (++w == words.length) {
+                return -1;
+            }
+            bits = words[w];
+        }
+        return (w << 6) + Long.numberOfTrailingZeros(bits);
+    }
+
+    /**
+     * Copies a range of slots into a mask of its own, e.g. one day of a weekly mask
+     * @param from First slot of the range
+     * @param to Slot after the last slot of the range
+     * @return Mask of size to - from whose slot i is slot from + i of this mask
+     */
+    public SlotMask slice(int from, int to) {
+        if (from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("Slots " + from + "-" + to + " outside mask of " + size);
+        }
+        long[] result = new long[wordCount(to - from)];
+        for (int slot = nextSetBit(from); slot >= 0 && slot < to; slot = nextSetBit(slot + 1)) {
+            int index = slot - from;
+            result[index >>> 6] |= 1L << index;
+        }
+        return new SlotMask(to - from, result);
+    }
+
+    /**
+     * @param other Mask of the same size
+     * @return Slots set in both masks
+     */
+    public SlotMask and(SlotMask other) {
+        checkSize(other);
+        long[] result = new long[words.length];
+        for (int w = 0; w < result.length; w++) {
+            result[w] = words[w] & other.words[w];
+        }
+        return new SlotMask(size, result);
+    }
+
+    /**
+     * @param other Mask of the same size
+     * @return Slots set in either mask
+     */
+    public SlotMask or(SlotMask other) {
+        checkSize(other);
+        long[] result = new long[words.length];
+        for (int w = 0; w < result.length; w++) {
+            result[w] = words[w] | other.words[w];
+        }
+        return new SlotMask(size, result);
+    }
+
+    /**
+     * @param other Mask of the same size
+     * @return Slots set in this mask but not in the other
+     */
+    public SlotMask andNot(SlotMask other) {
+        checkSize(other);
+        long[] result = new long[words.length];
+        for (int w = 0; w < result.length; w++) {
+            result[w] = words[w] & ~other.words[w];
+        }
+        return new SlotMask(size, result);
+    }
+
+    /**
+     * @return Estimated heap bytes of the mask: the object and its word array
+     */
+    public long sizeInBytes() {
+        return 24 + 16 + (long) words.length * Long.BYTES;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other || other instanceof SlotMask mask && mask.size == size && Arrays.equals(mask.words, words);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * size + Arrays.hashCode(words);
+    }
+
+    /**
+     * @return Slots as a string of '0' and '1' characters, slot 0 first
+     */
+    @Override
+    public String toString() {
+        StringBuilder bits = new StringBuilder(size);
+        for (int slot = 0; slot < size; slot++) {
+            bits.append(get(slot) ? '1' : '0');
+        }
+        return bits.toString();
+    }
+
+    /**
+     * @param words Packed slots
+     * @param from First slot index of the range
+     * @param to Slot index after the range
+     * @return true if any slot in the range is set
+     */
+    static boolean anySet(long[] words, int from, int to) {
+        for (int w = from >>> 6, last = (to - 1) >>> 6; from < to && w <= last; w++) {
+            if ((words[w] & rangeMask(w, from, to)) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param words Packed slots
+     * @param from First slot index of the range
+     * @param to Slot index after the range
+     * @return true if every slot in the range is set
+     */
+    static boolean allSet(long[] words, int from, int to) {
+        for (int w = from >>> 6, last = (to - 1) >>> 6; from < to && w <= last; w++) {
+            long mask = rangeMask(w, from, to);
+            if ((words[w] & mask) != mask) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sets or clears a range of slots in place
+     * @param words Packed slots
+     * @param from First slot index of the range
+     * @param to Slot index after the range
+     * @param set true to set the slots, false to clear them
+     */
+    static void setRange(long[] words, int from, int to, boolean set) {
+        for (int w = from >>> 6, last = (to - 1) >>> 6; from < to && w <= last; w++) {
+            long mask = rangeMask(w, from, to);
+            words[w] = set ? words[w] | mask : words[w] & ~mask;
+        }
+    }
+
+    // Bits of word w that lie within [from, to)
+    private static long rangeMask(int w, int from, int to) {
+        long mask = -1L;
+        if (w == from >>> 6) {
+            mask &= -1L << from;
+        }
+        if (w == (to - 1) >>> 6) {
+            mask &= -1L >>> (63 - ((to - 1) & 63));
+        }
+        return mask;
+    }
+
+    private void checkSize(SlotMask other) {
+        if (other.size != size) {
+            throw new IllegalArgumentException("Slot masks differ in size: " + size + " and " + other.size);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Best-slot query engine.
+ * Ranks weekly time slots by the number of available actors, counted with a popcount over the
+ * inverted availability index (one bit count per 64 actors and slot). Only the best slots asked
+ * for are kept, in a min-heap bounded to that number, so a query over a roster of 100k actors
+ * reads a few hundred kilobytes of index words and never sorts the whole week.
+ */
+public class SlotRanker {
+    /**
+     * Record representing a slot in the ranking
+     * @param day Day index (0 = Monday, 6 = Sunday)
+     * @param slot Time slot index within the day
+     * @param availableActors Number of roster actors available in the slot
+     */
+    public record RankedSlot(int day, int slot, int availableActors) { }
+
+    /**
+     * Finds the slots with the most available actors.
+     * Slots with the same number of actors are ranked by day and time, earliest first.
+     * @param index Availability index of the roster
+     * @param candidates Weekly slots that may be ranked, e.g. the slots the whole required cast is free
+     * @param minimumHeadcount Minimum number of available actors for a slot to be ranked
+     * @param limit Maximum number of slots to return
+     * @return Best slots, most available actors first
+     */
+    public List<RankedSlot> rank(AvailabilityIndex index, SlotMask candidates, int minimumHeadcount, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        // Min-heap of packed (count << 32) | (Integer.MAX_VALUE - slot) keys, so larger is better and the worst is on top
+        long[] heap = new long[Math.min(limit, Actor.SLOTS_PER_WEEK)];
+        int size = 0;
+        for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+            int count = index.count(slot);
+            if (count < minimumHeadcount) {
+                continue;
+            }
+            long key = ((long) count << 32) | (Integer.MAX_VALUE - slot);
+            if (size < heap.length) {
+                heap[size] = key;
+                siftUp(heap, size++);
+            } else if (key > heap[0]) {
+                heap[0] = key;
+                siftDown(heap, size);
+            }
+        }
+
+        long[] best = Arrays.copyOf(heap, size);
+        Arrays.sort(best);
+        List<RankedSlot> ranking = new ArrayList<>(size);
+        for (int i = size - 1; i >= 0; i--) {
+            int slot = Integer.MAX_VALUE - (int) best[i];
+            ranking.add(new RankedSlot(TimeGrid.configured().day(slot), TimeGrid.configured().slotOfDay(slot), (int) (best[i] >>> 32)));
+        }
+        return ranking;
+    }
+
+    // Moves the key at a position up until its parent is not larger
+    private static void siftUp(long[] heap, int position) {
+        long key = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (heap[parent] <= key) {
+                break;
+            }
+            heap[position] = heap[parent];
+            position = parent;
+        }
+        heap[position] = key;
+    }
+
+    // Moves the key at the top down until neither child is smaller
+    private static void siftDown(long[] heap, int size) {
+        long key = heap[0];
+        int position = 0;
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (key <= heap[child]) {
+                break;
+            }
+            heap[position] = heap[child];
+            position = child;
+        }
+        heap[position] = key;
+    }
+}
@@ -0,0 +1,335 @@
+import java.util.stream.IntStream;
+
+/**
+ * Definition of the daily time grid every day of the week is divided into: the time the first
+ * slot starts, the length of a slot and the number of slots per day. All classes read the grid
+ * from here, so the resolution can go from the original four 3-hour slots down to e.g.
+ * 15-minute slots over the whole day (96 slots per day, 672 per week).
+ * <p>
+ * The grid of a session is set with {@code -Drehearsalplanner.grid=START-END/MINUTES},
+ * e.g. {@code 0:00-24:00/15} or {@code 8:00-22:00/30}; the default is {@code 9:00-21:00/180}.
+ * Data files record the grid they were written with and are converted when they are loaded
+ * with another one, unless the conversion would lose slots (see {@link #convertExactly(SlotMask, TimeGrid)}).
+ */
+public final class TimeGrid {
+    public static final String PROPERTY = "rehearsalplanner.grid";
+
+    // Days of the week in schedule order, see Actor.DAYS
+    public static final int DAYS_PER_WEEK = 7;
+
+    // Grid of data files written before the grid was configurable: 9-12, 12-15, 15-18, 18-21
+    public static final TimeGrid LEGACY = new TimeGrid(9 * 60, 180, 4);
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private static final TimeGrid CONFIGURED = fromProperty();
+
+    private final int startMinute; // Minute of the day the first slot starts
+    private final int slotMinutes; // Length of every slot
+    private final int slotsPerDay;
+
+    // Shared masks of the week on this grid, as masks are immutable
+    private final SlotMask emptyWeek;
+    private final SlotMask fullWeek;
+    private final SlotMask emptyDay;
+
+    private TimeGrid(int startMinute, int slotMinutes, int slotsPerDay) {
+        this.startMinute = startMinute;
+        this.slotMinutes = slotMinutes;
+        this.slotsPerDay = slotsPerDay;
+        emptyWeek = SlotMask.empty(slotsPerWeek());
+        fullWeek = SlotMask.full(slotsPerWeek());
+        emptyDay = SlotMask.empty(slotsPerDay);
+    }
+
+    /**
+     * @return Grid of this session, read from the {@value #PROPERTY} system property at startup
+     */
+    public static TimeGrid configured() {
+        return CONFIGURED;
+    }
+
+    /**
+     * Creates a grid and validates that it fits into a day
+     * @param startMinute Minute of the day the first slot starts (0 = midnight)
+     * @param slotMinutes Length of a slot in minutes
+     * @param slotsPerDay Number of slots per day
+     * @return Grid
+     * @throws IllegalArgumentException if the slots do not fit into one day
+     */
+    public static TimeGrid of(int startMinute, int slotMinutes, int slotsPerDay) {
+        if (startMinute < 0 || slotMinutes < 1 || slotsPerDay < 1
+                || startMinute + (long) slotMinutes * slotsPerDay > MINUTES_PER_DAY) {
+            throw new IllegalArgumentException("Invalid time grid: " + slotsPerDay + " slots of " + slotMinutes
+                    + " minutes from " + time(Math.max(0, startMinute)) + " do not fit into a day");
+        }
+        return LEGACY.startMinute == startMinute && LEGACY.slotMinutes == slotMinutes && LEGACY.slotsPerDay == slotsPerDay
+                ? LEGACY : new TimeGrid(startMinute, slotMinutes, slotsPerDay);
+    }
+
+    /**
+     * Parses a grid definition
+     * @param definition Grid as START-END/MINUTES (e.g. "0:00-24:00/15" or "9-21/180")
+     * @return Grid
+     * @throws IllegalArgumentException if the definition is malformed or the range is not a whole number of slots
+     */
+    public static TimeGrid parse(String definition) {
+        String text = definition.trim();
+        int dash = text.indexOf('-');
+        int slash = text.indexOf('/');
+        if (dash < 0 || slash < dash) {
+            throw new IllegalArgumentException("Invalid time grid: " + definition + " (expected START-END/MINUTES, e.g. 0:00-24:00/15)");
+        }
+        int start = minuteOfDay(text.substring(0, dash), definition);
+        int end = minuteOfDay(text.substring(dash + 1, slash), definition);
+        int slotMinutes;
+        try {
+            slotMinutes = Integer.parseInt(text.substring(slash + 1).trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid slot length in time grid: " + definition);
+        }
+        if (end <= start || slotMinutes < 1 || (end - start) % slotMinutes != 0) {
+            throw new IllegalArgumentException("Invalid time grid: " + definition
+                    + " (the range must be a whole number of slots)");
+        }
+        return of(start, slotMinutes, (end - start) / slotMinutes);
+    }
+
+    public int startMinute() { return startMinute; }
+
+    public int slotMinutes() { return slotMinutes; }
+
+    public int slotsPerDay() { return slotsPerDay; }
+
+    public int slotsPerWeek() { return DAYS_PER_WEEK * slotsPerDay; }
+
+    /**
+     * @return Minute of the day the last slot ends
+     */
+    public int endMinute() { return startMinute + slotMinutes * slotsPerDay; }
+
+    /**
+     * @param day Day index (0 = Monday, 6 = Sunday)
+     * @param slot Time slot index within the day
+     * @return Weekly slot index (day * slots per day + slot)
+     */
+    public int slotIndex(int day, int slot) { return day * slotsPerDay + slot; }
+
+    /**
+     * @param slotIndex Weekly slot index
+     * @return Day index of the slot
+     */
+    public int day(int slotIndex) { return slotIndex / slotsPerDay; }
+
+    /**
+     * @param slotIndex Weekly slot index
+     * @return Time slot index within its day
+     */
+    public int slotOfDay(int slotIndex) { return slotIndex % slotsPerDay; }
+
+    /**
+     * @return Mask of the week without any slot set
+     */
+    public SlotMask emptyWeek() { return emptyWeek; }
+
+    /**
+     * @return Mask of the week with every slot set
+     */
+    public SlotMask fullWeek() { return fullWeek; }
+
+    /**
+     * @return Mask of a single day without any slot set
+     */
+    public SlotMask emptyDay() { return emptyDay; }
+
+    /**
+     * @param slot Time slot index within the day
+     * @return Human-readable time range of the slot (e.g. "9-12" or "9:15-9:30")
+     */
+    public String slotLabel(int slot) {
+        return slot >= 0 && slot < slotsPerDay ? rangeLabel(slot, 1) : "Invalid Time Slot";
+    }
+
+    /**
+     * @param startSlot First time slot index of a block of consecutive slots
+     * @param slots Number of slots in the block
+     * @return Human-readable time range of the block (e.g. "9-15")
+     */
+    public String rangeLabel(int startSlot, int slots) {
+        int start = startMinute + startSlot * slotMinutes;
+        return time(start) + "-" + time(start + slots * slotMinutes);
+    }
+
+    /**
+     * Parses slot numbers of a day as typed by the user, e.g. "1,3" or "5-12,20"
+     * @param text Comma-separated slot numbers (1 to slots per day) and ranges of them
+     * @return Slot numbers in the order given
+     * @throws IllegalArgumentException if a number is malformed or outside the day
+     */
+    public int[] parseSlotNumbers(String text) {
+        IntStream.Builder slots = IntStream.builder();
+        for (String part : text.split(",")) {
+            String[] bounds = part.trim().split("-", 2);
+            int first;
+            int last;
+            try {
+                first = Integer.parseInt(bounds[0].trim());
+                last = bounds.length == 2 ? Integer.parseInt(bounds[1].trim()) : first;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid slot: " + part.trim());
+            }
+            if (first < 1 || last > slotsPerDay || first > last) {
+                throw new IllegalArgumentException("Invalid slot number: " + part.trim() + " (slots are 1-" + slotsPerDay + ")");
+            }
+            for (int slot = first; slot <= last; slot++) {
+                slots.add(slot);
+            }
+        }
+        return slots.build().toArray();
+    }
+
+    /**
+     * Converts a mask of whole days, e.g. a week or a single day, from another grid to this one.
+     * A slot of this grid is set only if it lies within the other grid's day and every slot of
+     * the other grid it overlaps is set, so converting to a finer grid is exact and no
+     * availability is made up on a coarser one.
+     * @param mask Mask of consecutive days on the other grid
+     * @param from Grid the mask is on
+     * @return Mask of the same days on this grid
+     */
+    public SlotMask convert(SlotMask mask, TimeGrid from) {
+        if (from.equals(this)) {
+            return mask;
+        }
+        int days = mask.size() / from.slotsPerDay;
+        long[] words = new long[SlotMask.wordCount(days * slotsPerDay)];
+        for (int slot = 0; slot < slotsPerDay; slot++) {
+            int start = startMinute + slot * slotMinutes;
+            int end = start + slotMinutes;
+            if (start < from.startMinute || end > from.endMinute()) {
+                continue;
+            }
+            int first = (start - from.startMinute) / from.slotMinutes;
+            int last = (end - 1 - from.startMinute) / from.slotMinutes;
+            for (int day = 0; day < days; day++) {
+                if (mask.allSet(from.slotIndex(day, first), from.slotIndex(day, last) + 1)) {
+                    int index = slotIndex(day, slot);
+                    words[index >>> 6] |= 1L << index;
+                }
+            }
+        }
+        return SlotMask.wrap(days * slotsPerDay, words);
+    }
+
+    /**
+     * Converts a mask of whole days from another grid to this one like {@link #convert(SlotMask, TimeGrid)},
+     * but fails instead of dropping availability the other grid holds at a finer resolution
+     * @param mask Mask of consecutive days on the other grid
+     * @param from Grid the mask is on
+     * @return Mask of the same days on this grid, holding exactly the same availability
+     * @throws IllegalArgumentException if the conversion would lose slots
+     */
+    public SlotMask convertExactly(SlotMask mask, TimeGrid from) {
+        SlotMask converted = convert(mask, from);
+        if (!refines(from) && !from.convert(converted, this).equals(mask)) {
+            throw new IllegalArgumentException(lossMessage(from));
+        }
+        return converted;
+    }
+
+    /**
+     * @param other Grid to compare with
+     * @return true if every slot of the other grid is made up of whole slots of this grid, so any
+     *         mask converts from the other grid to this one and back without losing a slot
+     */
+    public boolean refines(TimeGrid other) {
+        return startMinute <= other.startMinute && endMinute() >= other.endMinute()
+                && other.slotMinutes % slotMinutes == 0 && (other.startMinute - startMinute) % slotMinutes == 0;
+    }
+
+    /**
+     * Maps the weekly slots of this grid to the slots of a grid it refines, e.g. to read bitsets of
+     * actors per slot kept on that grid without converting every actor's mask
+     * @param coarser Grid this grid refines (see {@link #refines(TimeGrid)})
+     * @return For each weekly slot of this grid, the weekly slot of the other grid containing it,
+     *         or -1 if the slot lies outside the other grid's day
+     */
+    public int[] containingSlots(TimeGrid coarser) {
+        int[] slots = new int[slotsPerWeek()];
+        for (int slot = 0; slot < slotsPerDay; slot++) {
+            int start = startMinute + slot * slotMinutes;
+            boolean inside = start >= coarser.startMinute && start + slotMinutes <= coarser.endMinute();
+            for (int day = 0; day < DAYS_PER_WEEK; day++) {
+                slots[slotIndex(day, slot)] = inside ? coarser.slotIndex(day, (start - coarser.startMinute) / coarser.slotMinutes) : -1;
+            }
+        }
+        return slots;
+    }
+
+    /**
+     * @param from Grid of data that cannot be held on this grid
+     * @return Message explaining how to start a session on the data's grid
+     */
+    public String lossMessage(TimeGrid from) {
+        return "Availability on the time grid " + from + " cannot be converted to the grid " + this
+                + " without losing slots; start with -D" + PROPERTY + "=" + from + " to use it";
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof TimeGrid grid && grid.startMinute == startMinute
+                && grid.slotMinutes == slotMinutes && grid.slotsPerDay == slotsPerDay;
+    }
+
+    @Override
+    public int hashCode() {
+        return (startMinute * 31 + slotMinutes) * 31 + slotsPerDay;
+    }
+
+    /**
+     * @return Grid definition as accepted by {@link #parse(String)} (e.g. "9:00-21:00/180")
+     */
+    @Override
+    public String toString() {
+        return clock(startMinute) + "-" + clock(endMinute()) + "/" + slotMinutes;
+    }
+
+    // Reads the grid of this session, falling back to the default grid if the property is invalid
+    private static TimeGrid fromProperty() {
+        String definition = System.getProperty(PROPERTY);
+        if (definition == null || definition.isBlank()) {
+            return LEGACY;
+        }
+        try {
+            return parse(definition);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage() + "; using " + LEGACY);
+            return LEGACY;
+        }
+    }
+
+    // Parses H, H:MM or HH:MM as a minute of the day, 24:00 included
+    private static int minuteOfDay(String time, String definition) {
+        String[] parts = time.trim().split(":", 2);
+        try {
+            int hours = Integer.parseInt(parts[0]);
+            int minutes = parts.length == 2 ? Integer.parseInt(parts[1]) : 0;
+            int minute = hours * 60 + minutes;
+            if (hours >= 0 && minutes >= 0 && minutes < 60 && minute <= MINUTES_PER_DAY) {
+                return minute;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Invalid time in time grid: " + definition);
+    }
+
+    // Time of day for labels: whole hours without minutes (e.g. "9" or "9:15")
+    private static String time(int minute) {
+        return minute % 60 == 0 ? Integer.toString(minute / 60) : clock(minute);
+    }
+
+    private static String clock(int minute) {
+        return minute / 60 + ":" + String.format("%02d", minute % 60);
+    }
+}
@@ -0,0 +1,82 @@
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vectorized counting and intersection kernels (Vector API, {@code jdk.incubator.vector}).
+ * Each step loads as many words as the preferred vector shape holds (8 with AVX-512, 4 with AVX2),
+ * counts their bits lane-wise and adds the counts to per-lane sums, which are added up once at
+ * the end; the words left over after the last full vector are counted one at a time.
+ * <p>
+ * Only loaded by {@link BitCounting} when the module is present, since loading it without the
+ * module fails.
+ */
+final class VectorBitCounting implements BitCounting.Kernel {
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    @Override
+    public String name() { return "vector (" + SPECIES.length() + " words)"; }
+
+    @Override
+    public int bitCount(long[] words, int length) {
+        LongVector counts = LongVector.zero(SPECIES);
+        int w = 0;
+        for (int bound = SPECIES.loopBound(length); w < bound; w += SPECIES.length()) {
+            counts = counts.add(LongVector.fromArray(SPECIES, words, w).lanewise(VectorOperators.BIT_COUNT));
+        }
+        long count = counts.reduceLanes(VectorOperators.ADD);
+        for (; w < length; w++) {
+            count += Long.bitCount(words[w]);
+        }
+        return (int) count;
+    }
+
+    @Override
+    public int andBitCount(long[] a, long[] b, int length) {
+        LongVector counts = LongVector.zero(SPECIES);
+        int w = 0;
+        for (int bound = SPECIES.loopBound(length); w < bound; w += SPECIES.length()) {
+            LongVector both = LongVector.fromArray(SPECIES, a, w).and(LongVector.fromArray(SPECIES, b, w));
+            counts = counts.add(both.lanewise(VectorOperators.BIT_COUNT));
+        }
+        long count = counts.reduceLanes(VectorOperators.ADD);
+        for (; w < length; w++) {
+            count += Long.bitCount(a[w] & b[w]);
+        }
+        return (int) count;
+    }
+
+    @Override
+    public int bitCount(MemorySegment words, long index, int length) {
+        LongVector counts = LongVector.zero(SPECIES);
+        int w = 0;
+        for (int bound = SPECIES.loopBound(length); w < bound; w += SPECIES.length()) {
+            LongVector vector = LongVector.fromMemorySegment(SPECIES, words, (index + w) * Long.BYTES, ByteOrder.nativeOrder());
+            counts = counts.add(vector.lanewise(VectorOperators.BIT_COUNT));
+        }
+        long count = counts.reduceLanes(VectorOperators.ADD);
+        for (; w < length; w++) {
+            count += Long.bitCount(words.getAtIndex(ValueLayout.JAVA_LONG, index + w));
+        }
+        return (int) count;
+    }
+
+    @Override
+    public int andBitCount(MemorySegment words, long index, long[] other, int length) {
+        LongVector counts = LongVector.zero(SPECIES);
+        int w = 0;
+        for (int bound = SPECIES.loopBound(length); w < bound; w += SPECIES.length()) {
+            LongVector vector = LongVector.fromMemorySegment(SPECIES, words, (index + w) * Long.BYTES, ByteOrder.nativeOrder());
+            counts = counts.add(vector.and(LongVector.fromArray(SPECIES, other, w)).lanewise(VectorOperators.BIT_COUNT));
+        }
+        long count = counts.reduceLanes(VectorOperators.ADD);
+        for (; w < length; w++) {
+            count += Long.bitCount(words.getAtIndex(ValueLayout.JAVA_LONG, index + w) & other[w]);
+        }
+        return (int) count;
+    }
+}